@@ -0,0 +1,65 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ibe.stub.StubResponses;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a {@code listRoomAvailabilities} response with the streaming reader
+ * into {@link RoomAvailabilityColumns}, against reading it into a
+ * {@link JsonNode} tree and walking the rows, as the services did before. Run
+ * with {@code -prof gc} to compare the allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = StubResponses.roomAvailabilities(rows);
+    }
+
+    @Benchmark
+    public RoomAvailabilityColumns streaming() throws IOException {
+        return RoomAvailabilityColumns.decode(body);
+    }
+
+    @Benchmark
+    public void tree(Blackhole blackhole) throws IOException {
+        JsonNode availabilities = objectMapper.readTree(body).path("data").path(RoomAvailabilityColumns.FIELD);
+        for (JsonNode availability : availabilities) {
+            blackhole.consume(availability.path("availability_id").asInt());
+            blackhole.consume(LocalDate.parse(availability.path("date").asText().substring(0, 10)).toEpochDay());
+            JsonNode room = availability.path("room");
+            blackhole.consume(room.path("room_id").asInt());
+            blackhole.consume(room.path("room_type_id").asInt());
+        }
+    }
+}
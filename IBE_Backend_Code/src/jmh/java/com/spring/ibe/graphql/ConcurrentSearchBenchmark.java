@@ -0,0 +1,140 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.stub.StubGraphqlProperties;
+import com.spring.ibe.stub.StubGraphqlServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends 500 concurrent availability searches to the stand-in endpoint, which
+ * answers each after a fixed latency, through the blocking gateway with a
+ * thread per search and through the non-blocking gateway. The sample mode
+ * reports the p99 time for all 500 searches to finish; the peak number of
+ * client threads, i.e. the JVM's threads minus the stand-in's, is printed
+ * after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConcurrentSearchBenchmark {
+
+    private static final int SEARCHES = 500;
+    private static final LocalDate START_DATE = LocalDate.of(2026, 1, 1);
+
+    @Param({"50"})
+    private long latencyMillis;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicInteger peakClientThreads = new AtomicInteger();
+    private StubGraphqlServer server;
+    private FanOutExecutor fanOutExecutor;
+    private GraphqlClient graphqlClient;
+    private GraphqlAsyncClient graphqlAsyncClient;
+    private ExecutorService searchThreads;
+    private Map<String, Object> variables;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        StubGraphqlProperties stubProperties = new StubGraphqlProperties();
+        stubProperties.setStartDate(START_DATE);
+        stubProperties.setLatency(Duration.ofMillis(latencyMillis));
+        server = StubGraphqlServer.start(stubProperties);
+
+        GraphqlProperties properties = new GraphqlProperties();
+        properties.setCoalesceQueries(false);
+        properties.setMaxConnections(SEARCHES);
+        properties.setMaxConnectionsPerRoute(SEARCHES);
+        properties.getResilience().setMaxConcurrentCalls(SEARCHES);
+        fanOutExecutor = new FanOutExecutor(properties, new SimpleMeterRegistry());
+        graphqlClient = server.client(properties, fanOutExecutor);
+        graphqlAsyncClient = new GraphqlAsyncClient(server.getUrl(), "stub", WebClient.builder(), properties,
+                new GraphqlResilience(properties), new GraphqlMetrics(new SimpleMeterRegistry()));
+        searchThreads = Executors.newCachedThreadPool(new CustomizableThreadFactory("search-"));
+        variables = Map.of(
+                "propertyId", stubProperties.getFirstPropertyId(),
+                "startDate", START_DATE + GraphqlQuery.START_OF_DAY,
+                "endDate", START_DATE.plusDays(3) + GraphqlQuery.START_OF_DAY,
+                GraphqlPager.AFTER, 0,
+                GraphqlPager.TAKE, 100);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakThreads() {
+        System.out.println("Peak client threads: " + peakClientThreads.getAndSet(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        searchThreads.shutdownNow();
+        fanOutExecutor.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public int blocking() throws ExecutionException, InterruptedException {
+        List<Future<ResponseEntity<byte[]>>> searches = new ArrayList<>(SEARCHES);
+        for (int i = 0; i < SEARCHES; i++) {
+            searches.add(searchThreads.submit(
+                    () -> graphqlClient.executeForBytes(GraphqlQuery.GET_ROOM_AVAILABILITIES, variables)));
+        }
+        recordClientThreads();
+        int bytes = 0;
+        for (Future<ResponseEntity<byte[]>> search : searches) {
+            bytes += search.get().getBody().length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int nonBlocking() {
+        List<CompletableFuture<byte[]>> searches = new ArrayList<>(SEARCHES);
+        for (int i = 0; i < SEARCHES; i++) {
+            searches.add(graphqlAsyncClient.executeAsync(GraphqlQuery.GET_ROOM_AVAILABILITIES, variables));
+        }
+        recordClientThreads();
+        int bytes = 0;
+        for (CompletableFuture<byte[]> search : searches) {
+            bytes += search.join().length;
+        }
+        return bytes;
+    }
+
+    private void recordClientThreads() {
+        peakClientThreads.accumulateAndGet(threads.getThreadCount() - server.getThreadCount(), Math::max);
+    }
+}
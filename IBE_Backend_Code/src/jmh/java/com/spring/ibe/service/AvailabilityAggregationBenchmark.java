@@ -0,0 +1,82 @@
+package com.spring.ibe.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.search.RoomTypeDictionary;
+import com.spring.ibe.stub.StubResponses;
+import com.spring.ibe.util.IntIntHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Counts the free rooms per room type in 10k availabilities with the search
+ * fallback of {@link RoomRateService}, which keys {@link IntIntHashMap}s by
+ * room ID and {@link RoomTypeDictionary} ordinals, against boxed
+ * {@link HashMap}s as before. The service's log is raised to warnings so that
+ * its per-search info line does not dominate. Run with {@code -prof gc} to
+ * compare the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityAggregationBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int NIGHTS = 90;
+
+    private final RoomTypeDictionary roomTypes = new RoomTypeDictionary();
+    private final IntPredicate undelivered = new IntIntHashMap()::containsKey;
+    private RoomAvailabilityColumns page;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger(RoomRateService.class)).setLevel(Level.WARN);
+        page = RoomAvailabilityColumns.decode(StubResponses.roomAvailabilities(ROWS));
+    }
+
+    @Benchmark
+    public int[] primitive() {
+        IntIntHashMap nightsPerRoom = new IntIntHashMap();
+        IntIntHashMap roomTypePerRoom = new IntIntHashMap();
+        RoomRateService.countNights(page, roomTypes, undelivered, nightsPerRoom, roomTypePerRoom);
+        return RoomRateService.calculateRoomAvailability(nightsPerRoom, roomTypePerRoom, roomTypes.size(), NIGHTS);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> boxed() {
+        Map<Integer, Integer> nightsPerRoom = new HashMap<>();
+        Map<Integer, Integer> roomTypePerRoom = new HashMap<>();
+        int[] roomIds = page.getRoomId();
+        int[] roomTypeIds = page.getRoomTypeId();
+        for (int i = 0; i < page.getSize(); i++) {
+            nightsPerRoom.merge(roomIds[i], 1, Integer::sum);
+            roomTypePerRoom.putIfAbsent(roomIds[i], roomTypeIds[i]);
+        }
+        Map<Integer, Integer> availableRooms = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : nightsPerRoom.entrySet()) {
+            if (entry.getValue() == NIGHTS) {
+                availableRooms.merge(roomTypePerRoom.get(entry.getKey()), 1, Integer::sum);
+            }
+        }
+        return availableRooms;
+    }
+}
@@ -0,0 +1,51 @@
+package com.spring.ibe.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response bodies generated from a {@link StubDataset} for benchmarks that
+ * decode upstream responses without a server.
+ */
+public final class StubResponses {
+
+    private static final LocalDate START_DATE = LocalDate.of(2026, 1, 1);
+    private static final int DAYS = 90;
+
+    private StubResponses() {
+    }
+
+    /**
+     * Builds a {@code listRoomAvailabilities} response of one property with 6
+     * room types over 90 days.
+     *
+     * @param rows The number of availabilities.
+     * @return The response body.
+     * @throws JsonProcessingException if the body cannot be written.
+     */
+    public static byte[] roomAvailabilities(int rows) throws JsonProcessingException {
+        StubGraphqlProperties properties = new StubGraphqlProperties();
+        properties.setRoomTypesPerProperty(6);
+        properties.setRoomsPerRoomType(Math.max(1, (rows + 6 * DAYS - 1) / (6 * DAYS)));
+        properties.setDays(DAYS);
+        properties.setStartDate(START_DATE);
+        StubDataset dataset = new StubDataset(properties);
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("propertyId", properties.getFirstPropertyId());
+        variables.put("startDate", START_DATE + GraphqlQuery.START_OF_DAY);
+        variables.put("endDate", START_DATE.plusDays(DAYS) + GraphqlQuery.START_OF_DAY);
+        variables.put("after", 0);
+        variables.put("take", rows);
+        List<Map<String, Object>> availabilities = dataset.listRoomAvailabilities(variables);
+        return new ObjectMapper().writeValueAsBytes(
+                Map.of("data", Map.of(RoomAvailabilityColumns.FIELD, availabilities)));
+    }
+}
@@ -1,11 +1,23 @@
 package com.spring.ibe;
 
+import com.spring.ibe.availability.AvailabilityIndexProperties;
+import com.spring.ibe.booking.BookingProperties;
+import com.spring.ibe.hold.RoomHoldProperties;
+import com.spring.ibe.outbox.OutboxProperties;
+import com.spring.ibe.rate.RateIndexProperties;
+import com.spring.ibe.search.RoomSearchProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
+@EnableConfigurationProperties({AvailabilityIndexProperties.class, RateIndexProperties.class,
+		RoomSearchProperties.class, RoomHoldProperties.class, BookingProperties.class,
+		OutboxProperties.class})
 public class IbeApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,23 @@
+package com.spring.ibe.availability;
+
+import lombok.Getter;
+
+/**
+ * Published by {@link AvailabilityIndex} when the room availability of a
+ * property may have changed, either through a booking or cancellation made by
+ * this application or through a reload that found different availability.
+ */
+@Getter
+public class AvailabilityChangedEvent {
+
+    private final int propertyId;
+
+    /**
+     * Constructor for AvailabilityChangedEvent.
+     *
+     * @param propertyId The property ID.
+     */
+    public AvailabilityChangedEvent(int propertyId) {
+        this.propertyId = propertyId;
+    }
+}
@@ -0,0 +1,363 @@
+package com.spring.ibe.availability;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.graphql.GraphqlPager;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.outbox.Outbox;
+import com.spring.ibe.search.RoomTypeOrdinals;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Locally maintained room availability per property, so that searches and
+ * holds do not need a round trip to the GraphQL endpoint. Each property is
+ * loaded in full for the configured horizon, kept current with the bookings
+ * and cancellations made by this application, and reloaded periodically to
+ * pick up changes made elsewhere. Properties other than the configured ones
+ * are only loaded while the index holds fewer than the configured maximum, and
+ * are dropped when they turn out to have no rooms, so that queries for unknown
+ * properties do not grow the index. Availabilities whose attachment to a
+ * booking still waits in the outbox are free upstream but booked here.
+ * <p>
+ * Every query returns null when the index cannot answer it, i.e. when it is
+ * disabled, the property has not been loaded yet or the stay reaches beyond
+ * the horizon; callers then fall back to the GraphQL endpoint.
+ */
+@Component
+@Slf4j
+public class AvailabilityIndex {
+
+    private final GraphqlPager graphqlPager;
+    private final FanOutExecutor fanOutExecutor;
+    private final AvailabilityIndexProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoomTypeOrdinals roomTypeOrdinals;
+    private final Outbox outbox;
+    private final Map<Integer, PropertyAvailability> snapshots = new ConcurrentHashMap<>();
+    private final Map<Integer, List<Change>> recentChanges = new ConcurrentHashMap<>();
+    private final Set<Integer> loading = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> emptyPropertyIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for AvailabilityIndex.
+     *
+     * @param graphqlPager     The pager for paginated list operations.
+     * @param fanOutExecutor   The shared executor that runs background loads.
+     * @param properties       The index settings.
+     * @param eventPublisher   The publisher of {@link AvailabilityChangedEvent}s.
+     * @param roomTypeOrdinals The room type ordinals the rooms are grouped by.
+     * @param outbox           The outbox holding undelivered attachments.
+     */
+    public AvailabilityIndex(GraphqlPager graphqlPager, FanOutExecutor fanOutExecutor,
+            AvailabilityIndexProperties properties, ApplicationEventPublisher eventPublisher,
+            RoomTypeOrdinals roomTypeOrdinals, Outbox outbox) {
+        this.graphqlPager = graphqlPager;
+        this.fanOutExecutor = fanOutExecutor;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.roomTypeOrdinals = roomTypeOrdinals;
+        this.outbox = outbox;
+    }
+
+    /**
+     * Checks whether the index can answer queries about a stay.
+     *
+     * @param propertyId The property ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return true if the property is loaded and covers the stay.
+     */
+    public boolean covers(Integer propertyId, String startDate, String endDate) {
+        return snapshot(propertyId, epochDay(startDate), epochDay(endDate)) != null;
+    }
+
+    /**
+     * Counts the rooms of each room type that are free for a whole stay.
+     *
+     * @param propertyId The property ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return The number of free rooms per room type ordinal, or null if the
+     *         index cannot answer. Room types first seen after the property was
+     *         loaded lie beyond the end of the array.
+     */
+    public int[] countFreeRooms(Integer propertyId, String startDate, String endDate) {
+        int fromDay = epochDay(startDate);
+        int toDay = epochDay(endDate);
+        PropertyAvailability snapshot = snapshot(propertyId, fromDay, toDay);
+        return snapshot != null ? snapshot.countFreeRooms(fromDay, toDay) : null;
+    }
+
+    /**
+     * Counts the rooms of each room type that are free for a stay of a fixed
+     * length, for every check-in day of a range. Unlike the other queries this
+     * always answers: when the loaded property does not cover the days, their
+     * free availabilities are fetched from the GraphQL endpoint for this call.
+     *
+     * @param propertyId   The property ID.
+     * @param firstCheckIn The first check-in date.
+     * @param checkIns     The number of consecutive check-in days.
+     * @param nights       The length of each stay.
+     * @return The number of free rooms per room type ordinal and check-in
+     *         offset.
+     * @throws FetchFailedException if the availabilities cannot be fetched.
+     */
+    public int[][] countFreeRoomsByCheckIn(Integer propertyId, String firstCheckIn, int checkIns, int nights) {
+        int fromDay = epochDay(firstCheckIn);
+        int toDay = fromDay + checkIns - 1 + nights;
+        PropertyAvailability snapshot = snapshot(propertyId, fromDay, toDay);
+        if (snapshot == null) {
+            snapshot = fetchFree(propertyId, fromDay, toDay - fromDay);
+        }
+        return snapshot.countFreeRoomsByCheckIn(fromDay, checkIns, nights);
+    }
+
+    /**
+     * Lists the rooms of a room type that are free for a whole stay.
+     *
+     * @param propertyId The property ID.
+     * @param roomTypeId The room type ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return The free room IDs, or null if the index cannot answer.
+     */
+    public List<Integer> findFreeRoomIds(Long propertyId, Long roomTypeId, String startDate, String endDate) {
+        int fromDay = epochDay(startDate);
+        int toDay = epochDay(endDate);
+        PropertyAvailability snapshot = snapshot(propertyId.intValue(), fromDay, toDay);
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.findFreeRoomIds(roomTypeOrdinals.of(propertyId.intValue()).find(roomTypeId.intValue()),
+                fromDay, toDay);
+    }
+
+    /**
+     * Returns the availabilities booked by this application whose attachment
+     * upstream is still in the outbox. Callers reading free availabilities from
+     * the GraphQL endpoint must count these as booked.
+     *
+     * @return Tells whether an availability ID is such a booking.
+     */
+    public IntPredicate findUndeliveredBookings() {
+        return outbox.undeliveredAttachments();
+    }
+
+    /**
+     * Records availabilities booked by this application and publishes an
+     * {@link AvailabilityChangedEvent}.
+     *
+     * @param propertyId      The property ID.
+     * @param availabilityIds The booked availability IDs.
+     */
+    public void markBooked(Long propertyId, List<Long> availabilityIds) {
+        apply(propertyId, new Change(System.nanoTime(), List.copyOf(availabilityIds), false));
+    }
+
+    /**
+     * Records availabilities released by this application and publishes an
+     * {@link AvailabilityChangedEvent}.
+     *
+     * @param propertyId      The property ID.
+     * @param availabilityIds The released availability IDs.
+     */
+    public void markFree(Long propertyId, List<Long> availabilityIds) {
+        apply(propertyId, new Change(System.nanoTime(), List.copyOf(availabilityIds), true));
+    }
+
+    /**
+     * Reloads every indexed property, and the configured ones at startup, to
+     * reconcile with changes made outside this application. Properties found
+     * without rooms may be loaded again once queried.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.availability_index.refresh_interval:PT5M}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        emptyPropertyIds.clear();
+        Set<Integer> propertyIds = new HashSet<>(properties.getPropertyIds());
+        propertyIds.addAll(snapshots.keySet());
+        for (Integer propertyId : propertyIds) {
+            if (loading.add(propertyId)) {
+                try {
+                    load(propertyId);
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh availability index for property {}: {}", propertyId,
+                            e.getMessage());
+                } finally {
+                    loading.remove(propertyId);
+                }
+            }
+        }
+    }
+
+    private PropertyAvailability snapshot(int propertyId, int fromDay, int toDay) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        PropertyAvailability snapshot = snapshots.get(propertyId);
+        if (snapshot == null) {
+            if (mayLoad(propertyId)) {
+                loadInBackground(propertyId);
+            }
+            return null;
+        }
+        return snapshot.covers(fromDay, toDay) ? snapshot : null;
+    }
+
+    /**
+     * Checks whether a property that is not indexed may be loaded: configured
+     * properties always, others if they were not found empty since the last
+     * refresh and the index has room for them.
+     *
+     * @param propertyId The property ID.
+     * @return true if the property may be loaded.
+     */
+    private boolean mayLoad(int propertyId) {
+        if (properties.getPropertyIds().contains(propertyId)) {
+            return true;
+        }
+        return !emptyPropertyIds.contains(propertyId)
+                && snapshots.size() + loading.size() < properties.getMaxProperties();
+    }
+
+    private void loadInBackground(int propertyId) {
+        if (!loading.add(propertyId)) {
+            return;
+        }
+        fanOutExecutor.runAsync(() -> {
+            try {
+                load(propertyId);
+            } catch (RuntimeException e) {
+                log.error("Failed to load availability index for property {}: {}", propertyId, e.getMessage());
+            }
+        }).whenComplete((done, e) -> loading.remove(propertyId));
+    }
+
+    /**
+     * Loads a property in full and installs it. Changes recorded while the load
+     * was running are applied on top, since the rows fetched may predate them,
+     * and so are the attachments still in the outbox. An
+     * {@link AvailabilityChangedEvent} is published if the loaded availability
+     * differs from the previous snapshot. A property that is not configured
+     * and has no rooms is dropped instead, so that it is not refreshed.
+     *
+     * @param propertyId The property ID.
+     */
+    private void load(int propertyId) {
+        long startedNanos = System.nanoTime();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int days = properties.getHorizonDays();
+        IntPredicate undelivered = outbox.undeliveredAttachments();
+        Map<String, Object> variables = graphqlPager.firstKeysetPage(Map.of(
+                "startDate", today + GraphqlQuery.START_OF_DAY,
+                "endDate", today.plusDays(days) + GraphqlQuery.START_OF_DAY,
+                "propertyId", propertyId));
+        PropertyAvailability.Builder builder = new PropertyAvailability.Builder((int) today.toEpochDay(), days,
+                roomTypeOrdinals.of(propertyId));
+        graphqlPager.forEachPage(GraphqlQuery.GET_PROPERTY_AVAILABILITIES, variables, RoomAvailabilityColumns::read,
+                null, builder::add);
+        PropertyAvailability snapshot = builder.build().withBooked(undelivered);
+        if (snapshot.isEmpty() && !properties.getPropertyIds().contains(propertyId)) {
+            snapshots.remove(propertyId);
+            recentChanges.remove(propertyId);
+            if (emptyPropertyIds.size() < properties.getMaxProperties()) {
+                emptyPropertyIds.add(propertyId);
+            }
+            log.info("Dropped property {} from the availability index as it has no rooms", propertyId);
+            return;
+        }
+
+        List<Change> changes = recentChanges.computeIfAbsent(propertyId, id -> new ArrayList<>());
+        PropertyAvailability previous;
+        synchronized (changes) {
+            changes.removeIf(change -> change.nanos - startedNanos < 0);
+            for (Change change : changes) {
+                snapshot = snapshot.with(change.availabilityIds, change.free);
+            }
+            previous = snapshots.put(propertyId, snapshot);
+        }
+        if (previous == null || !previous.hasSameAvailability(snapshot)) {
+            eventPublisher.publishEvent(new AvailabilityChangedEvent(propertyId));
+        }
+        log.info("Loaded availability index for property {} in {} ms", propertyId,
+                (System.nanoTime() - startedNanos) / 1_000_000);
+    }
+
+    /**
+     * Fetches the free availabilities of a property over a range of days into a
+     * snapshot that is not installed. Attachments still in the outbox are
+     * marked booked.
+     *
+     * @param propertyId The property ID.
+     * @param firstDay   The epoch day of the first day.
+     * @param days       The number of days.
+     * @return The snapshot.
+     */
+    private PropertyAvailability fetchFree(int propertyId, int firstDay, int days) {
+        IntPredicate undelivered = outbox.undeliveredAttachments();
+        Map<String, Object> variables = graphqlPager.firstKeysetPage(Map.of(
+                "startDate", LocalDate.ofEpochDay(firstDay) + GraphqlQuery.START_OF_DAY,
+                "endDate", LocalDate.ofEpochDay(firstDay + days) + GraphqlQuery.START_OF_DAY,
+                "propertyId", propertyId));
+        PropertyAvailability.Builder builder = new PropertyAvailability.Builder(firstDay, days,
+                roomTypeOrdinals.of(propertyId));
+        graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_AVAILABILITIES, variables, RoomAvailabilityColumns::read,
+                null, builder::add);
+        return builder.build().withBooked(undelivered);
+    }
+
+    private void apply(Long propertyId, Change change) {
+        if (propertyId == null) {
+            return;
+        }
+        apply(propertyId.intValue(), change);
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(propertyId.intValue()));
+    }
+
+    private void apply(int propertyId, Change change) {
+        if (!snapshots.containsKey(propertyId) && !loading.contains(propertyId)) {
+            return;
+        }
+        List<Change> changes = recentChanges.computeIfAbsent(propertyId, id -> new ArrayList<>());
+        synchronized (changes) {
+            changes.add(change);
+            snapshots.computeIfPresent(propertyId,
+                    (id, snapshot) -> snapshot.with(change.availabilityIds, change.free));
+        }
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    /**
+     * A booking or cancellation made by this application.
+     */
+    private static final class Change {
+        private final long nanos;
+        private final List<Long> availabilityIds;
+        private final boolean free;
+
+        private Change(long nanos, List<Long> availabilityIds, boolean free) {
+            this.nanos = nanos;
+            this.availabilityIds = availabilityIds;
+            this.free = free;
+        }
+    }
+}
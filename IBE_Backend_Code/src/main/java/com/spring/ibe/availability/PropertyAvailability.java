@@ -0,0 +1,302 @@
+package com.spring.ibe.availability;
+
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.search.RoomTypeDictionary;
+import com.spring.ibe.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable availability snapshot of one property. Every room has a bitset over
+ * the covered days whose bit {@code d} is set when the room is free on
+ * {@code firstDay + d}, so "free for the whole stay" is a word-wise mask test
+ * instead of counting rows. Room types are held as {@link RoomTypeDictionary}
+ * ordinals. Bookings and cancellations produce a new snapshot that shares the
+ * unchanged rooms with this one.
+ */
+final class PropertyAvailability {
+
+    private final int firstDay;
+    private final int days;
+    private final int[] roomIds;
+    private final int[] roomTypes;
+    private final long[][] free;
+    private final IntIntHashMap roomIndexes;
+    private final int[][] roomsByType;
+    private final IntIntHashMap slots;
+
+    private PropertyAvailability(int firstDay, int days, int[] roomIds, int[] roomTypes, long[][] free,
+            IntIntHashMap roomIndexes, int[][] roomsByType, IntIntHashMap slots) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.roomIds = roomIds;
+        this.roomTypes = roomTypes;
+        this.free = free;
+        this.roomIndexes = roomIndexes;
+        this.roomsByType = roomsByType;
+        this.slots = slots;
+    }
+
+    /**
+     * Checks whether the snapshot covers a stay.
+     *
+     * @param fromDay The epoch day of the first night.
+     * @param toDay   The epoch day after the last night.
+     * @return true if every night of the stay is covered.
+     */
+    boolean covers(int fromDay, int toDay) {
+        return fromDay >= firstDay && toDay <= firstDay + days && fromDay < toDay;
+    }
+
+    /**
+     * Checks whether the property has no rooms in the snapshot.
+     *
+     * @return true if no availability was loaded.
+     */
+    boolean isEmpty() {
+        return roomIds.length == 0;
+    }
+
+    /**
+     * Counts the rooms of each room type that are free for a whole stay.
+     *
+     * @param fromDay The epoch day of the first night.
+     * @param toDay   The epoch day after the last night.
+     * @return The number of free rooms per room type ordinal.
+     */
+    int[] countFreeRooms(int fromDay, int toDay) {
+        int[] counts = new int[roomsByType.length];
+        for (int room = 0; room < roomIds.length; room++) {
+            if (isFree(room, fromDay, toDay)) {
+                counts[roomTypes[room]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the rooms of each room type that are free for a stay of a fixed
+     * length, for every check-in day of a range. A single pass over each room
+     * tracks its run of consecutive free days, so the cost does not depend on
+     * the length of the stay.
+     *
+     * @param firstCheckIn The epoch day of the first check-in.
+     * @param checkIns     The number of consecutive check-in days.
+     * @param nights       The length of each stay.
+     * @return The number of free rooms per room type ordinal and check-in
+     *         offset.
+     */
+    int[][] countFreeRoomsByCheckIn(int firstCheckIn, int checkIns, int nights) {
+        int[][] counts = new int[roomsByType.length][checkIns];
+        int from = firstCheckIn - firstDay;
+        int to = from + checkIns - 1 + nights;
+        for (int room = 0; room < roomIds.length; room++) {
+            long[] bits = free[room];
+            int[] typeCounts = counts[roomTypes[room]];
+            int run = 0;
+            for (int day = from; day < to; day++) {
+                run = (bits[day >>> 6] & (1L << day)) != 0 ? run + 1 : 0;
+                if (run >= nights) {
+                    typeCounts[day - nights + 1 - from]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Lists the rooms of a room type that are free for a whole stay.
+     *
+     * @param roomType The room type ordinal, or -1 for an unknown room type.
+     * @param fromDay  The epoch day of the first night.
+     * @param toDay    The epoch day after the last night.
+     * @return The free room IDs.
+     */
+    List<Integer> findFreeRoomIds(int roomType, int fromDay, int toDay) {
+        List<Integer> freeRoomIds = new ArrayList<>();
+        if (roomType < 0 || roomType >= roomsByType.length) {
+            return freeRoomIds;
+        }
+        for (int room : roomsByType[roomType]) {
+            if (isFree(room, fromDay, toDay)) {
+                freeRoomIds.add(roomIds[room]);
+            }
+        }
+        return freeRoomIds;
+    }
+
+    /**
+     * Returns a snapshot in which the given availabilities are free or booked.
+     * Availabilities outside the snapshot are ignored.
+     *
+     * @param ids    The availability IDs.
+     * @param isFree Whether the availabilities become free.
+     * @return The updated snapshot.
+     */
+    PropertyAvailability with(Collection<Long> ids, boolean isFree) {
+        long[][] updated = free.clone();
+        boolean[] copied = new boolean[updated.length];
+        for (Long id : ids) {
+            int slot = slots.get(id.intValue(), -1);
+            if (slot < 0) {
+                continue;
+            }
+            int room = slot / days;
+            int day = slot % days;
+            if (!copied[room]) {
+                updated[room] = updated[room].clone();
+                copied[room] = true;
+            }
+            if (isFree) {
+                updated[room][day >>> 6] |= 1L << day;
+            } else {
+                updated[room][day >>> 6] &= ~(1L << day);
+            }
+        }
+        return new PropertyAvailability(firstDay, days, roomIds, roomTypes, updated, roomIndexes, roomsByType, slots);
+    }
+
+    /**
+     * Returns a snapshot in which the availabilities matching a predicate are
+     * booked.
+     *
+     * @param booked Tells which availability IDs are booked.
+     * @return The updated snapshot, or this one if no availability matches.
+     */
+    PropertyAvailability withBooked(IntPredicate booked) {
+        long[][] updated = free.clone();
+        boolean[] copied = new boolean[updated.length];
+        slots.forEach((id, slot) -> {
+            if (!booked.test(id)) {
+                return;
+            }
+            int room = slot / days;
+            int day = slot % days;
+            if (!copied[room]) {
+                updated[room] = updated[room].clone();
+                copied[room] = true;
+            }
+            updated[room][day >>> 6] &= ~(1L << day);
+        });
+        for (boolean roomCopied : copied) {
+            if (roomCopied) {
+                return new PropertyAvailability(firstDay, days, roomIds, roomTypes, updated, roomIndexes,
+                        roomsByType, slots);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether another snapshot covers the same days with the same free
+     * nights.
+     *
+     * @param other The other snapshot.
+     * @return true if both answer every query alike.
+     */
+    boolean hasSameAvailability(PropertyAvailability other) {
+        return firstDay == other.firstDay && days == other.days && Arrays.equals(roomIds, other.roomIds)
+                && Arrays.equals(roomTypes, other.roomTypes) && Arrays.deepEquals(free, other.free);
+    }
+
+    private boolean isFree(int room, int fromDay, int toDay) {
+        long[] bits = free[room];
+        int from = fromDay - firstDay;
+        int last = toDay - firstDay - 1;
+        int firstWord = from >>> 6;
+        int lastWord = last >>> 6;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= -1L << from;
+            }
+            if (word == lastWord) {
+                mask &= -1L >>> (63 - (last & 63));
+            }
+            if ((bits[word] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the availability rows of a property into a snapshot. Rows outside
+     * the covered days are skipped.
+     */
+    static final class Builder {
+        private final int firstDay;
+        private final int days;
+        private final RoomTypeDictionary roomTypeDictionary;
+        private final IntIntHashMap roomIndexes = new IntIntHashMap();
+        private final List<Integer> roomIds = new ArrayList<>();
+        private final List<Integer> roomTypes = new ArrayList<>();
+        private final List<long[]> free = new ArrayList<>();
+        private final IntIntHashMap slots = new IntIntHashMap();
+
+        Builder(int firstDay, int days, RoomTypeDictionary roomTypeDictionary) {
+            this.firstDay = firstDay;
+            this.days = days;
+            this.roomTypeDictionary = roomTypeDictionary;
+        }
+
+        /**
+         * Adds a page of availabilities selected with their room type. Rows
+         * without a booking are free, so pages of free availabilities may be
+         * added as well.
+         *
+         * @param page The page.
+         */
+        void add(RoomAvailabilityColumns page) {
+            int[] ids = page.getAvailabilityId();
+            int[] pageRoomIds = page.getRoomId();
+            int[] epochDays = page.getEpochDay();
+            int[] pageRoomTypeIds = page.getRoomTypeId();
+            int[] bookingIds = page.getBookingId();
+            for (int i = 0; i < page.getSize(); i++) {
+                int day = epochDays[i] - firstDay;
+                if (day < 0 || day >= days) {
+                    continue;
+                }
+                int room = roomIndexes.get(pageRoomIds[i], -1);
+                if (room < 0) {
+                    room = roomIds.size();
+                    roomIndexes.put(pageRoomIds[i], room);
+                    roomIds.add(pageRoomIds[i]);
+                    roomTypes.add(roomTypeDictionary.ordinalOf(pageRoomTypeIds[i]));
+                    free.add(new long[(days + 63) >>> 6]);
+                }
+                slots.put(ids[i], room * days + day);
+                if (bookingIds[i] == 0) {
+                    free.get(room)[day >>> 6] |= 1L << day;
+                }
+            }
+        }
+
+        PropertyAvailability build() {
+            int rooms = roomIds.size();
+            int[] roomIdArray = new int[rooms];
+            int[] roomTypeArray = new int[rooms];
+            int[] roomsPerType = new int[roomTypeDictionary.size()];
+            for (int room = 0; room < rooms; room++) {
+                roomIdArray[room] = roomIds.get(room);
+                roomTypeArray[room] = roomTypes.get(room);
+                roomsPerType[roomTypeArray[room]]++;
+            }
+            int[][] roomsByType = new int[roomsPerType.length][];
+            for (int type = 0; type < roomsByType.length; type++) {
+                roomsByType[type] = new int[roomsPerType[type]];
+                roomsPerType[type] = 0;
+            }
+            for (int room = 0; room < rooms; room++) {
+                roomsByType[roomTypeArray[room]][roomsPerType[roomTypeArray[room]]++] = room;
+            }
+            return new PropertyAvailability(firstDay, days, roomIdArray, roomTypeArray, free.toArray(new long[0][]),
+                    roomIndexes, roomsByType, slots);
+        }
+    }
+}
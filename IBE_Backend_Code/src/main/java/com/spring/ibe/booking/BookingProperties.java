@@ -0,0 +1,31 @@
+package com.spring.ibe.booking;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of background booking completion.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.booking")
+public class BookingProperties {
+
+    /**
+     * Number of threads completing submitted bookings.
+     */
+    private int workerThreads = 4;
+
+    /**
+     * Number of submitted bookings that may wait for a thread before new
+     * submissions are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Time a booking status stream stays open before the client has to poll or
+     * reconnect.
+     */
+    private Duration statusStreamTimeout = Duration.ofMinutes(2);
+}
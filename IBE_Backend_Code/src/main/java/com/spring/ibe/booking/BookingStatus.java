@@ -0,0 +1,41 @@
+package com.spring.ibe.booking;
+
+/**
+ * Progress of a booking submitted for background completion.
+ */
+public enum BookingStatus {
+
+    /**
+     * The rooms are held and the booking waits for a worker.
+     */
+    HELD,
+
+    /**
+     * The guest is being looked up or created.
+     */
+    RESOLVING_GUEST,
+
+    /**
+     * The booking is being created upstream.
+     */
+    CREATING_BOOKING,
+
+    /**
+     * The booking is complete.
+     */
+    CONFIRMED,
+
+    /**
+     * The booking could not be completed and its rooms were released.
+     */
+    FAILED;
+
+    /**
+     * Checks whether the booking will make no further progress.
+     *
+     * @return true if the booking is confirmed or failed.
+     */
+    public boolean isFinished() {
+        return this == CONFIRMED || this == FAILED;
+    }
+}
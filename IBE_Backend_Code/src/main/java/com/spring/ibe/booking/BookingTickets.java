@@ -0,0 +1,156 @@
+package com.spring.ibe.booking;
+
+import com.spring.ibe.dto.response.BookingTicketDTO;
+import com.spring.ibe.exception.custom.DataNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Progress of bookings submitted for background completion, addressed by
+ * ticket. The latest status of a ticket lives in the {@value #CACHE} cache
+ * until it expires, and is pushed to the clients streaming it as it changes.
+ */
+@Component
+@Slf4j
+public class BookingTickets {
+
+    /**
+     * The cache holding the ticket statuses.
+     */
+    public static final String CACHE = "bookingTickets";
+
+    /**
+     * The event carrying a ticket status.
+     */
+    public static final String STATUS = "status";
+
+    private final Cache tickets;
+    private final BookingProperties properties;
+    private final Map<String, List<SseEmitter>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for BookingTickets.
+     *
+     * @param cacheManager The cache manager.
+     * @param properties   The booking settings.
+     */
+    public BookingTickets(CacheManager cacheManager, BookingProperties properties) {
+        this.tickets = cacheManager.getCache(CACHE);
+        this.properties = properties;
+    }
+
+    /**
+     * Opens a ticket for a booking whose rooms are held.
+     *
+     * @return The status of the new ticket.
+     */
+    public BookingTicketDTO open() {
+        BookingTicketDTO ticket = new BookingTicketDTO(UUID.randomUUID().toString(), BookingStatus.HELD, null, null);
+        tickets.put(ticket.getTicketId(), ticket);
+        return ticket;
+    }
+
+    /**
+     * Records the progress of a booking.
+     *
+     * @param ticketId The ticket ID.
+     * @param status   The step the booking reached.
+     */
+    public void update(String ticketId, BookingStatus status) {
+        publish(new BookingTicketDTO(ticketId, status, null, null));
+    }
+
+    /**
+     * Records that a booking is complete.
+     *
+     * @param ticketId  The ticket ID.
+     * @param bookingId The booking ID.
+     */
+    public void confirm(String ticketId, Long bookingId) {
+        publish(new BookingTicketDTO(ticketId, BookingStatus.CONFIRMED, bookingId, null));
+    }
+
+    /**
+     * Records that a booking failed.
+     *
+     * @param ticketId The ticket ID.
+     * @param message  The reason.
+     */
+    public void fail(String ticketId, String message) {
+        publish(new BookingTicketDTO(ticketId, BookingStatus.FAILED, null, message));
+    }
+
+    /**
+     * Returns the latest status of a ticket.
+     *
+     * @param ticketId The ticket ID.
+     * @return The status.
+     * @throws DataNotFoundException if the ticket does not exist or expired.
+     */
+    public BookingTicketDTO find(String ticketId) {
+        BookingTicketDTO ticket = tickets.get(ticketId, BookingTicketDTO.class);
+        if (ticket == null) {
+            throw new DataNotFoundException("Booking ticket does not exist or has expired");
+        }
+        return ticket;
+    }
+
+    /**
+     * Streams the status of a ticket as server-sent events: the latest status at
+     * once, then every change until the booking is confirmed or failed.
+     *
+     * @param ticketId The ticket ID.
+     * @return The emitter of the stream.
+     * @throws DataNotFoundException if the ticket does not exist or expired.
+     */
+    public SseEmitter stream(String ticketId) {
+        find(ticketId);
+        SseEmitter emitter = new SseEmitter(properties.getStatusStreamTimeout().toMillis());
+        listeners.computeIfAbsent(ticketId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> listeners.computeIfPresent(ticketId, (id, ticketListeners) -> {
+            ticketListeners.remove(emitter);
+            return ticketListeners.isEmpty() ? null : ticketListeners;
+        }));
+        emitter.onTimeout(emitter::complete);
+        BookingTicketDTO ticket = find(ticketId);
+        send(emitter, ticket);
+        if (ticket.getStatus().isFinished()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void publish(BookingTicketDTO ticket) {
+        tickets.put(ticket.getTicketId(), ticket);
+        List<SseEmitter> ticketListeners = ticket.getStatus().isFinished()
+                ? listeners.remove(ticket.getTicketId()) : listeners.get(ticket.getTicketId());
+        if (ticketListeners == null) {
+            return;
+        }
+        for (SseEmitter emitter : ticketListeners) {
+            send(emitter, ticket);
+            if (ticket.getStatus().isFinished()) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private static void send(SseEmitter emitter, BookingTicketDTO ticket) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS).data(ticket, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Booking status client went away: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.spring.ibe.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool completing submitted bookings in the background. It is separate
+ * from the upstream fan-out executor, whose threads the bookings themselves
+ * wait on. Its pool size, active tasks and queue depth are published as
+ * {@code executor.*} meters tagged {@code name=booking.worker}.
+ */
+@Component
+@Slf4j
+public class BookingWorker {
+
+    private static final String NAME = "booking.worker";
+
+    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for BookingWorker.
+     *
+     * @param properties The worker settings.
+     * @param registry   The meter registry.
+     */
+    public BookingWorker(BookingProperties properties, MeterRegistry registry) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("booking-worker-");
+        threadFactory.setDaemon(true);
+        this.threadPool = new ThreadPoolExecutor(properties.getWorkerThreads(), properties.getWorkerThreads(), 60,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()), threadFactory);
+        this.threadPool.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(registry, threadPool, NAME);
+    }
+
+    /**
+     * Queues a booking for completion.
+     *
+     * @param task The task completing the booking.
+     * @return false if the queue is full and the task was not accepted.
+     */
+    public boolean trySubmit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Booking worker is saturated with {} queued bookings", threadPool.getQueue().size());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        threadPool.shutdown();
+    }
+}
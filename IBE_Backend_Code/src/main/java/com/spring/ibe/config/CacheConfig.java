@@ -0,0 +1,70 @@
+package com.spring.ibe.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the Caffeine caches behind {@code @Cacheable}. Each
+ * cache gets its own expiry and weight limit and records statistics, which the
+ * actuator publishes as {@code cache.*} meters.
+ */
+@Configuration
+@EnableConfigurationProperties(CachingProperties.class)
+public class CacheConfig {
+
+    /**
+     * Creates the cache manager with one cache per configured name. Caches that
+     * are not configured are created on first use with the default limits.
+     *
+     * @param properties   The cache limits.
+     * @param objectMapper The application's object mapper, used to weigh
+     *                     entries the way they would be serialized.
+     * @return The cache manager.
+     */
+    @Bean
+    public CacheManager cacheManager(CachingProperties properties, ObjectMapper objectMapper) {
+        Weigher<Object, Object> weigher = (key, value) -> weigh(objectMapper, value);
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(caffeine(properties.getDefaultTtl(), properties.getDefaultMaximumWeight(), weigher));
+        properties.getCaches().forEach((name, spec) -> cacheManager.registerCustomCache(name, caffeine(
+                spec.getTtl() != null ? spec.getTtl() : properties.getDefaultTtl(),
+                spec.getMaximumWeight() != null ? spec.getMaximumWeight() : properties.getDefaultMaximumWeight(),
+                weigher).build()));
+        return cacheManager;
+    }
+
+    private static Caffeine<Object, Object> caffeine(Duration ttl, long maximumWeight,
+            Weigher<Object, Object> weigher) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumWeight)
+                .weigher(weigher)
+                .recordStats();
+    }
+
+    /**
+     * Approximates the size of an entry by the length of its JSON form. Entries
+     * are only weighed when written, i.e. after an upstream call, so the cost is
+     * small in comparison. A value that cannot be serialized weighs the minimum.
+     *
+     * @param objectMapper The object mapper.
+     * @param value        The cached value.
+     * @return The approximate weight.
+     */
+    private static int weigh(ObjectMapper objectMapper, Object value) {
+        try {
+            return Math.max(1, objectMapper.writeValueAsBytes(value).length);
+        } catch (JsonProcessingException e) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.spring.ibe.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Expiry and size limits of the application caches.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CachingProperties {
+
+    /**
+     * Default time an entry stays cached after it is written.
+     */
+    private Duration defaultTtl = Duration.ofMinutes(10);
+
+    /**
+     * Default maximum total weight of a cache, in approximate bytes of the cached
+     * values' JSON form.
+     */
+    private long defaultMaximumWeight = 10_000_000;
+
+    /**
+     * Per-cache overrides keyed by cache name. Every cache used by the
+     * application should be listed here so that its metrics are registered at
+     * startup.
+     */
+    private Map<String, Spec> caches = new HashMap<>();
+
+    /**
+     * Limits of a single cache. Unset values fall back to the defaults above.
+     */
+    @Data
+    public static class Spec {
+        private Duration ttl;
+        private Long maximumWeight;
+    }
+}
@@ -0,0 +1,63 @@
+package com.spring.ibe.config;
+
+import com.spring.ibe.graphql.GraphqlProperties;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Configuration class for the pooled HTTP client shared by all outbound calls.
+ */
+@Configuration
+@EnableConfigurationProperties(GraphqlProperties.class)
+public class HttpClientConfig {
+
+    /**
+     * Creates a bounded, pooled HTTP client with keep-alive so that upstream calls
+     * reuse TCP/TLS connections instead of opening one per request.
+     *
+     * @param properties The pool and timeout settings.
+     * @return The pooled HTTP client.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(GraphqlProperties properties) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                .setTimeToLive(TimeValue.of(properties.getConnectionTimeToLive()))
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+        TimeValue keepAlive = TimeValue.of(properties.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
+                .build();
+    }
+
+    /**
+     * Creates a RestTemplate backed by the pooled HTTP client, for non-GraphQL
+     * upstream calls.
+     *
+     * @param pooledHttpClient The pooled HTTP client.
+     * @return The RestTemplate instance.
+     */
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient pooledHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(pooledHttpClient));
+    }
+}
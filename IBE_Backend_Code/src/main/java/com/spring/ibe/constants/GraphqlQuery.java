@@ -1,110 +1,200 @@
 package com.spring.ibe.constants;
 
+import com.spring.ibe.graphql.GraphqlOperation;
+
 /**
- * This class contains constants for GraphQL queries used in the application.
+ * This class contains the GraphQL operations used in the application. Every
+ * operation is a fixed document; request values are passed as variables.
  */
 public class GraphqlQuery {
 
         private GraphqlQuery() {
         }
 
+        /**
+         * Suffix turning a {@code yyyy-MM-dd} date into the AWSDateTime expected by
+         * the date variables below.
+         */
+        public static final String START_OF_DAY = "T00:00:00.000Z";
+
         /**
          * GraphQL query to retrieve properties.
          */
-        public static final String GET_PROPERTIES = "{ listProperties { property_name } }";
+        public static final GraphqlOperation GET_PROPERTIES = new GraphqlOperation("GET_PROPERTIES",
+                        "query GetProperties { listProperties { property_name } }");
 
         /**
          * GraphQL query to retrieve nightly rates for a specific property.
+         * Variables: propertyId.
          */
-        public static final String GET_NIGHTLY_RATES = "{ getProperty(where: {property_id: 11}) { room_type { room_rates "
-                        +
-                        "{ room_rate { date basic_nightly_rate } } } } }";
+        public static final GraphqlOperation GET_NIGHTLY_RATES = new GraphqlOperation("GET_NIGHTLY_RATES",
+                        "query GetNightlyRates($propertyId: Int!) { getProperty(where: {property_id: $propertyId}) "
+                                        + "{ room_type { room_rates { room_rate { date basic_nightly_rate } } } } }");
 
         /**
          * GraphQL query to retrieve rooms based on various criteria.
+         * Variables: propertyId, roomTypeName, singleBed, area, doubleBed,
+         * minCapacity.
          */
-        public static final String GET_ROOMS = "{ listRoomTypes( where: {property_id: {equals: %1$d}, " +
-                        "OR: [{room_type_name: {contains: \\\"%2$s\\\"}}], single_bed: {gte: %3$d}, area_in_square_feet: "
-                        +
-                        "{gte: %4$d}, double_bed: {gte: %5$d}, max_capacity: {gte: %6$d}} ) { area_in_square_feet double_bed "
-                        +
-                        "max_capacity single_bed room_type_id room_type_name } }";
+        public static final GraphqlOperation GET_ROOMS = new GraphqlOperation("GET_ROOMS",
+                        "query GetRooms($propertyId: Int!, $roomTypeName: String!, $singleBed: Int!, $area: Int!, "
+                                        + "$doubleBed: Int!, $minCapacity: Int!) { listRoomTypes(where: "
+                                        + "{property_id: {equals: $propertyId}, OR: [{room_type_name: {contains: $roomTypeName}}], "
+                                        + "single_bed: {gte: $singleBed}, area_in_square_feet: {gte: $area}, "
+                                        + "double_bed: {gte: $doubleBed}, max_capacity: {gte: $minCapacity}}) "
+                                        + "{ area_in_square_feet double_bed max_capacity single_bed room_type_id room_type_name } }");
 
         /**
          * GraphQL query to retrieve promotions.
          */
-        public static final String GET_PROMOTIONS = "{ listPromotions { is_deactivated minimum_days_of_stay " +
-                        "price_factor promotion_description promotion_id promotion_title } }";
+        public static final GraphqlOperation GET_PROMOTIONS = new GraphqlOperation("GET_PROMOTIONS",
+                        "query GetPromotions { listPromotions { is_deactivated minimum_days_of_stay price_factor "
+                                        + "promotion_description promotion_id promotion_title } }");
+
+        /**
+         * GraphQL query to retrieve one page of room availabilities within a date
+         * range for a property, ordered by availability ID. Variables: startDate,
+         * endDate, propertyId, after (the last availability ID of the previous page,
+         * 0 for the first page), take.
+         */
+        public static final GraphqlOperation GET_ROOM_AVAILABILITIES = new GraphqlOperation(
+                        "GET_ROOM_AVAILABILITIES",
+                        "query GetRoomAvailabilities($startDate: AWSDateTime!, $endDate: AWSDateTime!, "
+                                        + "$propertyId: Int!, $after: Int!, $take: Int!) { listRoomAvailabilities("
+                                        + "orderBy: {availability_id: ASC}, where: {property_id: {equals: $propertyId}, "
+                                        + "date: {gte: $startDate, lt: $endDate}, booking_id: {equals: 0}, "
+                                        + "availability_id: {gt: $after}}, take: $take) "
+                                        + "{ availability_id date room { room_id room_type_id } } }");
 
         /**
-         * GraphQL query to retrieve room availabilities within a date range for a
-         * property.
+         * GraphQL query to retrieve one page of all room availabilities of a property
+         * within a date range, booked or not, ordered by availability ID. Used to
+         * build the local availability index. Variables: startDate, endDate,
+         * propertyId, after, take.
          */
-        public static final String GET_ROOM_AVAILABILITIES = "{ listRoomAvailabilities( orderBy: {date: ASC} where: " +
-                        "{property_id: {equals: %3$d},date: {gte: \\\"%1$sT00:00:00.000Z\\\", lt: \\\"%2$sT00:00:00.000Z\\\"},"
-                        +
-                        "  booking_id: {equals: 0}} take: 3000 ) { date room { room_id room_type { room_type_name } } } }";
+        public static final GraphqlOperation GET_PROPERTY_AVAILABILITIES = new GraphqlOperation(
+                        "GET_PROPERTY_AVAILABILITIES",
+                        "query GetPropertyAvailabilities($startDate: AWSDateTime!, $endDate: AWSDateTime!, "
+                                        + "$propertyId: Int!, $after: Int!, $take: Int!) { listRoomAvailabilities("
+                                        + "orderBy: {availability_id: ASC}, where: {property_id: {equals: $propertyId}, "
+                                        + "date: {gte: $startDate, lt: $endDate}, availability_id: {gt: $after}}, "
+                                        + "take: $take) { availability_id date booking_id "
+                                        + "room { room_id room_type_id } } }");
 
         /**
-         * GraphQL query to retrieve room rates within a date range for a property.
+         * GraphQL query to retrieve one page of room rates within a date range for a
+         * property. The mappings have no single-column key, so pages are selected by
+         * offset over a stable order. Variables: startDate, endDate, propertyId,
+         * skip, take.
          */
-        public static final String GET_ROOM_RATES = "{ listRoomRateRoomTypeMappings( where: {room_type: {property_id:" +
-                        " {equals: %3$d}}, room_rate: {date: {gte: \\\"%1$sT00:00:00.000Z\\\", lt: \\\"%2$sT00:00:00.000Z\\\"}}}"
-                        +
-                        " take: 3000 ) { room_rate { basic_nightly_rate date } room_type { room_type_name } } }";
+        public static final GraphqlOperation GET_ROOM_RATES = new GraphqlOperation("GET_ROOM_RATES",
+                        "query GetRoomRates($startDate: AWSDateTime!, $endDate: AWSDateTime!, $propertyId: Int!, "
+                                        + "$skip: Int!, $take: Int!) { listRoomRateRoomTypeMappings(where: "
+                                        + "{room_type: {property_id: {equals: $propertyId}}, "
+                                        + "room_rate: {date: {gte: $startDate, lt: $endDate}}}, "
+                                        + "orderBy: [{room_rate_id: ASC}, {room_type_id: ASC}], skip: $skip, take: $take) "
+                                        + "{ room_rate { basic_nightly_rate date } room_type_id } }");
 
         /**
          * GraphQL query to retrieve room rates within a date range and specific room
-         * type for a property.
+         * type for a property. Variables: startDate, endDate, roomTypeId, propertyId.
          */
-        public static final String GET_RATES_ROOM_TYPE = "{ listRoomRateRoomTypeMappings( where: {room_rate:" +
-                        " {date: {gte: \\\"%1$sT00:00:00.000Z\\\", lt: \\\"%2$sT00:00:00.000Z\\\"}}, room_type_id: " +
-                        "{equals: %3$d}, room_type: {property_id: {equals: %4$d}}} orderBy: {room_rate: {date: ASC}} )"
-                        +
-                        " { room_rate { basic_nightly_rate date } } }";
+        public static final GraphqlOperation GET_RATES_ROOM_TYPE = new GraphqlOperation("GET_RATES_ROOM_TYPE",
+                        "query GetRatesRoomType($startDate: AWSDateTime!, $endDate: AWSDateTime!, $roomTypeId: Int!, "
+                                        + "$propertyId: Int!) { listRoomRateRoomTypeMappings(where: {room_rate: "
+                                        + "{date: {gte: $startDate, lt: $endDate}}, room_type_id: {equals: $roomTypeId}, "
+                                        + "room_type: {property_id: {equals: $propertyId}}}, orderBy: {room_rate: {date: ASC}}) "
+                                        + "{ room_rate { basic_nightly_rate date } } }");
 
         /**
-         * GraphQL query to retrieve room IDs within a date range and specific room type
-         * for a property.
+         * GraphQL query to retrieve one page of room IDs within a date range and
+         * specific room type for a property, ordered by availability ID. Variables:
+         * startDate, endDate, roomTypeId, propertyId, after, take.
          */
-        public static final String GET_ROOM_IDS = "{ listRoomAvailabilities( where: {date: {gte:" +
-                        " \\\"%1$sT00:00:00.000Z\\\", lt: \\\"%2$sT00:00:00.000Z\\\"}, room: {room_type_id: {equals: %3$d}},"
-                        +
-                        " booking_id: {equals: 0}, property_id: {equals: %4$d}} take: 1000 ) { room_id } }";
+        public static final GraphqlOperation GET_ROOM_IDS = new GraphqlOperation("GET_ROOM_IDS",
+                        "query GetRoomIds($startDate: AWSDateTime!, $endDate: AWSDateTime!, $roomTypeId: Int!, "
+                                        + "$propertyId: Int!, $after: Int!, $take: Int!) { listRoomAvailabilities("
+                                        + "orderBy: {availability_id: ASC}, where: {date: {gte: $startDate, lt: $endDate}, "
+                                        + "room: {room_type_id: {equals: $roomTypeId}}, booking_id: {equals: 0}, "
+                                        + "property_id: {equals: $propertyId}, availability_id: {gt: $after}}, take: $take) "
+                                        + "{ availability_id room_id } }");
 
         /**
-         * GraphQL mutation to create a guest.
+         * GraphQL mutation to create a guest. Variables: guestName.
          */
-        public static final String CREATE_GUEST = "mutation { createGuest(data: {guest_name: \\\"%s\\\"}) { guest_id } }";
+        public static final GraphqlOperation CREATE_GUEST = new GraphqlOperation("CREATE_GUEST",
+                        "mutation CreateGuest($guestName: String!) { createGuest(data: {guest_name: $guestName}) "
+                                        + "{ guest_id } }");
 
         /**
-         * GraphQL query to retrieve room availabilities within a date range for a
-         * specific room in a property.
+         * GraphQL query to retrieve the free room availabilities within a date
+         * range for several rooms in a property. Variables: startDate, endDate,
+         * propertyId, roomIds.
          */
-        public static final String GET_SELECTED_ROOM_AVAILABILITIES = "{ listRoomAvailabilities( where: {date: {gte: \\\"%sT00:00:00.000Z\\\", lt: \\\"%sT00:00:00.000Z\\\"}, property_id: {equals: %d}, room_id: {equals: %d}, booking_id: {equals: 0}} ) { availability_id } }";
+        public static final GraphqlOperation GET_SELECTED_ROOMS_AVAILABILITIES = new GraphqlOperation(
+                        "GET_SELECTED_ROOMS_AVAILABILITIES",
+                        "query GetSelectedRoomsAvailabilities($startDate: AWSDateTime!, $endDate: AWSDateTime!, "
+                                        + "$propertyId: Int!, $roomIds: [Int!]!) { listRoomAvailabilities(where: {date: "
+                                        + "{gte: $startDate, lt: $endDate}, property_id: {equals: $propertyId}, "
+                                        + "room_id: {in: $roomIds}, booking_id: {equals: 0}}) { availability_id room_id } }");
 
         /**
-         * GraphQL mutation to create a booking with promotion.
+         * GraphQL mutation to create a booking with promotion. Variables:
+         * checkInDate, checkOutDate, adultCount, childCount, totalCost,
+         * amountDueAtResort, statusId, guestId, promotionId, propertyId,
+         * availabilityId.
          */
-        public static final String CREATE_BOOKING = "mutation { createBooking(data: {check_in_date: \\\"%1$sT00:00:00.000Z\\\", check_out_date: \\\"%2$sT00:00:00.000Z\\\", adult_count: %3$d, child_count: %4$d, total_cost: %5$d, amount_due_at_resort: %6$d, booking_status: {connect: {status_id: %7$d}}, guest: {connect: {guest_id: %8$d}}, promotion_applied: {connect: {promotion_id: %9$d}}, property_booked: {connect: {property_id: %10$d}}, room_booked: {connect: {availability_id: %11$d}}}) { booking_id } }";
+        public static final GraphqlOperation CREATE_BOOKING = new GraphqlOperation("CREATE_BOOKING",
+                        "mutation CreateBooking($checkInDate: AWSDateTime!, $checkOutDate: AWSDateTime!, "
+                                        + "$adultCount: Int!, $childCount: Int!, $totalCost: Int!, $amountDueAtResort: Int!, "
+                                        + "$statusId: Int!, $guestId: Int!, $promotionId: Int!, $propertyId: Int!, "
+                                        + "$availabilityId: Int!) { createBooking(data: {check_in_date: $checkInDate, "
+                                        + "check_out_date: $checkOutDate, adult_count: $adultCount, child_count: $childCount, "
+                                        + "total_cost: $totalCost, amount_due_at_resort: $amountDueAtResort, "
+                                        + "booking_status: {connect: {status_id: $statusId}}, guest: {connect: {guest_id: $guestId}}, "
+                                        + "promotion_applied: {connect: {promotion_id: $promotionId}}, "
+                                        + "property_booked: {connect: {property_id: $propertyId}}, "
+                                        + "room_booked: {connect: {availability_id: $availabilityId}}}) { booking_id } }");
 
         /**
-         * GraphQL mutation to create a booking without promotion.
+         * GraphQL mutation to create a booking without promotion. Same variables as
+         * {@link #CREATE_BOOKING} except promotionId.
          */
-        public static final String CREATE_BOOKING_WITHOUT_PROMOTION = "mutation { createBooking(data: {check_in_date: \\\"%1$sT00:00:00.000Z\\\", check_out_date: \\\"%2$sT00:00:00.000Z\\\", adult_count: %3$d, child_count: %4$d, total_cost: %5$d, amount_due_at_resort: %6$d, booking_status: {connect: {status_id: %7$d}}, guest: {connect: {guest_id: %8$d}}, property_booked: {connect: {property_id: %9$d}}, room_booked: {connect: {availability_id: %10$d}}}) { booking_id } }";
+        public static final GraphqlOperation CREATE_BOOKING_WITHOUT_PROMOTION = new GraphqlOperation(
+                        "CREATE_BOOKING_WITHOUT_PROMOTION",
+                        "mutation CreateBookingWithoutPromotion($checkInDate: AWSDateTime!, $checkOutDate: AWSDateTime!, "
+                                        + "$adultCount: Int!, $childCount: Int!, $totalCost: Int!, $amountDueAtResort: Int!, "
+                                        + "$statusId: Int!, $guestId: Int!, $propertyId: Int!, $availabilityId: Int!) "
+                                        + "{ createBooking(data: {check_in_date: $checkInDate, check_out_date: $checkOutDate, "
+                                        + "adult_count: $adultCount, child_count: $childCount, total_cost: $totalCost, "
+                                        + "amount_due_at_resort: $amountDueAtResort, booking_status: {connect: {status_id: $statusId}}, "
+                                        + "guest: {connect: {guest_id: $guestId}}, property_booked: {connect: {property_id: $propertyId}}, "
+                                        + "room_booked: {connect: {availability_id: $availabilityId}}}) { booking_id } }");
 
         /**
-         * GraphQL mutation to update room availability with a booking.
+         * GraphQL mutation to update room availability with a booking. Variables:
+         * availabilityId, bookingId.
          */
-        public static final String UPDATE_ROOM_AVAILABILITY = "mutation{updateRoomAvailability(where: {availability_id: %1$d} data: {booking: {connect: {booking_id: %2$d}, update: {booking_id: %3$d}}}) { booking_id }}";
+        public static final GraphqlOperation UPDATE_ROOM_AVAILABILITY = new GraphqlOperation(
+                        "UPDATE_ROOM_AVAILABILITY",
+                        "mutation UpdateRoomAvailability($availabilityId: Int!, $bookingId: Int!) "
+                                        + "{ updateRoomAvailability(where: {availability_id: $availabilityId}, data: {booking: "
+                                        + "{connect: {booking_id: $bookingId}, update: {booking_id: $bookingId}}}) { booking_id } }");
 
         /**
-         * GraphQL mutation to update booking status.
+         * GraphQL mutation to update booking status. Variables: bookingId.
          */
-        public static final String UPDATE_BOOKING = "mutation { updateBooking(where: {booking_id: %1$d} data: {booking_status: {connect: {status_id: 2}, update: {status_id: 2}}}){ booking_id } }";
+        public static final GraphqlOperation UPDATE_BOOKING = new GraphqlOperation("UPDATE_BOOKING",
+                        "mutation UpdateBooking($bookingId: Int!) { updateBooking(where: {booking_id: $bookingId}, "
+                                        + "data: {booking_status: {connect: {status_id: 2}, update: {status_id: 2}}}) "
+                                        + "{ booking_id } }");
 
         /**
-         * GraphQL query to retrieve room availabilities by booking ID.
+         * GraphQL query to retrieve room availabilities by booking ID. Variables:
+         * bookingId.
          */
-        public static final String GET_AVAILABILITIES_BY_BOOKING_ID = "query { listRoomAvailabilities(where: {booking_id: {equals: %1$d}}) { availability_id } }";
+        public static final GraphqlOperation GET_AVAILABILITIES_BY_BOOKING_ID = new GraphqlOperation(
+                        "GET_AVAILABILITIES_BY_BOOKING_ID",
+                        "query GetAvailabilitiesByBookingId($bookingId: Int!) { listRoomAvailabilities(where: "
+                                        + "{booking_id: {equals: $bookingId}}) { availability_id } }");
 }
@@ -1,7 +1,9 @@
 package com.spring.ibe.controller;
 
 import com.spring.ibe.dto.request.BookingRequestDTO;
+import com.spring.ibe.booking.BookingTickets;
 import com.spring.ibe.dto.response.BookingResponseDTO;
+import com.spring.ibe.dto.response.BookingTicketDTO;
 import com.spring.ibe.dto.response.MyBookingsResponseDTO;
 import com.spring.ibe.dto.response.ReviewBookingResponseDTO;
 import com.spring.ibe.dto.response.SuccessFulBookingResponseDTO;
@@ -9,9 +11,12 @@ import com.spring.ibe.service.BookingService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import static com.spring.ibe.constants.Constants.API_TITLE;
 
 /**
@@ -23,15 +28,18 @@ import static com.spring.ibe.constants.Constants.API_TITLE;
 @Slf4j
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingTickets bookingTickets;
 
     /**
      * Constructor for BookingController.
      *
      * @param bookingService The booking service to handle booking operations.
+     * @param bookingTickets The progress of bookings completed in the background.
      */
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingTickets bookingTickets) {
         this.bookingService = bookingService;
+        this.bookingTickets = bookingTickets;
     }
 
     /**
@@ -48,6 +56,45 @@ public class BookingController {
         return ResponseEntity.ok(bookingId);
     }
 
+    /**
+     * Endpoint to submit a new booking. The rooms are held before it returns; the
+     * booking itself is created in the background.
+     *
+     * @param bookingRequestDTO The DTO containing booking details.
+     * @return ResponseEntity with status 202 containing the ticket to follow the
+     *         booking with.
+     */
+    @PostMapping("/create-booking/async")
+    public ResponseEntity<BookingTicketDTO> submitBooking(@RequestBody @Valid BookingRequestDTO bookingRequestDTO) {
+        log.info("Received request to submit booking: {}", bookingRequestDTO);
+        BookingTicketDTO ticket = bookingService.submitBooking(bookingRequestDTO);
+        log.info("Submitted booking with ticket: {}", ticket.getTicketId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ticket);
+    }
+
+    /**
+     * Endpoint to retrieve the progress of a submitted booking.
+     *
+     * @param ticketId The ticket returned when the booking was submitted.
+     * @return ResponseEntity containing the status of the booking.
+     */
+    @GetMapping("/booking-status/{ticketId}")
+    public ResponseEntity<BookingTicketDTO> getBookingStatus(@PathVariable String ticketId) {
+        return ResponseEntity.ok(bookingTickets.find(ticketId));
+    }
+
+    /**
+     * Endpoint to stream the progress of a submitted booking as server-sent
+     * events until it is confirmed or failed.
+     *
+     * @param ticketId The ticket returned when the booking was submitted.
+     * @return The emitter streaming the status of the booking.
+     */
+    @GetMapping(value = "/booking-status/{ticketId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingStatus(@PathVariable String ticketId) {
+        return bookingTickets.stream(ticketId);
+    }
+
     /**
      * Endpoint to cancel a booking.
      *
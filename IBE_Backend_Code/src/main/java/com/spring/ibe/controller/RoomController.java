@@ -1,15 +1,19 @@
 package com.spring.ibe.controller;
 
+import com.spring.ibe.dto.request.MultiPropertyRoomRequestDTO;
 import com.spring.ibe.dto.request.RoomIdRequestDTO;
 import com.spring.ibe.dto.request.RoomRequestDTO;
+import com.spring.ibe.dto.response.MultiPropertyRoomResponseDTO;
 import com.spring.ibe.dto.response.RoomIdResponseDTO;
 import com.spring.ibe.dto.response.RoomResponseDTO;
 import com.spring.ibe.service.RoomService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import static com.spring.ibe.constants.Constants.API_TITLE;
 
 /**
@@ -31,20 +35,62 @@ public class RoomController {
      * POST endpoint to retrieve rooms based on the provided request parameters.
      *
      * @param roomRequestDTO The DTO containing the request parameters for rooms.
-     * @param pageNumber     The page number for pagination.
+     * @param pageNumber     The page number for pagination, ignored when a cursor
+     *                       is given.
      * @param pageSize       The size of each page for pagination.
+     * @param cursor         The next-page cursor returned with the previous page
+     *                       of the same search.
      * @return ResponseEntity containing the rooms.
      */
     @PostMapping("/room")
     public ResponseEntity<RoomResponseDTO> getRooms(@Valid @RequestBody RoomRequestDTO roomRequestDTO,
-            @Valid @RequestParam Integer pageNumber,
-            @Valid @RequestParam Integer pageSize) {
+            @Valid @RequestParam(defaultValue = "1") Integer pageNumber,
+            @Valid @RequestParam Integer pageSize,
+            @RequestParam(required = false) String cursor) {
         log.info("Received request to retrieve rooms");
-        RoomResponseDTO responseDTO = roomService.getRooms(roomRequestDTO, pageNumber, pageSize);
+        RoomResponseDTO responseDTO = roomService.getRooms(roomRequestDTO, pageNumber, pageSize, cursor);
         log.info("Retrieved rooms successfully");
         return ResponseEntity.ok(responseDTO);
     }
 
+    /**
+     * POST endpoint to stream rooms as server-sent events: the room type cards
+     * first, then price and availability patches, then the first page of the
+     * sorted rooms with the cursor of the next one.
+     *
+     * @param roomRequestDTO The DTO containing the request parameters for rooms.
+     * @param pageSize       The size of the page sent last.
+     * @return The emitter streaming the search.
+     */
+    @PostMapping(value = "/room/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRooms(@Valid @RequestBody RoomRequestDTO roomRequestDTO,
+            @Valid @RequestParam Integer pageSize) {
+        log.info("Received request to stream rooms");
+        return roomService.streamRooms(roomRequestDTO, pageSize);
+    }
+
+    /**
+     * POST endpoint to search rooms across several properties at once.
+     *
+     * @param multiPropertyRoomRequestDTO The DTO containing the properties and the
+     *                                    search criteria.
+     * @param pageNumber                  The page number for pagination.
+     * @param pageSize                    The size of each page for pagination.
+     * @return ResponseEntity containing the merged rooms and the properties that
+     *         could not be searched in time.
+     */
+    @PostMapping("/room/multi-property")
+    public ResponseEntity<MultiPropertyRoomResponseDTO> searchProperties(
+            @Valid @RequestBody MultiPropertyRoomRequestDTO multiPropertyRoomRequestDTO,
+            @Valid @RequestParam(defaultValue = "1") Integer pageNumber,
+            @Valid @RequestParam Integer pageSize) {
+        log.info("Received request to search rooms across properties");
+        MultiPropertyRoomResponseDTO responseDTO = roomService.searchProperties(multiPropertyRoomRequestDTO,
+                pageNumber, pageSize);
+        log.info("Searched rooms across properties successfully");
+        return ResponseEntity.ok(responseDTO);
+    }
+
     /**
      * POST endpoint to retrieve room IDs based on the provided request parameters.
      *
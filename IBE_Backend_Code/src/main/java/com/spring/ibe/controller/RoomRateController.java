@@ -1,7 +1,10 @@
 package com.spring.ibe.controller;
 
+import com.spring.ibe.dto.request.FlexibleDateRequestDTO;
+import com.spring.ibe.dto.response.FlexibleDateResponseDTO;
 import com.spring.ibe.dto.response.RoomRatesResponseDTO;
 import com.spring.ibe.dto.request.RoomRateRequestDTO;
+import com.spring.ibe.service.FlexibleDateService;
 import com.spring.ibe.service.RoomRateService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -18,10 +21,12 @@ import static com.spring.ibe.constants.Constants.API_TITLE;
 @Slf4j
 public class RoomRateController {
     private final RoomRateService roomRateService;
+    private final FlexibleDateService flexibleDateService;
 
     @Autowired
-    public RoomRateController(RoomRateService roomRateService) {
+    public RoomRateController(RoomRateService roomRateService, FlexibleDateService flexibleDateService) {
         this.roomRateService = roomRateService;
+        this.flexibleDateService = flexibleDateService;
     }
 
     /**
@@ -40,4 +45,21 @@ public class RoomRateController {
         log.info("Retrieved room rates with rates breakdown successfully");
         return ResponseEntity.ok(responseDTO);
     }
+
+    /**
+     * POST endpoint to find the cheapest stays of a given length within a span
+     * of dates.
+     *
+     * @param flexibleDateRequestDTO The DTO containing the stay length, the span
+     *                               of dates and the filters.
+     * @return ResponseEntity containing the cheapest stays.
+     */
+    @PostMapping("/flexible-dates")
+    public ResponseEntity<FlexibleDateResponseDTO> findCheapestStays(
+            @Valid @RequestBody FlexibleDateRequestDTO flexibleDateRequestDTO) {
+        log.info("Received request to find the cheapest stays");
+        FlexibleDateResponseDTO responseDTO = flexibleDateService.findCheapestStays(flexibleDateRequestDTO);
+        log.info("Found the cheapest stays successfully");
+        return ResponseEntity.ok(responseDTO);
+    }
 }
@@ -0,0 +1,36 @@
+package com.spring.ibe.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO class for flexible-date searches: the cheapest stays of
+ * {@code nights} nights that fit between {@code startDate} and
+ * {@code endDate}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlexibleDateRequestDTO {
+    @NotBlank
+    private String startDate;
+    @NotBlank
+    private String endDate;
+    @NotNull
+    @Min(1)
+    private Integer nights;
+    @NotNull
+    private Integer propertyId = 11;
+
+    private Integer roomTypeId;
+    @NotNull
+    @Min(1)
+    private Integer roomCount = 1;
+    @NotNull
+    @Min(1)
+    private Integer limit = 5;
+}
@@ -0,0 +1,25 @@
+package com.spring.ibe.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO class for room searches across several properties. The property
+ * ID of {@code search} is ignored.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiPropertyRoomRequestDTO {
+    @NotEmpty
+    private List<@NotNull Integer> propertyIds;
+    @Valid
+    @NotNull
+    private RoomRequestDTO search;
+}
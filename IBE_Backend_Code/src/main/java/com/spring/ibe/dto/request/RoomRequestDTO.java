@@ -4,6 +4,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.With;
 
 /**
  * Request DTO class for room requests.
@@ -17,6 +18,7 @@ public class RoomRequestDTO {
     @NotBlank
     private String endDate;
 
+    @With
     private Integer propertyId = 11;
 
     private String roomTypeName = "";
@@ -0,0 +1,29 @@
+package com.spring.ibe.dto.response;
+
+import com.spring.ibe.booking.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class representing the progress of a booking submitted for background
+ * completion.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingTicketDTO {
+    private String ticketId;
+
+    private BookingStatus status;
+
+    /**
+     * The booking ID once the booking is confirmed, otherwise null.
+     */
+    private Long bookingId;
+
+    /**
+     * The reason the booking failed, otherwise null.
+     */
+    private String message;
+}
@@ -0,0 +1,38 @@
+package com.spring.ibe.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO class representing the cheapest stays found by a flexible-date search,
+ * cheapest first.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlexibleDateResponseDTO {
+    private List<Stay> stays;
+
+    /**
+     * DTO class representing one stay in one room type.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Stay {
+        private String startDate;
+
+        private String endDate;
+
+        private int roomTypeId;
+
+        private double averageRate;
+
+        private double totalRate;
+
+        private int availableRooms;
+    }
+}
@@ -0,0 +1,23 @@
+package com.spring.ibe.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO class representing the response of a room search across several
+ * properties. Properties that failed or did not answer in time are listed in
+ * {@code incompletePropertyIds} and contribute no rooms.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiPropertyRoomResponseDTO {
+    private List<RoomResponseDTO.Room> listRooms;
+
+    private int totalRecords;
+
+    private List<Integer> incompletePropertyIds;
+}
@@ -0,0 +1,23 @@
+package com.spring.ibe.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class representing an update to a streamed room type card. Only the
+ * fields being updated are present; a rate patch without a price means the
+ * room type has no rate for the stay.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomPatchDTO {
+    private int roomTypeId;
+
+    private Double price;
+
+    private Integer availableRooms;
+}
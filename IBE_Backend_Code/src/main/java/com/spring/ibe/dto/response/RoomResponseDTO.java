@@ -17,6 +17,8 @@ public class RoomResponseDTO {
 
     private int totalRecords;
 
+    private String nextCursor;
+
     /**
      * DTO class representing room details.
      */
@@ -39,5 +41,7 @@ public class RoomResponseDTO {
         private String roomTypeName;
 
         private int roomTypeId;
+
+        private Integer propertyId;
     }
 }
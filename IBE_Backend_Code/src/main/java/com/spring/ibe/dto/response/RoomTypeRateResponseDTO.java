@@ -4,15 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.Map;
-
 /**
- * DTO class representing room type rate response.
+ * DTO class representing room type rate response. Both arrays are indexed by
+ * the room type ordinal of the property; a room type without rates has a NaN
+ * rate, and room types beyond the end of an array have neither rates nor free
+ * rooms.
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class RoomTypeRateResponseDTO {
-    private Map<String, Double> roomTypeRates;
-    private Map<String, Integer> roomTypeAvailability;
+    private double[] roomTypeRates;
+    private int[] roomTypeAvailability;
 }
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "guest_user")
+@Table(name = "guest_user", indexes = @Index(name = "guest_user_email_id", columnList = "email_id", unique = true))
 public class GuestUser {
     @Id
     private Long userId;
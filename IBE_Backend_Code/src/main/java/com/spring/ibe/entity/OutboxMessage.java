@@ -0,0 +1,76 @@
+package com.spring.ibe.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An upstream GraphQL mutation waiting to be delivered, written in the same
+ * transaction as the local change it mirrors. Messages with the same
+ * idempotency key replace each other, so only the latest state of an upstream
+ * record is delivered.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "outbox_message", indexes = @Index(name = "outbox_message_due", columnList = "status, next_attempt_at"))
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Identifies the upstream record the mutation writes, e.g.
+     * {@code room-availability:42}.
+     */
+    @Column(unique = true, nullable = false)
+    private String idempotencyKey;
+
+    /**
+     * The booking the mutation belongs to.
+     */
+    private Long bookingId;
+
+    /**
+     * The name of the operation in {@code GraphqlQuery}.
+     */
+    private String operation;
+
+    /**
+     * The operation variables as JSON.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String variables;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    private Instant nextAttemptAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private Instant createdAt;
+
+    @Version
+    private long version;
+
+    /**
+     * Delivery state of a message. Delivered messages are deleted.
+     */
+    public enum Status {
+        /**
+         * Waiting for its next attempt.
+         */
+        PENDING,
+
+        /**
+         * Given up on after too many attempts; needs manual attention.
+         */
+        DEAD
+    }
+}
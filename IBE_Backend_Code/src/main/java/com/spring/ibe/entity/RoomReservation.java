@@ -0,0 +1,51 @@
+package com.spring.ibe.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One night of a room reserved for a booking in progress. The unique key on
+ * property, room and night lets the database turn away a second reservation of
+ * the same night, whichever application instance makes it. Once the booking is
+ * created the reservation no longer lapses; it is kept until the outbox relay
+ * has attached every availability of the booking upstream.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "room_reservation",
+        uniqueConstraints = @UniqueConstraint(name = "room_reservation_night",
+                columnNames = {"property_id", "room_id", "night"}),
+        indexes = {@Index(name = "room_reservation_hold", columnList = "hold_id"),
+                @Index(name = "room_reservation_booking", columnList = "booking_id")})
+public class RoomReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long propertyId;
+
+    private Integer roomId;
+
+    private LocalDate night;
+
+    /**
+     * The hold the night was reserved for.
+     */
+    private String holdId;
+
+    /**
+     * The booking created for the hold, or null while it is being created.
+     */
+    private Long bookingId;
+
+    /**
+     * When the reservation lapses if the booking never finishes, or null once
+     * the booking is created.
+     */
+    private Instant expiresAt;
+}
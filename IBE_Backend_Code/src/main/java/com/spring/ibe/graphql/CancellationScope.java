@@ -0,0 +1,92 @@
+package com.spring.ibe.graphql;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets a task cancelled from another thread abort the upstream request it is
+ * blocked on. Blocking socket reads ignore interrupts, so the task registers
+ * each request in its scope and cancelling the scope aborts the request, which
+ * then fails with an {@link java.io.IOException}.
+ */
+final class CancellationScope {
+
+    private static final ThreadLocal<CancellationScope> CURRENT = new ThreadLocal<>();
+
+    private boolean cancelled;
+    private Cancellable request;
+
+    /**
+     * Returns the scope of the task running on this thread.
+     *
+     * @return The scope, or null if the thread is not running a cancellable task.
+     */
+    static CancellationScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs a task in this scope.
+     *
+     * @param task The task.
+     * @param <T>  The result type.
+     * @return The task's result.
+     */
+    <T> T run(Supplier<T> task) {
+        CancellationScope previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Registers the request the task is about to block on. A request registered
+     * after the scope was cancelled is cancelled straight away.
+     *
+     * @param request The request.
+     */
+    synchronized void register(Cancellable request) {
+        this.request = request;
+        if (cancelled) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Forgets a request that has completed.
+     *
+     * @param request The request.
+     */
+    synchronized void unregister(Cancellable request) {
+        if (this.request == request) {
+            this.request = null;
+        }
+    }
+
+    /**
+     * Tells whether the task was cancelled.
+     *
+     * @return true once the scope is cancelled.
+     */
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the scope and aborts the request the task is blocked on, if any.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+}
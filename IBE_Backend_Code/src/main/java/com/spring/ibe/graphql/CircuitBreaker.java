@@ -0,0 +1,116 @@
+package com.spring.ibe.graphql;
+
+/**
+ * Count-based circuit breaker for one upstream operation. It opens when the
+ * failure rate over the last calls reaches the threshold, rejects calls while
+ * open, and then lets a single trial call decide whether to close again.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(GraphqlProperties.Resilience settings) {
+        this.outcomes = new boolean[settings.getSlidingWindowSize()];
+        this.minimumCalls = settings.getMinimumCalls();
+        this.failureRateThreshold = settings.getFailureRateThreshold();
+        this.openNanos = settings.getOpenDuration().toNanos();
+    }
+
+    /**
+     * Checks whether a call may go through. In the half-open state only one trial
+     * call is let through at a time.
+     *
+     * @return true if the call is permitted.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * Releases a permitted call that ended without an outcome, e.g. a cancelled
+     * hedge.
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,248 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.exception.custom.FetchFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide executor for concurrent upstream work. Blocking tasks run on
+ * one bounded pool instead of a pool per request; its pool size, active tasks
+ * and queue depth are published as {@code executor.*} meters tagged
+ * {@code name=graphql.fan-out}. Waiting on concurrent calls is bounded by a
+ * deadline, and the first failure cancels the calls that are still running.
+ * <p>
+ * Single upstream requests sent ahead of time, such as a prefetched page or a
+ * hedged attempt, run on a second pool tagged {@code name=graphql.requests}.
+ * Their callers are often fan-out tasks themselves, so sharing the fan-out pool
+ * could leave every thread waiting on a request queued behind it.
+ */
+@Component
+@Slf4j
+public class FanOutExecutor {
+
+    private static final String NAME = "graphql.fan-out";
+    private static final String REQUESTS_NAME = "graphql.requests";
+
+    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor requestPool;
+    private final ExecutorService requestExecutor;
+    private final Duration deadline;
+
+    /**
+     * Constructor for FanOutExecutor.
+     *
+     * @param properties The executor settings.
+     * @param registry   The meter registry.
+     */
+    public FanOutExecutor(GraphqlProperties properties, MeterRegistry registry) {
+        GraphqlProperties.FanOut fanOut = properties.getFanOut();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("graphql-fan-out-");
+        threadFactory.setDaemon(true);
+        this.threadPool = new ThreadPoolExecutor(fanOut.getThreads(), fanOut.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fanOut.getQueueCapacity()), threadFactory);
+        this.threadPool.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(registry, threadPool, NAME);
+        CustomizableThreadFactory requestThreadFactory = new CustomizableThreadFactory("graphql-requests-");
+        requestThreadFactory.setDaemon(true);
+        this.requestPool = new ThreadPoolExecutor(fanOut.getRequestThreads(), fanOut.getRequestThreads(), 60,
+                TimeUnit.SECONDS, new SynchronousQueue<>(), requestThreadFactory);
+        this.requestPool.allowCoreThreadTimeOut(true);
+        this.requestExecutor = ExecutorServiceMetrics.monitor(registry, requestPool, REQUESTS_NAME);
+        this.deadline = fanOut.getDeadline();
+    }
+
+    /**
+     * Runs a blocking task on the shared executor. Cancelling the returned
+     * future interrupts the task and aborts the upstream request it is blocked
+     * on; a task still queued never starts.
+     *
+     * @param task The task.
+     * @param <T>  The result type.
+     * @return The future result; fails with {@link FetchFailedException} if the
+     *         executor is saturated.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return submit(executor, task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Fan-out executor is saturated with {} queued tasks", threadPool.getQueue().size());
+            return CompletableFuture.failedFuture(new FetchFailedException("Too many concurrent upstream requests."));
+        }
+    }
+
+    /**
+     * Sends a single upstream request ahead of time on the request pool. The
+     * request must not wait on other tasks. Requests are never queued: when every
+     * request thread is busy, the caller sends the request itself once it needs
+     * the result. Cancelling the returned future aborts the request.
+     *
+     * @param request The request.
+     * @param <T>     The result type.
+     * @return The future result, or null if no request thread is free.
+     */
+    public <T> CompletableFuture<T> requestAsync(Supplier<T> request) {
+        try {
+            return submit(requestExecutor, request);
+        } catch (RejectedExecutionException e) {
+            log.debug("All {} request threads are busy", requestPool.getMaximumPoolSize());
+            return null;
+        }
+    }
+
+    private static <T> CompletableFuture<T> submit(ExecutorService executor, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CancellationScope scope = new CancellationScope();
+        Future<?> running = executor.submit(() -> {
+            try {
+                future.complete(scope.run(task));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled()) {
+                scope.cancel();
+                running.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs a blocking task on the shared executor.
+     *
+     * @param task The task.
+     * @return The future completion; fails with {@link FetchFailedException} if
+     *         the executor is saturated.
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Waits for concurrent calls and returns their values in order. As soon as
+     * one call fails, or the deadline passes, the calls still running are
+     * cancelled.
+     *
+     * @param futures The calls to wait for.
+     * @param <T>     The value type.
+     * @return The values.
+     * @throws FetchFailedException if the deadline passes or a call failed with a
+     *                              checked exception; a call's unchecked
+     *                              exception is rethrown as is.
+     */
+    public <T> List<T> awaitAll(List<? extends CompletableFuture<? extends T>> futures) {
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        for (CompletableFuture<? extends T> future : futures) {
+            future.whenComplete((value, e) -> {
+                if (e != null && !(unwrap(e) instanceof CancellationException)
+                        && firstFailure.compareAndSet(null, unwrap(e))) {
+                    cancelAll(futures);
+                }
+            });
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            log.error("Concurrent upstream calls did not finish within {} ms", deadline.toMillis());
+            throw new FetchFailedException("Timed out waiting for the GraphQL endpoint.");
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException("Interrupted while waiting for the GraphQL endpoint.");
+        } catch (ExecutionException | CancellationException e) {
+            Throwable failure = firstFailure.get() != null ? firstFailure.get() : unwrap(e);
+            if (failure instanceof RuntimeException cause && !(cause instanceof CancellationException)) {
+                throw cause;
+            }
+            throw new FetchFailedException("Failed to reach the GraphQL endpoint.");
+        }
+        List<T> values = new ArrayList<>(futures.size());
+        for (CompletableFuture<? extends T> future : futures) {
+            values.add(future.join());
+        }
+        return values;
+    }
+
+    /**
+     * Waits for independent calls until a deadline and returns the values of
+     * those that succeeded in time, in order. Calls still running at the
+     * deadline are cancelled.
+     *
+     * @param futures  The calls to wait for.
+     * @param deadline The time to wait.
+     * @param <T>      The value type.
+     * @return The values, with null in place of calls that failed or were
+     *         cancelled.
+     * @throws FetchFailedException if interrupted while waiting.
+     */
+    public <T> List<T> awaitAvailable(List<CompletableFuture<T>> futures, Duration deadline) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Some concurrent upstream calls did not finish within {} ms", deadline.toMillis());
+        } catch (ExecutionException | CancellationException e) {
+            log.debug("Some concurrent upstream calls failed: {}", unwrap(e).getMessage());
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException("Interrupted while waiting for the GraphQL endpoint.");
+        }
+        List<T> values = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                values.add(future.join());
+            } else {
+                future.cancel(true);
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        threadPool.shutdownNow();
+        requestPool.shutdownNow();
+    }
+
+    private static void cancelAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return (e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null
+                ? e.getCause() : e;
+    }
+}
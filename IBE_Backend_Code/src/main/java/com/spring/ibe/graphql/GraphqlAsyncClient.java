@@ -0,0 +1,208 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.constants.Constants;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Non-blocking gateway for the upstream GraphQL endpoint. Calls run on the
+ * Reactor Netty event loop, so fanning out many operations does not hold a
+ * thread per call. Use {@link GraphqlClient} for single blocking calls; it also
+ * coalesces identical queries and supports persisted queries.
+ */
+@Component
+@Slf4j
+public class GraphqlAsyncClient {
+
+    private static final int MAX_RESPONSE_BYTES = 16 * 1024 * 1024;
+
+    private final WebClient webClient;
+    private final GraphqlProperties properties;
+    private final GraphqlResilience resilience;
+    private final GraphqlMetrics metrics;
+
+    /**
+     * Constructor for GraphqlAsyncClient.
+     *
+     * @param graphqlUrl       The URL for the GraphQL endpoint.
+     * @param apiKey           The API key for accessing the GraphQL endpoint.
+     * @param webClientBuilder The WebClient builder.
+     * @param properties       The pool and timeout settings.
+     * @param resilience       The bulkheads and circuit breakers.
+     * @param metrics          The per-operation call metrics.
+     */
+    public GraphqlAsyncClient(@Value("${app.graphql_url}") String graphqlUrl,
+            @Value("${app.graphql_api_key}") String apiKey, WebClient.Builder webClientBuilder,
+            GraphqlProperties properties, GraphqlResilience resilience, GraphqlMetrics metrics) {
+        this.properties = properties;
+        this.resilience = resilience;
+        this.metrics = metrics;
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("graphql")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getKeepAlive())
+                .maxLifeTime(properties.getConnectionTimeToLive())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis());
+        this.webClient = webClientBuilder
+                .baseUrl(graphqlUrl)
+                .defaultHeader(Constants.API_KEY_TITLE, apiKey)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_RESPONSE_BYTES))
+                .build();
+    }
+
+    /**
+     * Executes an operation and emits the raw response body. The call goes
+     * through the operation's circuit breaker and bulkhead; a full bulkhead fails
+     * the call immediately rather than waiting. Its latency, response size and
+     * outcome are recorded.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response body; fails with {@link FetchFailedException} if the
+     *         endpoint cannot be reached, times out or answers with an error
+     *         status.
+     */
+    public Mono<byte[]> execute(GraphqlOperation operation, Map<String, Object> variables) {
+        return Mono.defer(() -> {
+            GraphqlMetrics.Call call = metrics.start(operation.getName());
+            GraphqlResilience.Permit permit;
+            try {
+                permit = resilience.acquire(operation.getName(), Duration.ZERO);
+            } catch (RuntimeException e) {
+                call.rejected();
+                return Mono.error(e);
+            }
+            return exchange(operation, variables)
+                    .doOnSuccess(body -> {
+                        permit.success();
+                        call.success(body);
+                    })
+                    .doOnError(e -> {
+                        permit.failure();
+                        call.failure();
+                    })
+                    .doOnCancel(() -> {
+                        permit.abandon();
+                        call.cancelled();
+                    });
+        });
+    }
+
+    /**
+     * Sends an operation once its permit is held.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response body; fails with {@link FetchFailedException} if the
+     *         endpoint cannot be reached, times out or answers with an error
+     *         status.
+     */
+    private Mono<byte[]> exchange(GraphqlOperation operation, Map<String, Object> variables) {
+        return Mono.fromCallable(() -> GraphqlClient.REQUEST_WRITER.writeValueAsBytes(
+                GraphqlRequest.of(operation, variables)))
+                .flatMap(body -> webClient.post()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .defaultIfEmpty(new byte[0])
+                .timeout(properties.readTimeoutFor(operation.getName()))
+                .onErrorMap(e -> !(e instanceof FetchFailedException), e -> {
+                    log.error("GraphQL request {} failed: {}", operation.getName(), e.getMessage());
+                    return new FetchFailedException("Failed to reach the GraphQL endpoint.");
+                });
+    }
+
+    /**
+     * Executes an operation and decodes its root field.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @param reader    The reader for the root field.
+     * @param <T>       The decoded type.
+     * @return The decoded value, or empty if the response has no data.
+     */
+    public <T> Mono<T> execute(GraphqlOperation operation, Map<String, Object> variables,
+            GraphqlFieldReader<T> reader) {
+        return execute(operation, variables).handle((body, sink) -> {
+            try {
+                T value = GraphqlResponses.readField(body, operation.getRootField(), reader);
+                if (value != null) {
+                    sink.next(value);
+                }
+            } catch (IOException e) {
+                log.error("Failed to parse GraphQL response {}: {}", operation.getName(), e.getMessage());
+                sink.error(new FetchFailedException("Failed to parse the GraphQL response."));
+            }
+        });
+    }
+
+    /**
+     * Executes an operation and completes with the raw response body. Cancelling
+     * the future cancels the call.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The future response body.
+     */
+    public CompletableFuture<byte[]> executeAsync(GraphqlOperation operation, Map<String, Object> variables) {
+        return execute(operation, variables).toFuture();
+    }
+
+    /**
+     * Executes an operation and completes with its decoded root field.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @param reader    The reader for the root field.
+     * @param <T>       The decoded type.
+     * @return The future value, completing with null if the response has no data.
+     */
+    public <T> CompletableFuture<T> executeAsync(GraphqlOperation operation, Map<String, Object> variables,
+            GraphqlFieldReader<T> reader) {
+        return execute(operation, variables, reader).toFuture();
+    }
+
+    /**
+     * Blocks until a future completes, rethrowing its failure unwrapped. If the
+     * waiting thread is interrupted, the future is cancelled.
+     *
+     * @param future The future to wait for.
+     * @param <T>    The value type.
+     * @return The value.
+     * @throws FetchFailedException if the future failed with a checked exception
+     *                              or the wait was interrupted.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new FetchFailedException("Failed to reach the GraphQL endpoint.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException("Interrupted while waiting for the GraphQL endpoint.");
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.spring.ibe.graphql;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Merges independent operations into one aliased GraphQL document so that they
+ * share a single round trip. The root field of each part is aliased as
+ * {@code q0}, {@code q1}, ... and its variables are prefixed the same way; the
+ * response is split back out per part in one streaming pass.
+ * <p>
+ * Every part must be of the same kind (all queries or all mutations) and select
+ * a single root field, which holds for every operation in {@code GraphqlQuery}.
+ */
+public final class GraphqlBatch {
+
+    /**
+     * Prefix of the name of a merged operation. The name lists the distinct
+     * part names in sorted order, e.g. {@code batch:GET_ROOMS,GET_ROOM_RATES},
+     * so that metrics, bulkheads and circuit breakers are keyed by the kinds of
+     * operations in a batch rather than by its size or order.
+     */
+    static final String NAME_PREFIX = "batch:";
+
+    /**
+     * Separator between the part names in the name of a merged operation.
+     */
+    static final String NAME_SEPARATOR = ",";
+
+    /**
+     * Maximum number of merged documents kept. Batches beyond it are merged on
+     * every call.
+     */
+    private static final int MAX_MERGED_OPERATIONS = 256;
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$(\\w+)");
+    private static final Map<List<String>, GraphqlOperation> MERGED_OPERATIONS = new ConcurrentHashMap<>();
+
+    private final List<Part<?>> parts = new ArrayList<>();
+
+    /**
+     * Adds an operation to the batch.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @param reader    The reader for the root field of the operation.
+     * @param <T>       The decoded type.
+     * @return The part, holding the decoded value once the response is decoded.
+     */
+    public <T> Part<T> add(GraphqlOperation operation, Map<String, Object> variables, GraphqlFieldReader<T> reader) {
+        Part<T> part = new Part<>("q" + parts.size(), operation, variables, reader);
+        parts.add(part);
+        return part;
+    }
+
+    /**
+     * Returns the merged operation. The document only depends on which
+     * operations were added and in which order, so it is built once per
+     * combination, up to a bounded number of combinations.
+     *
+     * @return The merged operation.
+     */
+    public GraphqlOperation toOperation() {
+        List<String> names = names();
+        GraphqlOperation operation = MERGED_OPERATIONS.get(names);
+        if (operation == null) {
+            operation = merge(NAME_PREFIX + String.join(NAME_SEPARATOR, new TreeSet<>(names)));
+            if (MERGED_OPERATIONS.size() < MAX_MERGED_OPERATIONS) {
+                MERGED_OPERATIONS.putIfAbsent(names, operation);
+            }
+        }
+        return operation;
+    }
+
+    /**
+     * Returns the names of the operations an operation is made of.
+     *
+     * @param operationName The name of a single or a merged operation.
+     * @return The distinct part names of a merged operation, or the name itself.
+     */
+    static List<String> partNames(String operationName) {
+        if (!operationName.startsWith(NAME_PREFIX)) {
+            return List.of(operationName);
+        }
+        return List.of(operationName.substring(NAME_PREFIX.length()).split(NAME_SEPARATOR));
+    }
+
+    /**
+     * Returns the variables of every part, prefixed with the part alias.
+     *
+     * @return The merged variables.
+     */
+    public Map<String, Object> variables() {
+        Map<String, Object> variables = new HashMap<>();
+        for (Part<?> part : parts) {
+            part.getVariables().forEach((key, value) -> variables.put(part.getAlias() + "_" + key, value));
+        }
+        return variables;
+    }
+
+    /**
+     * Decodes a response to the merged operation into the parts. Parts whose
+     * alias is missing from the response keep a null value.
+     *
+     * @param body The response body.
+     * @throws GraphqlErrorsException if the response reports errors.
+     * @throws IOException            if the body cannot be parsed.
+     */
+    public void decode(byte[] body) throws IOException {
+        assign(GraphqlResponses.readFields(body, readers()), Set.of());
+    }
+
+    /**
+     * Decodes a response to the merged operation into the parts, for batches of
+     * independent parts that may fail on their own, e.g. mutations. Parts that an
+     * error points at, or whose alias is missing from the response, keep a null
+     * value; the other parts are decoded as usual.
+     *
+     * @param body The response body.
+     * @throws GraphqlErrorsException if an error does not point at a part.
+     * @throws IOException            if the body cannot be parsed.
+     */
+    public void decodePartial(byte[] body) throws IOException {
+        try {
+            decode(body);
+        } catch (GraphqlErrorsException e) {
+            if (e.getFailedFields() == null) {
+                throw e;
+            }
+            assign(e.getValues(), e.getFailedFields());
+        }
+    }
+
+    private Map<String, GraphqlFieldReader<?>> readers() {
+        Map<String, GraphqlFieldReader<?>> readers = new HashMap<>();
+        for (Part<?> part : parts) {
+            readers.put(part.getAlias(), part.getReader());
+        }
+        return readers;
+    }
+
+    private void assign(Map<String, Object> values, Set<String> failedAliases) {
+        for (Part<?> part : parts) {
+            part.value = failedAliases.contains(part.getAlias()) ? null : values.get(part.getAlias());
+        }
+    }
+
+    private GraphqlOperation merge(String name) {
+        String kind = null;
+        StringJoiner definitions = new StringJoiner(", ");
+        StringJoiner selections = new StringJoiner(" ");
+        for (Part<?> part : parts) {
+            String document = part.getOperation().getDocument();
+            String partKind = document.substring(0, document.indexOf(' '));
+            if (kind != null && !kind.equals(partKind)) {
+                throw new IllegalStateException("Cannot batch a " + partKind + " with a " + kind + ".");
+            }
+            kind = partKind;
+
+            int selectionStart = document.indexOf('{');
+            String header = document.substring(0, selectionStart);
+            if (header.indexOf('(') >= 0) {
+                definitions.add(prefixVariables(
+                        header.substring(header.indexOf('(') + 1, header.lastIndexOf(')')), part.getAlias()));
+            }
+            String selection = document.substring(selectionStart + 1, document.lastIndexOf('}')).trim();
+            selections.add(part.getAlias() + ": " + prefixVariables(selection, part.getAlias()));
+        }
+        String signature = definitions.length() == 0 ? "" : "(" + definitions + ")";
+        return new GraphqlOperation(name, kind + " Batch" + signature + " { " + selections + " }");
+    }
+
+    private List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (Part<?> part : parts) {
+            names.add(part.getOperation().getName());
+        }
+        return names;
+    }
+
+    private static String prefixVariables(String text, String alias) {
+        return VARIABLE.matcher(text).replaceAll("\\$" + alias + "_$1");
+    }
+
+    /**
+     * A single operation within a batch.
+     *
+     * @param <T> The decoded type.
+     */
+    @Getter
+    public static final class Part<T> {
+        private final String alias;
+        private final GraphqlOperation operation;
+        private final Map<String, Object> variables;
+        private final GraphqlFieldReader<T> reader;
+        @Getter(AccessLevel.NONE)
+        private Object value;
+
+        private Part(String alias, GraphqlOperation operation, Map<String, Object> variables,
+                GraphqlFieldReader<T> reader) {
+            this.alias = alias;
+            this.operation = operation;
+            this.variables = variables;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the decoded value of this part.
+         *
+         * @return The value, or null if the response did not contain it.
+         */
+        @SuppressWarnings("unchecked")
+        public T get() {
+            return (T) value;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.spring.ibe.constants.Constants;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Gateway for every call to the upstream GraphQL endpoint. All services share
+ * its pooled HTTP client, timeouts and request headers.
+ */
+@Component
+@Slf4j
+public class GraphqlClient {
+
+    private static final String PERSISTED_QUERY_NOT_FOUND = "PersistedQueryNotFound";
+    private static final int PERSISTED_QUERY_ERROR_MAX_BYTES = 4096;
+    static final ObjectWriter REQUEST_WRITER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .writer();
+
+    private final String graphqlUrl;
+    private final String apiKey;
+    private final CloseableHttpClient httpClient;
+    private final GraphqlProperties properties;
+    private final GraphqlResilience resilience;
+    private final GraphqlMetrics metrics;
+    private final FanOutExecutor fanOutExecutor;
+    private final Map<String, RequestConfig> requestConfigs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ResponseEntity<byte[]>>> inFlightQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for GraphqlClient.
+     *
+     * @param graphqlUrl       The URL for the GraphQL endpoint.
+     * @param apiKey           The API key for accessing the GraphQL endpoint.
+     * @param pooledHttpClient   The pooled HTTP client.
+     * @param properties         The pool and timeout settings.
+     * @param resilience         The bulkheads, circuit breakers and hedging
+     *                           decisions.
+     * @param metrics            The per-operation call metrics.
+     * @param fanOutExecutor     The executor racing hedged requests.
+     */
+    public GraphqlClient(@Value("${app.graphql_url}") String graphqlUrl,
+            @Value("${app.graphql_api_key}") String apiKey, CloseableHttpClient pooledHttpClient,
+            GraphqlProperties properties, GraphqlResilience resilience, GraphqlMetrics metrics,
+            FanOutExecutor fanOutExecutor) {
+        this.graphqlUrl = graphqlUrl;
+        this.apiKey = apiKey;
+        this.httpClient = pooledHttpClient;
+        this.properties = properties;
+        this.resilience = resilience;
+        this.metrics = metrics;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    /**
+     * Executes an operation against the GraphQL endpoint.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached.
+     */
+    public ResponseEntity<String> execute(GraphqlOperation operation, Map<String, Object> variables) {
+        ResponseEntity<byte[]> responseEntity = executeForBytes(operation, variables);
+        byte[] body = responseEntity.getBody();
+        return ResponseEntity.status(responseEntity.getStatusCode())
+                .body(body == null ? null : new String(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Executes an operation against the GraphQL endpoint and returns the raw
+     * response bytes, for callers that decode the body with a streaming parser.
+     * Identical queries issued while one is already in flight wait for it and
+     * share its response instead of reaching the endpoint again. If the shared
+     * request is cancelled along with the task that sent it, the waiting callers
+     * send the query again rather than failing with it.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached.
+     */
+    public ResponseEntity<byte[]> executeForBytes(GraphqlOperation operation, Map<String, Object> variables) {
+        if (operation.isMutation() || !properties.isCoalesceQueries()) {
+            return send(operation, variables);
+        }
+        String key = coalescingKey(operation, variables);
+        while (true) {
+            CompletableFuture<ResponseEntity<byte[]>> flight = new CompletableFuture<>();
+            CompletableFuture<ResponseEntity<byte[]>> inFlight = inFlightQueries.putIfAbsent(key, flight);
+            if (inFlight != null) {
+                log.debug("Joining in-flight GraphQL request {}", operation.getName());
+                try {
+                    return await(inFlight);
+                } catch (CancellationException e) {
+                    log.debug("Shared GraphQL request {} was cancelled, sending it again", operation.getName());
+                    continue;
+                }
+            }
+            try {
+                ResponseEntity<byte[]> responseEntity = send(operation, variables);
+                flight.complete(responseEntity);
+                return responseEntity;
+            } catch (RuntimeException e) {
+                inFlightQueries.remove(key, flight);
+                if (isCancelled()) {
+                    flight.cancel(false);
+                } else {
+                    flight.completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                inFlightQueries.remove(key, flight);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the task running on this thread was cancelled.
+     *
+     * @return true if the task's cancellation scope is cancelled.
+     */
+    private static boolean isCancelled() {
+        CancellationScope scope = CancellationScope.current();
+        return scope != null && scope.isCancelled();
+    }
+
+    /**
+     * Builds the key under which identical queries are coalesced: the document
+     * hash plus the variables serialized with sorted keys. Merged batches of the
+     * same operations share a name, so the name alone does not identify the
+     * document.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The coalescing key.
+     * @throws FetchFailedException if the variables cannot be serialized.
+     */
+    private static String coalescingKey(GraphqlOperation operation, Map<String, Object> variables) {
+        try {
+            return operation.getSha256Hash() + REQUEST_WRITER.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize GraphQL request {}: {}", operation.getName(), e.getMessage());
+            throw new FetchFailedException("Failed to serialize the GraphQL request.");
+        }
+    }
+
+    /**
+     * Waits for a request running on another thread and shares its outcome.
+     *
+     * @param inFlight The in-flight request.
+     * @return The shared response.
+     * @throws FetchFailedException if the shared request failed or the wait was
+     *                              interrupted.
+     */
+    private static ResponseEntity<byte[]> await(CompletableFuture<ResponseEntity<byte[]>> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new FetchFailedException("Failed to reach the GraphQL endpoint.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException("Interrupted while waiting for the GraphQL endpoint.");
+        }
+    }
+
+    /**
+     * Sends an operation through its bulkhead and circuit breaker and records its
+     * latency, response size and outcome.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached.
+     */
+    private ResponseEntity<byte[]> send(GraphqlOperation operation, Map<String, Object> variables) {
+        GraphqlMetrics.Call call = metrics.start(operation.getName());
+        GraphqlResilience.Permit permit;
+        try {
+            permit = resilience.acquire(operation.getName(), properties.getResilience().getBulkheadWait());
+        } catch (RuntimeException e) {
+            call.rejected();
+            throw e;
+        }
+        try {
+            Duration hedgeDelay = resilience.hedgeDelay(operation);
+            ResponseEntity<byte[]> responseEntity = hedgeDelay != null ? sendHedged(operation, variables, hedgeDelay)
+                    : sendOnce(operation, variables);
+            if (responseEntity.getStatusCode().is5xxServerError()) {
+                permit.failure();
+            } else {
+                permit.success();
+            }
+            call.response(responseEntity.getStatusCode(), responseEntity.getBody());
+            return responseEntity;
+        } catch (RuntimeException e) {
+            if (isCancelled()) {
+                permit.abandon();
+                call.cancelled();
+            } else {
+                permit.failure();
+                call.failure();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Sends an operation and, if it has not answered within the hedge delay, sends
+     * it a second time. Both requests take the {@link #sendOnce} path. The first
+     * answer without a server error wins, with its own status, and the other
+     * request is aborted; if neither avoids an error, the later outcome is
+     * returned. Without a free request thread the operation is sent once.
+     *
+     * @param operation  The idempotent read operation to execute.
+     * @param variables  The variables for the operation.
+     * @param hedgeDelay How long to wait before sending the second request.
+     * @return The response of whichever request answered first.
+     * @throws FetchFailedException if both requests fail.
+     */
+    private ResponseEntity<byte[]> sendHedged(GraphqlOperation operation, Map<String, Object> variables,
+            Duration hedgeDelay) {
+        CompletableFuture<ResponseEntity<byte[]>> primary = fanOutExecutor.requestAsync(
+                () -> sendOnce(operation, variables));
+        if (primary == null) {
+            return sendOnce(operation, variables);
+        }
+        CompletableFuture<ResponseEntity<byte[]>> hedge = null;
+        try {
+            try {
+                primary.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.info("Hedging slow GraphQL request {} after {} ms", operation.getName(), hedgeDelay.toMillis());
+                hedge = fanOutExecutor.requestAsync(() -> sendOnce(operation, variables));
+            } catch (ExecutionException e) {
+                log.debug("GraphQL request {} failed before the hedge delay", operation.getName());
+            }
+            return await(hedge != null ? firstAnswer(primary, hedge) : primary);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchFailedException("Interrupted while waiting for the GraphQL endpoint.");
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Completes with the first response that is not a server error, or with the
+     * outcome of whichever request finishes last.
+     *
+     * @param primary The first request.
+     * @param hedge   The hedged request.
+     * @return The winning outcome.
+     */
+    private static CompletableFuture<ResponseEntity<byte[]>> firstAnswer(
+            CompletableFuture<ResponseEntity<byte[]>> primary, CompletableFuture<ResponseEntity<byte[]>> hedge) {
+        CompletableFuture<ResponseEntity<byte[]>> answer = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        BiConsumer<ResponseEntity<byte[]>, Throwable> onOutcome = (responseEntity, e) -> {
+            boolean last = pending.decrementAndGet() == 0;
+            if (e == null && !responseEntity.getStatusCode().is5xxServerError()) {
+                answer.complete(responseEntity);
+            } else if (last && e != null) {
+                answer.completeExceptionally(e);
+            } else if (last) {
+                answer.complete(responseEntity);
+            }
+        };
+        primary.whenComplete(onOutcome);
+        hedge.whenComplete(onOutcome);
+        return answer;
+    }
+
+    /**
+     * Sends an operation once, using its persisted-query hash when enabled.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached.
+     */
+    private ResponseEntity<byte[]> sendOnce(GraphqlOperation operation, Map<String, Object> variables) {
+        if (properties.isPersistedQueries()) {
+            ResponseEntity<byte[]> responseEntity = post(operation,
+                    GraphqlRequest.persisted(operation, variables, false));
+            if (!isPersistedQueryMiss(responseEntity.getBody())) {
+                return responseEntity;
+            }
+            log.info("Registering persisted query for {}", operation.getName());
+            return post(operation, GraphqlRequest.persisted(operation, variables, true));
+        }
+        return post(operation, GraphqlRequest.of(operation, variables));
+    }
+
+    /**
+     * Checks whether the endpoint rejected a persisted-query hash. Only small
+     * bodies are inspected since the rejection is a short error document.
+     *
+     * @param body The response body.
+     * @return true if the document has to be sent along with its hash.
+     */
+    private static boolean isPersistedQueryMiss(byte[] body) {
+        return body != null && body.length <= PERSISTED_QUERY_ERROR_MAX_BYTES
+                && new String(body, StandardCharsets.UTF_8).contains(PERSISTED_QUERY_NOT_FOUND);
+    }
+
+    /**
+     * Posts a request to the GraphQL endpoint. When the calling task is
+     * cancelled, the request is aborted rather than left blocked on the socket.
+     *
+     * @param operation The operation being executed, used to pick its timeouts.
+     * @param body      The request body.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached or the
+     *                              request was aborted.
+     */
+    private ResponseEntity<byte[]> post(GraphqlOperation operation, GraphqlRequest body) {
+        HttpPost request = new HttpPost(graphqlUrl);
+        request.setConfig(requestConfigs.computeIfAbsent(operation.getName(), this::createRequestConfig));
+        applyHeaders(request);
+        CancellationScope scope = CancellationScope.current();
+        if (scope != null) {
+            scope.register(request);
+        }
+        try {
+            request.setEntity(new ByteArrayEntity(REQUEST_WRITER.writeValueAsBytes(body),
+                    ContentType.APPLICATION_JSON));
+            return httpClient.execute(request, response -> ResponseEntity.status(response.getCode())
+                    .body(EntityUtils.toByteArray(response.getEntity())));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize GraphQL request {}: {}", operation.getName(), e.getMessage());
+            throw new FetchFailedException("Failed to serialize the GraphQL request.");
+        } catch (IOException e) {
+            if (request.isCancelled()) {
+                log.debug("GraphQL request {} was aborted", operation.getName());
+                throw new FetchFailedException("The GraphQL request was cancelled.");
+            }
+            log.error("GraphQL request {} failed: {}", operation.getName(), e.getMessage());
+            throw new FetchFailedException("Failed to reach the GraphQL endpoint.");
+        } finally {
+            if (scope != null) {
+                scope.unregister(request);
+            }
+        }
+    }
+
+    /**
+     * Adds the headers required by the GraphQL endpoint to a request.
+     *
+     * @param request The outgoing request.
+     */
+    private void applyHeaders(HttpPost request) {
+        request.setHeader(Constants.API_KEY_TITLE, apiKey);
+    }
+
+    /**
+     * Executes a batch of operations as one merged request. The caller decodes
+     * the body with {@link GraphqlBatch#decode(byte[])}.
+     *
+     * @param batch The batch to execute.
+     * @return The response with its status code and body.
+     * @throws FetchFailedException if the endpoint cannot be reached.
+     */
+    public ResponseEntity<byte[]> execute(GraphqlBatch batch) {
+        return executeForBytes(batch.toOperation(), batch.variables());
+    }
+
+    /**
+     * Builds the request config for an operation.
+     *
+     * @param operationName The operation name.
+     * @return The request config.
+     */
+    @SuppressWarnings("deprecation")
+    private RequestConfig createRequestConfig(String operationName) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setConnectTimeout(Timeout.of(properties.connectTimeoutFor(operationName)))
+                .setResponseTimeout(Timeout.of(properties.readTimeoutFor(operationName)))
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.spring.ibe.graphql;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thrown when a GraphQL response reports {@code errors}. It is an
+ * {@link IOException} so that callers treat it like any unreadable response.
+ */
+@Getter
+public class GraphqlErrorsException extends IOException {
+
+    /**
+     * The root fields or aliases the errors point at, or null if an error does
+     * not point at a field and the whole response is unusable.
+     */
+    private final transient Set<String> failedFields;
+
+    /**
+     * The values decoded from the fields under {@code data}, including failed
+     * ones.
+     */
+    private final transient Map<String, Object> values;
+
+    public GraphqlErrorsException(List<String> messages, Set<String> failedFields, Map<String, Object> values) {
+        super("GraphQL errors: " + String.join("; ", messages));
+        this.failedFields = failedFields;
+        this.values = values;
+    }
+}
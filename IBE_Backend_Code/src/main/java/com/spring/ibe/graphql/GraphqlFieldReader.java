@@ -0,0 +1,24 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Decodes the value of a single field under {@code data} in a GraphQL response.
+ *
+ * @param <T> The decoded type.
+ */
+@FunctionalInterface
+public interface GraphqlFieldReader<T> {
+
+    /**
+     * Reads the field value. The parser is positioned on the first token of the
+     * value and must be left on its last token.
+     *
+     * @param parser The parser positioned on the value.
+     * @return The decoded value.
+     * @throws IOException if the value cannot be read.
+     */
+    T read(JsonParser parser) throws IOException;
+}
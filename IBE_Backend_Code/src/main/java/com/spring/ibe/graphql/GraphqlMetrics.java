@@ -0,0 +1,151 @@
+package com.spring.ibe.graphql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of upstream GraphQL calls. Every meter is tagged
+ * with the operation name, i.e. the {@code GraphqlQuery} constant, or for a
+ * merged batch its sorted distinct part names, e.g.
+ * {@code batch:GET_ROOMS,GET_ROOM_RATES}, which keeps the tag values bounded.
+ */
+@Component
+public class GraphqlMetrics {
+
+    private static final String REQUESTS = "graphql.client.requests";
+    private static final String RESPONSE_SIZE = "graphql.client.response.size";
+    private static final String ERRORS = "graphql.client.errors";
+    private static final String IN_FLIGHT = "graphql.client.in.flight";
+
+    private static final String OPERATION_TAG = "operation";
+    private static final String OUTCOME_TAG = "outcome";
+
+    private static final String SUCCESS = "SUCCESS";
+    private static final String CLIENT_ERROR = "CLIENT_ERROR";
+    private static final String SERVER_ERROR = "SERVER_ERROR";
+    private static final String REJECTED = "REJECTED";
+    private static final String ERROR = "ERROR";
+    private static final String CANCELLED = "CANCELLED";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for GraphqlMetrics.
+     *
+     * @param registry The meter registry.
+     */
+    public GraphqlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts timing an upstream call. Every call must be completed with exactly
+     * one of its outcome methods.
+     *
+     * @param operationName The operation name.
+     * @return The running call.
+     */
+    public Call start(String operationName) {
+        AtomicInteger gauge = inFlight.computeIfAbsent(operationName,
+                name -> registry.gauge(IN_FLIGHT, Tags.of(OPERATION_TAG, name), new AtomicInteger()));
+        gauge.incrementAndGet();
+        return new Call(operationName, gauge, Timer.start(registry));
+    }
+
+    /**
+     * A running upstream call. Only the first completion is recorded.
+     */
+    public final class Call {
+        private final String operationName;
+        private final AtomicInteger gauge;
+        private final Timer.Sample sample;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Call(String operationName, AtomicInteger gauge, Timer.Sample sample) {
+            this.operationName = operationName;
+            this.gauge = gauge;
+            this.sample = sample;
+        }
+
+        /**
+         * Completes the call with a response, classified by its status code.
+         *
+         * @param status The response status.
+         * @param body   The response body, or null if there is none.
+         */
+        public void response(HttpStatusCode status, byte[] body) {
+            String outcome = status.is5xxServerError() ? SERVER_ERROR
+                    : status.isError() ? CLIENT_ERROR : SUCCESS;
+            complete(outcome, body);
+        }
+
+        /**
+         * Completes the call with a successful response.
+         *
+         * @param body The response body.
+         */
+        public void success(byte[] body) {
+            complete(SUCCESS, body);
+        }
+
+        /**
+         * Completes a call that was turned away by its circuit breaker or bulkhead.
+         */
+        public void rejected() {
+            complete(REJECTED, null);
+        }
+
+        /**
+         * Completes a call that failed without a usable response.
+         */
+        public void failure() {
+            complete(ERROR, null);
+        }
+
+        /**
+         * Completes a call that was cancelled before it answered.
+         */
+        public void cancelled() {
+            complete(CANCELLED, null);
+        }
+
+        private void complete(String outcome, byte[] body) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            gauge.decrementAndGet();
+            sample.stop(Timer.builder(REQUESTS)
+                    .description("Upstream GraphQL call latency")
+                    .tags(OPERATION_TAG, operationName, OUTCOME_TAG, outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            if (body != null) {
+                DistributionSummary.builder(RESPONSE_SIZE)
+                        .description("Upstream GraphQL response size")
+                        .baseUnit("bytes")
+                        .tag(OPERATION_TAG, operationName)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(body.length);
+            }
+            if (!SUCCESS.equals(outcome) && !CANCELLED.equals(outcome)) {
+                Counter.builder(ERRORS)
+                        .description("Failed upstream GraphQL calls")
+                        .tags(OPERATION_TAG, operationName, OUTCOME_TAG, outcome)
+                        .register(registry)
+                        .increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.spring.ibe.graphql;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A named, parameterized GraphQL document. The document never changes between
+ * calls; request specific values are sent as variables.
+ */
+@Getter
+public final class GraphqlOperation {
+
+    /**
+     * The name of the {@code GraphqlQuery} constant, used for timeouts and
+     * logging.
+     */
+    private final String name;
+
+    /**
+     * The GraphQL document.
+     */
+    private final String document;
+
+    /**
+     * The SHA-256 hash of the document, used for persisted queries.
+     */
+    private final String sha256Hash;
+
+    /**
+     * The first root field selected by the document.
+     */
+    private final String rootField;
+
+    public GraphqlOperation(String name, String document) {
+        this.name = name;
+        this.document = document;
+        this.sha256Hash = sha256(document);
+        this.rootField = rootField(document);
+    }
+
+    /**
+     * Checks whether the document is a mutation. Mutations are never coalesced.
+     *
+     * @return true if the document is a mutation.
+     */
+    public boolean isMutation() {
+        return document.startsWith("mutation");
+    }
+
+    private static String rootField(String document) {
+        int start = document.indexOf('{') + 1;
+        int end = start;
+        while (end < document.length() && (Character.isWhitespace(document.charAt(end))
+                || Character.isLetterOrDigit(document.charAt(end)) || document.charAt(end) == '_')) {
+            end++;
+        }
+        return document.substring(start, end).trim();
+    }
+
+    private static String sha256(String document) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(document.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,24 @@
+package com.spring.ibe.graphql;
+
+import java.util.Map;
+
+/**
+ * One page of a paginated list operation.
+ */
+public interface GraphqlPage {
+
+    /**
+     * Returns the number of rows in this page.
+     *
+     * @return The row count.
+     */
+    int getSize();
+
+    /**
+     * Returns the variables selecting the page after this one.
+     *
+     * @param variables The variables that selected this page.
+     * @return The variables for the next page.
+     */
+    Map<String, Object> nextPageVariables(Map<String, Object> variables);
+}
@@ -0,0 +1,145 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.exception.custom.FetchFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Walks paginated list operations page by page. Each page is handed to the
+ * caller as soon as it is decoded while the next one is already being fetched,
+ * so results are aggregated incrementally instead of being held in full.
+ */
+@Component
+@Slf4j
+public class GraphqlPager {
+
+    /**
+     * Variable holding the page size.
+     */
+    public static final String TAKE = "take";
+
+    /**
+     * Variable holding the last key of the previous page for keyset pagination.
+     */
+    public static final String AFTER = "after";
+
+    /**
+     * Variable holding the number of rows to skip for offset pagination.
+     */
+    public static final String SKIP = "skip";
+
+    private final GraphqlClient graphqlClient;
+    private final FanOutExecutor fanOutExecutor;
+    private final int pageSize;
+
+    /**
+     * Constructor for GraphqlPager.
+     *
+     * @param graphqlClient  The gateway for the GraphQL endpoint.
+     * @param fanOutExecutor The executor prefetching the next page.
+     * @param properties     The GraphQL settings holding the page size.
+     */
+    public GraphqlPager(GraphqlClient graphqlClient, FanOutExecutor fanOutExecutor, GraphqlProperties properties) {
+        this.graphqlClient = graphqlClient;
+        this.fanOutExecutor = fanOutExecutor;
+        this.pageSize = properties.getPageSize();
+    }
+
+    /**
+     * Returns the variables selecting the first page of a keyset-paginated
+     * operation.
+     *
+     * @param variables The operation variables without paging.
+     * @return The variables for the first page.
+     */
+    public Map<String, Object> firstKeysetPage(Map<String, Object> variables) {
+        return withPaging(variables, AFTER, 0);
+    }
+
+    /**
+     * Returns the variables selecting the first page of an offset-paginated
+     * operation.
+     *
+     * @param variables The operation variables without paging.
+     * @return The variables for the first page.
+     */
+    public Map<String, Object> firstOffsetPage(Map<String, Object> variables) {
+        return withPaging(variables, SKIP, 0);
+    }
+
+    /**
+     * Hands every page of an operation to a consumer, in order. The next page is
+     * requested in the background as soon as the current one is decoded, so it
+     * is in flight while the consumer runs, and cancelled if the consumer fails.
+     * Every page takes the same path through {@link GraphqlClient}, with the same
+     * bulkhead wait; when no request thread is free, the next page is fetched
+     * after the consumer returns. A page shorter than the page size is the last
+     * one.
+     *
+     * @param operation The paginated operation.
+     * @param variables The variables selecting the first page.
+     * @param reader    The reader for a page.
+     * @param firstPage The first page if it was already fetched, e.g. as part of
+     *                  a batch, or null to fetch it here.
+     * @param consumer  The consumer of each page.
+     * @param <P>       The page type.
+     * @throws FetchFailedException if a page cannot be fetched.
+     */
+    public <P extends GraphqlPage> void forEachPage(GraphqlOperation operation, Map<String, Object> variables,
+            GraphqlFieldReader<P> reader, P firstPage, Consumer<P> consumer) {
+        Map<String, Object> pageVariables = variables;
+        P page = firstPage != null ? firstPage : fetch(operation, pageVariables, reader);
+        while (page != null) {
+            Map<String, Object> nextVariables = null;
+            CompletableFuture<P> nextPage = null;
+            if (page.getSize() >= (Integer) pageVariables.get(TAKE)) {
+                Map<String, Object> prefetchVariables = page.nextPageVariables(pageVariables);
+                nextVariables = prefetchVariables;
+                nextPage = fanOutExecutor.requestAsync(() -> fetch(operation, prefetchVariables, reader));
+            }
+            try {
+                consumer.accept(page);
+            } catch (RuntimeException e) {
+                if (nextPage != null) {
+                    nextPage.cancel(true);
+                }
+                throw e;
+            }
+            if (nextVariables == null) {
+                return;
+            }
+            page = nextPage != null ? GraphqlAsyncClient.await(nextPage) : fetch(operation, nextVariables, reader);
+            pageVariables = nextVariables;
+        }
+    }
+
+    private Map<String, Object> withPaging(Map<String, Object> variables, String cursor, int value) {
+        Map<String, Object> pageVariables = new HashMap<>(variables);
+        pageVariables.put(cursor, value);
+        pageVariables.put(TAKE, pageSize);
+        return pageVariables;
+    }
+
+    private <P> P fetch(GraphqlOperation operation, Map<String, Object> variables, GraphqlFieldReader<P> reader) {
+        ResponseEntity<byte[]> responseEntity = graphqlClient.executeForBytes(operation, variables);
+        if (responseEntity.getStatusCode() != HttpStatus.OK) {
+            log.error("Failed to fetch a page of {}. Status code: {}", operation.getName(),
+                    responseEntity.getStatusCode());
+            throw new FetchFailedException("Failed to fetch a page of results. Please check the API again.");
+        }
+        try {
+            return GraphqlResponses.readField(responseEntity.getBody(), operation.getRootField(), reader);
+        } catch (IOException e) {
+            log.error("Failed to parse a page of {}.", operation.getName(), e);
+            throw new FetchFailedException("Failed to parse a page of results.");
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.spring.ibe.graphql;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Connection pool and timeout settings for the upstream GraphQL endpoint.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.graphql")
+public class GraphqlProperties {
+
+    /**
+     * Maximum number of pooled connections across all routes.
+     */
+    private int maxConnections = 100;
+
+    /**
+     * Maximum number of pooled connections to a single host.
+     */
+    private int maxConnectionsPerRoute = 50;
+
+    /**
+     * Maximum time to wait for a free connection from the pool.
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Default time to establish a TCP/TLS connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Default time to wait for a response once the request is sent.
+     */
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long an idle pooled connection is kept alive.
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * Maximum lifetime of a pooled connection.
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Send persisted-query hashes instead of full documents. The document is sent
+     * once when the endpoint reports the hash as unknown.
+     */
+    private boolean persistedQueries = false;
+
+    /**
+     * Share one upstream call among identical queries that are in flight at the
+     * same time. Mutations are always sent individually.
+     */
+    private boolean coalesceQueries = true;
+
+    /**
+     * Number of rows requested per page from paginated list operations.
+     */
+    private int pageSize = 1000;
+
+    /**
+     * Per-operation overrides keyed by the {@code GraphqlQuery} constant name.
+     */
+    private Map<String, Timeouts> operations = new HashMap<>();
+
+    /**
+     * Bulkhead, circuit breaker and hedging settings.
+     */
+    private Resilience resilience = new Resilience();
+
+    /**
+     * Settings of the shared executor for concurrent upstream work.
+     */
+    private FanOut fanOut = new FanOut();
+
+    /**
+     * Resolves the connect timeout of an operation. A merged batch gets the
+     * longest timeout among its parts.
+     *
+     * @param operationName The operation name.
+     * @return The connect timeout.
+     */
+    public Duration connectTimeoutFor(String operationName) {
+        return resolve(operationName, connectTimeout, Timeouts::getConnectTimeout);
+    }
+
+    /**
+     * Resolves the read timeout of an operation. A merged batch gets the longest
+     * timeout among its parts.
+     *
+     * @param operationName The operation name.
+     * @return The read timeout.
+     */
+    public Duration readTimeoutFor(String operationName) {
+        return resolve(operationName, readTimeout, Timeouts::getReadTimeout);
+    }
+
+    private Duration resolve(String operationName, Duration fallback, Function<Timeouts, Duration> override) {
+        Duration longest = Duration.ZERO;
+        for (String name : GraphqlBatch.partNames(operationName)) {
+            Timeouts timeouts = operations.get(name);
+            Duration timeout = timeouts != null && override.apply(timeouts) != null ? override.apply(timeouts)
+                    : fallback;
+            if (timeout.compareTo(longest) > 0) {
+                longest = timeout;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Timeout overrides for a single operation. Unset values fall back to the
+     * defaults above.
+     */
+    @Data
+    public static class Timeouts {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+    }
+
+    /**
+     * Bulkhead, circuit breaker and hedging settings, applied per operation.
+     */
+    @Data
+    public static class Resilience {
+
+        /**
+         * Maximum number of concurrent calls of a single operation.
+         */
+        private int maxConcurrentCalls = 50;
+
+        /**
+         * Maximum time a blocking caller waits for a free bulkhead slot.
+         */
+        private Duration bulkheadWait = Duration.ofSeconds(1);
+
+        /**
+         * Number of recent calls the circuit breaker looks at.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Minimum number of recorded calls before the circuit breaker may open.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Failure percentage at which the circuit breaker opens.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * How long an open circuit breaker rejects calls before letting a trial
+         * call through.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * Idempotent read operations that are sent a second time when the first
+         * attempt is slower than usual.
+         */
+        private Set<String> hedgedOperations = new HashSet<>();
+
+        /**
+         * Latency percentile of recent calls after which a hedged request is sent.
+         */
+        private double hedgePercentile = 0.95;
+
+        /**
+         * Lower bound for the hedge delay.
+         */
+        private Duration hedgeMinDelay = Duration.ofMillis(50);
+    }
+
+    /**
+     * Settings of the shared executor that runs blocking upstream work in the
+     * background and of the waits on concurrent calls.
+     */
+    @Data
+    public static class FanOut {
+
+        /**
+         * Number of threads of the shared executor.
+         */
+        private int threads = 8;
+
+        /**
+         * Number of tasks that may wait for a thread before new tasks are
+         * rejected.
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * Number of threads sending single requests ahead of time, such as
+         * prefetched pages and hedged attempts. These requests are never queued.
+         */
+        private int requestThreads = 16;
+
+        /**
+         * Maximum time a request waits for its concurrent calls. Calls still
+         * running then are cancelled.
+         */
+        private Duration deadline = Duration.ofSeconds(20);
+    }
+}
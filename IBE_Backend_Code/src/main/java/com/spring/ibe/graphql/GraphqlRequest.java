@@ -0,0 +1,48 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Request body sent to the GraphQL endpoint.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GraphqlRequest {
+    private String query;
+    private Map<String, Object> variables;
+    private Map<String, Object> extensions;
+
+    /**
+     * Creates a request carrying the full document.
+     *
+     * @param operation The operation to execute.
+     * @param variables The variables for the operation.
+     * @return The request body.
+     */
+    public static GraphqlRequest of(GraphqlOperation operation, Map<String, Object> variables) {
+        return new GraphqlRequest(operation.getDocument(), variables, null);
+    }
+
+    /**
+     * Creates a persisted-query request. When {@code includeDocument} is false
+     * only the document hash is sent.
+     *
+     * @param operation       The operation to execute.
+     * @param variables       The variables for the operation.
+     * @param includeDocument Whether to send the document along with its hash.
+     * @return The request body.
+     */
+    public static GraphqlRequest persisted(GraphqlOperation operation, Map<String, Object> variables,
+            boolean includeDocument) {
+        Map<String, Object> persistedQuery = Map.of("version", 1, "sha256Hash", operation.getSha256Hash());
+        return new GraphqlRequest(includeDocument ? operation.getDocument() : null, variables,
+                Map.of("persistedQuery", persistedQuery));
+    }
+}
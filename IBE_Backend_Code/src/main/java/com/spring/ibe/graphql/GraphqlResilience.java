@@ -0,0 +1,148 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.exception.custom.FetchFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-operation bulkheads, circuit breakers and hedging decisions shared by the
+ * blocking and the non-blocking GraphQL gateways. A slow or failing upstream
+ * operation can then only tie up a bounded number of callers, and once it keeps
+ * failing callers are turned away immediately instead of waiting on it.
+ */
+@Component
+@Slf4j
+public class GraphqlResilience {
+
+    private final GraphqlProperties.Resilience settings;
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for GraphqlResilience.
+     *
+     * @param properties The GraphQL settings.
+     */
+    public GraphqlResilience(GraphqlProperties properties) {
+        this.settings = properties.getResilience();
+    }
+
+    /**
+     * Acquires a permit to call an operation. Every permit must be completed with
+     * exactly one of its outcome methods.
+     *
+     * @param operationName The operation name.
+     * @param wait          How long to wait for a free bulkhead slot; zero fails
+     *                      immediately when the bulkhead is full.
+     * @return The permit.
+     * @throws FetchFailedException if the circuit is open or the bulkhead is full.
+     */
+    public Permit acquire(String operationName, Duration wait) {
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(operationName,
+                name -> new CircuitBreaker(settings));
+        if (!circuitBreaker.tryAcquire()) {
+            log.warn("Circuit open for GraphQL operation {}, failing fast.", operationName);
+            throw new FetchFailedException("The GraphQL endpoint is unavailable. Please try again later.");
+        }
+        Semaphore bulkhead = bulkheads.computeIfAbsent(operationName,
+                name -> new Semaphore(settings.getMaxConcurrentCalls()));
+        boolean acquired;
+        try {
+            acquired = wait.isZero() ? bulkhead.tryAcquire()
+                    : bulkhead.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            circuitBreaker.onIgnored();
+            log.warn("Bulkhead full for GraphQL operation {}, rejecting call.", operationName);
+            throw new FetchFailedException("Too many concurrent requests to the GraphQL endpoint. Please try again.");
+        }
+        return new Permit(operationName, bulkhead, circuitBreaker);
+    }
+
+    /**
+     * Returns how long to wait for an operation before sending a hedged request.
+     * Only read operations listed as hedged qualify; a merged batch qualifies when
+     * all of its parts do.
+     *
+     * @param operation The operation.
+     * @return The hedge delay, or null if the operation should not be hedged.
+     */
+    public Duration hedgeDelay(GraphqlOperation operation) {
+        if (operation.isMutation()) {
+            return null;
+        }
+        for (String name : GraphqlBatch.partNames(operation.getName())) {
+            if (!settings.getHedgedOperations().contains(name)) {
+                return null;
+            }
+        }
+        LatencyTracker tracker = latencies.get(operation.getName());
+        long percentileNanos = tracker == null ? -1 : tracker.percentileNanos();
+        if (percentileNanos < 0) {
+            return null;
+        }
+        Duration delay = Duration.ofNanos(percentileNanos);
+        return delay.compareTo(settings.getHedgeMinDelay()) > 0 ? delay : settings.getHedgeMinDelay();
+    }
+
+    /**
+     * A granted call slot. Completing it releases the bulkhead slot and reports
+     * the outcome to the circuit breaker; only the first completion counts.
+     */
+    public final class Permit {
+        private final String operationName;
+        private final Semaphore bulkhead;
+        private final CircuitBreaker circuitBreaker;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(String operationName, Semaphore bulkhead, CircuitBreaker circuitBreaker) {
+            this.operationName = operationName;
+            this.bulkhead = bulkhead;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        /**
+         * Completes the call as successful and records its latency.
+         */
+        public void success() {
+            if (completed.compareAndSet(false, true)) {
+                latencies.computeIfAbsent(operationName, name -> new LatencyTracker(settings.getHedgePercentile()))
+                        .record(System.nanoTime() - startNanos);
+                circuitBreaker.onSuccess();
+                bulkhead.release();
+            }
+        }
+
+        /**
+         * Completes the call as failed.
+         */
+        public void failure() {
+            if (completed.compareAndSet(false, true)) {
+                circuitBreaker.onFailure();
+                bulkhead.release();
+            }
+        }
+
+        /**
+         * Completes a call that ended without an outcome, e.g. when cancelled.
+         */
+        public void abandon() {
+            if (completed.compareAndSet(false, true)) {
+                circuitBreaker.onIgnored();
+                bulkhead.release();
+            }
+        }
+    }
+}
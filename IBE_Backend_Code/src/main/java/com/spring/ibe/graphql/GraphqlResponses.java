@@ -0,0 +1,170 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for decoding GraphQL responses with a streaming parser instead of a
+ * {@code JsonNode} tree.
+ */
+public final class GraphqlResponses {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    private GraphqlResponses() {
+    }
+
+    /**
+     * Streams a response body and decodes the value of {@code data.<field>}.
+     * Everything else in the body is skipped without being materialized.
+     *
+     * @param body   The response body.
+     * @param field  The name of the root field under {@code data}.
+     * @param reader The reader for the field value.
+     * @param <T>    The decoded type.
+     * @return The decoded value, or null if the field is absent.
+     * @throws IOException if the body is not valid JSON or reports errors.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T readField(byte[] body, String field, GraphqlFieldReader<T> reader) throws IOException {
+        return (T) readFields(body, Map.of(field, reader)).get(field);
+    }
+
+    /**
+     * Streams a response body and decodes several fields under {@code data} in a
+     * single pass. Fields without a reader are skipped. A response reporting
+     * {@code errors} fails even if it also holds data, since the data of a
+     * failed field is null or incomplete.
+     *
+     * @param body    The response body.
+     * @param readers The readers keyed by root field name or alias.
+     * @return The decoded values keyed like the readers; absent fields are
+     *         missing from the map.
+     * @throws GraphqlErrorsException if the response reports errors.
+     * @throws IOException            if the body is not valid JSON.
+     */
+    public static Map<String, Object> readFields(byte[] body, Map<String, GraphqlFieldReader<?>> readers)
+            throws IOException {
+        Map<String, Object> values = new HashMap<>();
+        if (body == null) {
+            return values;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return values;
+            }
+            List<String> errors = new ArrayList<>();
+            Set<String> failedFields = new HashSet<>();
+            boolean fieldErrorsOnly = true;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("errors".equals(name) && token == JsonToken.START_ARRAY) {
+                    for (JsonNode error : OBJECT_MAPPER.readTree(parser)) {
+                        errors.add(error.path("message").asText());
+                        JsonNode path = error.path("path");
+                        if (path.isArray() && path.size() > 0) {
+                            failedFields.add(path.get(0).asText());
+                        } else {
+                            fieldErrorsOnly = false;
+                        }
+                    }
+                    continue;
+                }
+                if (!"data".equals(name) || token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    GraphqlFieldReader<?> reader = readers.get(field);
+                    parser.nextToken();
+                    if (reader != null) {
+                        values.put(field, reader.read(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new GraphqlErrorsException(errors, fieldErrorsOnly ? failedFields : null, values);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Reads the current value as a tree, for small responses where streaming
+     * gains nothing.
+     *
+     * @param parser The parser positioned on the value.
+     * @return The value as a tree.
+     * @throws IOException if the value cannot be read.
+     */
+    public static JsonNode readTree(JsonParser parser) throws IOException {
+        JsonNode node = OBJECT_MAPPER.readTree(parser);
+        return node != null ? node : MissingNode.getInstance();
+    }
+
+    /**
+     * Reads the current value as an epoch day. Accepts {@code yyyy-MM-dd} and
+     * AWSDateTime values, of which only the date part is used.
+     *
+     * @param parser The parser positioned on the value.
+     * @return The epoch day, or 0 if the value is not a date.
+     * @throws JsonParseException if the value is a string but not a valid date.
+     * @throws IOException        if the value cannot be read.
+     */
+    public static int readEpochDay(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() < 10) {
+            parser.skipChildren();
+            return 0;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            throw new JsonParseException(parser, "Invalid date: " + parser.getText());
+        }
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            throw new JsonParseException(parser, "Invalid date: " + parser.getText(), e);
+        }
+    }
+
+    /**
+     * Parses a run of decimal digits.
+     *
+     * @return The value, or -1 if a character is not a digit.
+     */
+    private static int digits(char[] text, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
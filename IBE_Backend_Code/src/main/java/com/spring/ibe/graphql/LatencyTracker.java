@@ -0,0 +1,57 @@
+package com.spring.ibe.graphql;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent successful calls of one operation and
+ * answers percentile queries over them.
+ */
+final class LatencyTracker {
+
+    private static final int CAPACITY = 256;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    /**
+     * Number of samples required before a percentile is reported.
+     */
+    static final int MINIMUM_SAMPLES = 20;
+
+    private final long[] samples = new long[CAPACITY];
+    private final double percentile;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private long percentileNanos = -1;
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY) {
+            count++;
+        }
+        sinceRecompute++;
+    }
+
+    /**
+     * Returns the configured latency percentile of the recent calls, recomputed
+     * every few samples.
+     *
+     * @return The percentile in nanoseconds, or -1 while there are too few samples.
+     */
+    synchronized long percentileNanos() {
+        if (count < MINIMUM_SAMPLES) {
+            return -1;
+        }
+        if (percentileNanos < 0 || sinceRecompute >= RECOMPUTE_INTERVAL) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            percentileNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            sinceRecompute = 0;
+        }
+        return percentileNanos;
+    }
+}
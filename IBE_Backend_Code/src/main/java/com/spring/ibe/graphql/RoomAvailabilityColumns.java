@@ -0,0 +1,134 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Room availabilities stored column by column. Row {@code i} is the night
+ * {@code epochDay[i]} of room {@code roomId[i]}, whose room type is
+ * {@code roomTypeId[i]}. {@code roomTypeId} and {@code bookingId} stay 0
+ * unless the operation selects them. The arrays may
+ * be longer than {@code size}; only the first {@code size} entries are rows.
+ * Rows are ordered by {@code availabilityId}, which is the key for the next
+ * page.
+ */
+@Getter
+public final class RoomAvailabilityColumns implements GraphqlPage {
+
+    /**
+     * The root field holding the availabilities in the response.
+     */
+    public static final String FIELD = "listRoomAvailabilities";
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int size;
+    private final int[] availabilityId;
+    private final int[] roomId;
+    private final int[] epochDay;
+    private final int[] roomTypeId;
+    private final int[] bookingId;
+
+    private RoomAvailabilityColumns(int size, int[] availabilityId, int[] roomId, int[] epochDay, int[] roomTypeId,
+            int[] bookingId) {
+        this.size = size;
+        this.availabilityId = availabilityId;
+        this.roomId = roomId;
+        this.epochDay = epochDay;
+        this.roomTypeId = roomTypeId;
+        this.bookingId = bookingId;
+    }
+
+    /**
+     * Decodes a {@code listRoomAvailabilities} response body.
+     *
+     * @param body The response body.
+     * @return The decoded columns, empty if the response has no data.
+     * @throws IOException if the body cannot be parsed.
+     */
+    public static RoomAvailabilityColumns decode(byte[] body) throws IOException {
+        RoomAvailabilityColumns columns = GraphqlResponses.readField(body, FIELD, RoomAvailabilityColumns::read);
+        return columns != null ? columns : empty();
+    }
+
+    /**
+     * Returns columns without any rows.
+     *
+     * @return The empty columns.
+     */
+    public static RoomAvailabilityColumns empty() {
+        return new RoomAvailabilityColumns(0, new int[0], new int[0], new int[0], new int[0], new int[0]);
+    }
+
+    /**
+     * Reads a {@code listRoomAvailabilities} array from a parser positioned on it.
+     * The room ID may be selected directly or through the {@code room} relation.
+     *
+     * @param parser The parser positioned on the array.
+     * @return The decoded columns.
+     * @throws IOException if the value cannot be read.
+     */
+    public static RoomAvailabilityColumns read(JsonParser parser) throws IOException {
+        int[] availabilityIds = new int[INITIAL_CAPACITY];
+        int[] roomIds = new int[INITIAL_CAPACITY];
+        int[] epochDays = new int[INITIAL_CAPACITY];
+        int[] roomTypeIds = new int[INITIAL_CAPACITY];
+        int[] bookingIds = new int[INITIAL_CAPACITY];
+        int size = 0;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        } else {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (size == roomIds.length) {
+                    availabilityIds = Arrays.copyOf(availabilityIds, size * 2);
+                    roomIds = Arrays.copyOf(roomIds, size * 2);
+                    epochDays = Arrays.copyOf(epochDays, size * 2);
+                    roomTypeIds = Arrays.copyOf(roomTypeIds, size * 2);
+                    bookingIds = Arrays.copyOf(bookingIds, size * 2);
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    if ("availability_id".equals(field)) {
+                        availabilityIds[size] = parser.getValueAsInt();
+                    } else if ("room_id".equals(field)) {
+                        roomIds[size] = parser.getValueAsInt();
+                    } else if ("date".equals(field)) {
+                        epochDays[size] = GraphqlResponses.readEpochDay(parser);
+                    } else if ("booking_id".equals(field)) {
+                        bookingIds[size] = parser.getValueAsInt();
+                    } else if ("room".equals(field) && token == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String roomField = parser.currentName();
+                            parser.nextToken();
+                            if ("room_id".equals(roomField)) {
+                                roomIds[size] = parser.getValueAsInt();
+                            } else if ("room_type_id".equals(roomField)) {
+                                roomTypeIds[size] = parser.getValueAsInt();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                size++;
+            }
+        }
+        return new RoomAvailabilityColumns(size, availabilityIds, roomIds, epochDays, roomTypeIds, bookingIds);
+    }
+
+    @Override
+    public Map<String, Object> nextPageVariables(Map<String, Object> variables) {
+        Map<String, Object> nextVariables = new HashMap<>(variables);
+        nextVariables.put(GraphqlPager.AFTER, size == 0 ? variables.get(GraphqlPager.AFTER) : availabilityId[size - 1]);
+        return nextVariables;
+    }
+}
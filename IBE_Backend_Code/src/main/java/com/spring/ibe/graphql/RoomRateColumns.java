@@ -0,0 +1,116 @@
+package com.spring.ibe.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Room rates stored column by column. Row {@code i} is the nightly rate
+ * {@code rate[i]} on {@code epochDay[i]} for the room type
+ * {@code roomTypeId[i]}. The arrays may be longer than
+ * {@code size}; only the first {@code size} entries are rows.
+ */
+@Getter
+public final class RoomRateColumns implements GraphqlPage {
+
+    /**
+     * The root field holding the rates in the response.
+     */
+    public static final String FIELD = "listRoomRateRoomTypeMappings";
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int size;
+    private final int[] rate;
+    private final int[] epochDay;
+    private final int[] roomTypeId;
+
+    private RoomRateColumns(int size, int[] rate, int[] epochDay, int[] roomTypeId) {
+        this.size = size;
+        this.rate = rate;
+        this.epochDay = epochDay;
+        this.roomTypeId = roomTypeId;
+    }
+
+    /**
+     * Decodes a {@code listRoomRateRoomTypeMappings} response body.
+     *
+     * @param body The response body.
+     * @return The decoded columns, empty if the response has no data.
+     * @throws IOException if the body cannot be parsed.
+     */
+    public static RoomRateColumns decode(byte[] body) throws IOException {
+        RoomRateColumns columns = GraphqlResponses.readField(body, FIELD, RoomRateColumns::read);
+        return columns != null ? columns : empty();
+    }
+
+    /**
+     * Returns columns without any rows.
+     *
+     * @return The empty columns.
+     */
+    public static RoomRateColumns empty() {
+        return new RoomRateColumns(0, new int[0], new int[0], new int[0]);
+    }
+
+    /**
+     * Reads a {@code listRoomRateRoomTypeMappings} array from a parser positioned
+     * on it.
+     *
+     * @param parser The parser positioned on the array.
+     * @return The decoded columns.
+     * @throws IOException if the value cannot be read.
+     */
+    public static RoomRateColumns read(JsonParser parser) throws IOException {
+        int[] rates = new int[INITIAL_CAPACITY];
+        int[] epochDays = new int[INITIAL_CAPACITY];
+        int[] roomTypeIds = new int[INITIAL_CAPACITY];
+        int size = 0;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        } else {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (size == rates.length) {
+                    rates = Arrays.copyOf(rates, size * 2);
+                    epochDays = Arrays.copyOf(epochDays, size * 2);
+                    roomTypeIds = Arrays.copyOf(roomTypeIds, size * 2);
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    if ("room_rate".equals(field) && token == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String rateField = parser.currentName();
+                            parser.nextToken();
+                            if ("basic_nightly_rate".equals(rateField)) {
+                                rates[size] = parser.getValueAsInt();
+                            } else if ("date".equals(rateField)) {
+                                epochDays[size] = GraphqlResponses.readEpochDay(parser);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else if ("room_type_id".equals(field)) {
+                        roomTypeIds[size] = parser.getValueAsInt();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                size++;
+            }
+        }
+        return new RoomRateColumns(size, rates, epochDays, roomTypeIds);
+    }
+
+    @Override
+    public Map<String, Object> nextPageVariables(Map<String, Object> variables) {
+        Map<String, Object> nextVariables = new HashMap<>(variables);
+        nextVariables.put(GraphqlPager.SKIP, (Integer) variables.get(GraphqlPager.SKIP) + size);
+        return nextVariables;
+    }
+}
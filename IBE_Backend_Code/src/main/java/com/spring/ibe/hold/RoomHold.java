@@ -0,0 +1,49 @@
+package com.spring.ibe.hold;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rooms of one room type held for a stay while they are being booked. The
+ * stay runs from the start date up to, but not including, the end date.
+ */
+@Getter
+public final class RoomHold {
+    private final String id = UUID.randomUUID().toString();
+    private final long propertyId;
+    private final long roomTypeId;
+    private final List<Integer> roomIds;
+    private final long startDay;
+    private final long endDay;
+    @Getter(AccessLevel.NONE)
+    private final long expiresAt;
+
+    RoomHold(long propertyId, long roomTypeId, List<Integer> roomIds, LocalDate startDate, LocalDate endDate,
+            long expiresAt) {
+        this.propertyId = propertyId;
+        this.roomTypeId = roomTypeId;
+        this.roomIds = List.copyOf(roomIds);
+        this.startDay = startDate.toEpochDay();
+        this.endDay = endDate.toEpochDay();
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Checks whether the hold covers a night of a stay.
+     *
+     * @param startDay The first night of the stay, as an epoch day.
+     * @param endDay   The day after the last night of the stay, as an epoch day.
+     * @return true if the stays share a night.
+     */
+    boolean overlaps(long startDay, long endDay) {
+        return this.startDay < endDay && startDay < this.endDay;
+    }
+
+    boolean isExpired(long now) {
+        return now - expiresAt >= 0;
+    }
+}
@@ -0,0 +1,235 @@
+package com.spring.ibe.hold;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grants rooms of a room type for a stay while they are being booked, so that
+ * two bookings never pick the same room for overlapping nights. All rooms of a
+ * request are granted together or not at all.
+ * <p>
+ * The holds of each room type live in memory behind one of a fixed set of
+ * locks, chosen by property and room type, so requests for different room
+ * types rarely wait on each other and a conflict within this instance costs a
+ * lookup rather than a failed insert. That check is only a fast path: a hold
+ * is granted once its nights are also reserved in the database through
+ * {@link RoomReservations}, which settles conflicts between instances.
+ * Candidates the database already reserves, including rooms of bookings whose
+ * upstream update is still in the outbox, are skipped up front. Holds
+ * that are not released expire after the configured time, and expired holds
+ * are swept periodically.
+ */
+@Component
+@Slf4j
+public class RoomHoldEngine {
+
+    private final Stripe[] stripes;
+    private final long ttlNanos;
+    private final RoomReservations roomReservations;
+
+    /**
+     * Constructor for RoomHoldEngine.
+     *
+     * @param properties       The hold settings.
+     * @param roomReservations The database reservations backing the holds.
+     */
+    public RoomHoldEngine(RoomHoldProperties properties, RoomReservations roomReservations) {
+        int stripeCount = Integer.highestOneBit(Math.max(properties.getStripes(), 1) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.roomReservations = roomReservations;
+    }
+
+    /**
+     * Holds a number of rooms of a room type for a stay, taking the first
+     * candidates that no other hold or reservation covers for any night of the
+     * stay, and reserves their nights in the database.
+     *
+     * @param propertyId       The property ID.
+     * @param roomTypeId       The room type ID.
+     * @param candidateRoomIds The rooms to pick from, in order of preference.
+     * @param startDate        The check-in date.
+     * @param endDate          The check-out date.
+     * @param roomCount        The number of rooms to hold.
+     * @return The hold, or null if fewer candidates than requested are free or
+     *         the database already reserved one of their nights.
+     */
+    public RoomHold hold(long propertyId, long roomTypeId, List<Integer> candidateRoomIds, LocalDate startDate,
+            LocalDate endDate, int roomCount) {
+        Set<Integer> reservedRoomIds = roomReservations.reservedRoomIds(propertyId, candidateRoomIds,
+                startDate.toEpochDay(), endDate.toEpochDay());
+        List<Integer> freeRoomIds = candidateRoomIds;
+        if (!reservedRoomIds.isEmpty()) {
+            freeRoomIds = new ArrayList<>(candidateRoomIds);
+            freeRoomIds.removeAll(reservedRoomIds);
+        }
+        RoomHold hold = holdInMemory(propertyId, roomTypeId, freeRoomIds, startDate, endDate, roomCount);
+        if (hold == null) {
+            return null;
+        }
+        boolean reserved = false;
+        try {
+            reserved = roomReservations.reserve(hold);
+        } finally {
+            if (!reserved) {
+                releaseInMemory(hold);
+            }
+        }
+        return reserved ? hold : null;
+    }
+
+    private RoomHold holdInMemory(long propertyId, long roomTypeId, List<Integer> candidateRoomIds,
+            LocalDate startDate, LocalDate endDate, int roomCount) {
+        long startDay = startDate.toEpochDay();
+        long endDay = endDate.toEpochDay();
+        RoomTypeKey key = new RoomTypeKey(propertyId, roomTypeId);
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            long now = System.nanoTime();
+            Map<Integer, List<RoomHold>> roomHolds = stripe.holds.computeIfAbsent(key, k -> new HashMap<>());
+            List<Integer> roomIds = new ArrayList<>(roomCount);
+            for (Integer roomId : candidateRoomIds) {
+                if (roomIds.size() >= roomCount) {
+                    break;
+                }
+                if (!roomIds.contains(roomId) && isFree(roomHolds, roomId, startDay, endDay, now)) {
+                    roomIds.add(roomId);
+                }
+            }
+            if (roomIds.size() < roomCount) {
+                if (roomHolds.isEmpty()) {
+                    stripe.holds.remove(key);
+                }
+                log.info("Only {} of {} rooms of room type {} can be held", roomIds.size(), roomCount, roomTypeId);
+                return null;
+            }
+            RoomHold hold = new RoomHold(propertyId, roomTypeId, roomIds, startDate, endDate, now + ttlNanos);
+            for (Integer roomId : roomIds) {
+                roomHolds.computeIfAbsent(roomId, id -> new ArrayList<>(2)).add(hold);
+            }
+            log.info("Held rooms {} of room type {}", roomIds, roomTypeId);
+            return hold;
+        }
+    }
+
+    /**
+     * Releases a hold and its database reservations. Releasing a hold twice, or
+     * after it expired, does nothing.
+     *
+     * @param hold The hold.
+     */
+    public void release(RoomHold hold) {
+        releaseInMemory(hold);
+        try {
+            roomReservations.release(hold);
+        } catch (RuntimeException e) {
+            log.error("Failed to release the reservations of rooms {}; they lapse after the hold time: {}",
+                    hold.getRoomIds(), e.getMessage());
+        }
+        log.info("Released rooms {} of room type {}", hold.getRoomIds(), hold.getRoomTypeId());
+    }
+
+    private void releaseInMemory(RoomHold hold) {
+        RoomTypeKey key = new RoomTypeKey(hold.getPropertyId(), hold.getRoomTypeId());
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Map<Integer, List<RoomHold>> roomHolds = stripe.holds.get(key);
+            if (roomHolds == null) {
+                return;
+            }
+            for (Integer roomId : hold.getRoomIds()) {
+                List<RoomHold> holds = roomHolds.get(roomId);
+                if (holds != null && holds.remove(hold) && holds.isEmpty()) {
+                    roomHolds.remove(roomId);
+                }
+            }
+            if (roomHolds.isEmpty()) {
+                stripe.holds.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops expired holds, so that rooms nobody asks for again do not keep them
+     * in memory.
+     */
+    @Scheduled(fixedDelayString = "${app.room_hold.sweep_interval:PT1M}")
+    public void sweep() {
+        int expired = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                long now = System.nanoTime();
+                Iterator<Map<Integer, List<RoomHold>>> roomTypes = stripe.holds.values().iterator();
+                while (roomTypes.hasNext()) {
+                    Map<Integer, List<RoomHold>> roomHolds = roomTypes.next();
+                    Iterator<List<RoomHold>> rooms = roomHolds.values().iterator();
+                    while (rooms.hasNext()) {
+                        List<RoomHold> holds = rooms.next();
+                        int before = holds.size();
+                        holds.removeIf(hold -> hold.isExpired(now));
+                        expired += before - holds.size();
+                        if (holds.isEmpty()) {
+                            rooms.remove();
+                        }
+                    }
+                    if (roomHolds.isEmpty()) {
+                        roomTypes.remove();
+                    }
+                }
+            }
+        }
+        if (expired > 0) {
+            log.warn("Dropped {} expired room holds", expired);
+        }
+    }
+
+    private static boolean isFree(Map<Integer, List<RoomHold>> roomHolds, Integer roomId, long startDay,
+            long endDay, long now) {
+        List<RoomHold> holds = roomHolds.get(roomId);
+        if (holds == null) {
+            return true;
+        }
+        holds.removeIf(hold -> hold.isExpired(now));
+        if (holds.isEmpty()) {
+            roomHolds.remove(roomId);
+            return true;
+        }
+        for (RoomHold hold : holds) {
+            if (hold.overlaps(startDay, endDay)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Stripe stripeOf(RoomTypeKey key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * The holds of the room types mapped to one lock, by room ID.
+     */
+    private static final class Stripe {
+        private final Map<RoomTypeKey, Map<Integer, List<RoomHold>>> holds = new HashMap<>();
+    }
+
+    @Data
+    private static final class RoomTypeKey {
+        private final long propertyId;
+        private final long roomTypeId;
+    }
+}
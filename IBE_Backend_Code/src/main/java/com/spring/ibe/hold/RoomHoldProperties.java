@@ -0,0 +1,26 @@
+package com.spring.ibe.hold;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the room hold engine.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.room-hold")
+public class RoomHoldProperties {
+
+    /**
+     * Time a hold lasts unless it is released first. Holds of a booking that
+     * never finishes are given up after this time.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * Number of locks the room types of all properties are spread over. Rounded
+     * up to a power of two.
+     */
+    private int stripes = 64;
+}
@@ -0,0 +1,188 @@
+package com.spring.ibe.hold;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.entity.RoomReservation;
+import com.spring.ibe.repository.RoomReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reserves the nights of held rooms in the database, which is the authority on
+ * which booking may use a room: the in-memory holds of one instance do not see
+ * those of another. Each night is a row under a unique key, so of two
+ * overlapping reservations the database keeps only the first. Reservations
+ * lapse after the hold time, like the holds themselves, unless a booking is
+ * created for the hold. A booking's reservations are kept until the outbox has
+ * no availability update of the booking left, so the rooms stay taken while
+ * upstream still reports them free.
+ */
+@Component
+@Slf4j
+public class RoomReservations {
+
+    private final RoomReservationRepository roomReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomHoldProperties properties;
+
+    /**
+     * Constructor for RoomReservations.
+     *
+     * @param roomReservationRepository The room reservation repository.
+     * @param transactionTemplate       The transaction template.
+     * @param properties                The hold settings.
+     */
+    public RoomReservations(RoomReservationRepository roomReservationRepository,
+            TransactionTemplate transactionTemplate, RoomHoldProperties properties) {
+        this.roomReservationRepository = roomReservationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Reserves every night of a hold, or none of them. Lapsed reservations of the
+     * same nights are cleared first.
+     *
+     * @param hold The hold.
+     * @return true if the nights were reserved, false if another reservation
+     *         already covers one of them.
+     */
+    public boolean reserve(RoomHold hold) {
+        LocalDate startDate = LocalDate.ofEpochDay(hold.getStartDay());
+        LocalDate endDate = LocalDate.ofEpochDay(hold.getEndDay());
+        Instant now = Instant.now();
+        List<RoomReservation> reservations = new ArrayList<>();
+        for (Integer roomId : hold.getRoomIds()) {
+            for (LocalDate night = startDate; night.isBefore(endDate); night = night.plusDays(1)) {
+                RoomReservation reservation = new RoomReservation();
+                reservation.setPropertyId(hold.getPropertyId());
+                reservation.setRoomId(roomId);
+                reservation.setNight(night);
+                reservation.setHoldId(hold.getId());
+                reservation.setExpiresAt(now.plus(properties.getTtl()));
+                reservations.add(reservation);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                roomReservationRepository.deleteExpired(hold.getPropertyId(), hold.getRoomIds(), startDate, endDate,
+                        now);
+                roomReservationRepository.saveAllAndFlush(reservations);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.info("Rooms {} of room type {} are already reserved for part of the stay", hold.getRoomIds(),
+                    hold.getRoomTypeId());
+            return false;
+        }
+    }
+
+    /**
+     * Finds which of some rooms are reserved for a night of a stay, whether by
+     * another hold or by a booking not yet attached upstream.
+     *
+     * @param propertyId The property ID.
+     * @param roomIds    The candidate room IDs.
+     * @param startDay   The first night, in epoch days.
+     * @param endDay     The day after the last night, in epoch days.
+     * @return The reserved room IDs.
+     */
+    public Set<Integer> reservedRoomIds(Long propertyId, Collection<Integer> roomIds, long startDay, long endDay) {
+        if (roomIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(roomReservationRepository.findReservedRoomIds(propertyId, roomIds,
+                LocalDate.ofEpochDay(startDay), LocalDate.ofEpochDay(endDay), Instant.now()));
+    }
+
+    /**
+     * Extends the reservations of a hold by the hold time, so that they do not
+     * lapse while the booking is created upstream.
+     *
+     * @param hold The hold.
+     * @return true if every night of the hold is still reserved, false if some
+     *         reservations lapsed.
+     */
+    public boolean renew(RoomHold hold) {
+        Instant now = Instant.now();
+        Integer renewed = transactionTemplate.execute(status -> roomReservationRepository.renew(hold.getId(), now,
+                now.plus(properties.getTtl())));
+        return renewed != null && renewed == expectedNights(hold);
+    }
+
+    /**
+     * Hands the reservations of a hold over to the booking created for it, so
+     * that they no longer lapse. Must be called in the transaction that records
+     * the booking.
+     *
+     * @param hold      The hold.
+     * @param bookingId The booking ID.
+     * @throws IllegalStateException if the reservations lapsed and were deleted
+     *                               before the booking was created.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void book(RoomHold hold, Long bookingId) {
+        int expected = expectedNights(hold);
+        int booked = roomReservationRepository.book(hold.getId(), bookingId);
+        if (booked != expected) {
+            throw new IllegalStateException("Booking " + bookingId + " holds " + booked + " of " + expected
+                    + " reserved room nights.");
+        }
+    }
+
+    private static int expectedNights(RoomHold hold) {
+        return hold.getRoomIds().size() * (int) (hold.getEndDay() - hold.getStartDay());
+    }
+
+    /**
+     * Releases the reservations of a booking. Must be called in the transaction
+     * that cancels the booking.
+     *
+     * @param bookingId The booking ID.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseBooking(Long bookingId) {
+        roomReservationRepository.deleteByBookingId(bookingId);
+    }
+
+    /**
+     * Releases the reservations of a hold that did not lead to a booking.
+     * Releasing them twice does nothing.
+     *
+     * @param hold The hold.
+     */
+    public void release(RoomHold hold) {
+        transactionTemplate.executeWithoutResult(status -> roomReservationRepository.deleteHeld(hold.getId()));
+    }
+
+    /**
+     * Deletes lapsed reservations and those of bookings whose availabilities are
+     * all attached upstream, so that the table only holds bookings in progress.
+     * Dead-lettered updates stay in the outbox, so their rooms stay reserved
+     * until the booking is cancelled.
+     */
+    @Scheduled(fixedDelayString = "${app.room_hold.sweep_interval:PT1M}")
+    public void sweep() {
+        Integer expired = transactionTemplate.execute(status -> roomReservationRepository.deleteExpired(Instant.now()));
+        if (expired != null && expired > 0) {
+            log.warn("Deleted {} lapsed room reservations", expired);
+        }
+        Integer delivered = transactionTemplate.execute(status -> roomReservationRepository.deleteDelivered(
+                GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName()));
+        if (delivered != null && delivered > 0) {
+            log.debug("Deleted {} room reservations of bookings attached upstream", delivered);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.spring.ibe.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.entity.OutboxMessage;
+import com.spring.ibe.graphql.GraphqlOperation;
+import com.spring.ibe.repository.OutboxMessageRepository;
+import com.spring.ibe.util.IntIntHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Records upstream mutations to be delivered by the {@link OutboxRelay}. A
+ * mutation is recorded in the transaction of the local change it mirrors, so
+ * either both are kept or neither is.
+ * <p>
+ * The room availabilities attached to a booking here but not yet upstream are
+ * kept in memory for searches, which must count them as booked. The set
+ * follows the attachments recorded and delivered by this instance and is
+ * reloaded periodically to pick up those of other instances.
+ */
+@Component
+@Slf4j
+public class Outbox {
+
+    /**
+     * The operations the relay can deliver. Each selects {@code booking_id},
+     * which tells a delivered mutation from a failed one.
+     */
+    static final Map<String, GraphqlOperation> OPERATIONS = Map.of(
+            GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName(), GraphqlQuery.UPDATE_ROOM_AVAILABILITY,
+            GraphqlQuery.UPDATE_BOOKING.getName(), GraphqlQuery.UPDATE_BOOKING);
+
+    static final TypeReference<Map<String, Object>> VARIABLES = new TypeReference<>() {
+    };
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Object attachmentsLock = new Object();
+    private volatile IntIntHashMap attachments = new IntIntHashMap();
+    private List<Attachment> attachmentsDuringReload;
+
+    /**
+     * Constructor for Outbox.
+     *
+     * @param outboxMessageRepository The outbox message repository.
+     */
+    public Outbox(OutboxMessageRepository outboxMessageRepository) {
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    /**
+     * Records a mutation to be delivered. A mutation recorded earlier under the
+     * same key and not yet delivered is replaced, its attempts reset, and its
+     * dead letter revived; if it is being delivered right now, the new one is
+     * not delivered before that attempt ends. A room availability attached to
+     * one booking and not yet delivered is never replaced by a mutation of
+     * another booking, which would leave the first booking without its room.
+     *
+     * @param operation      The mutation.
+     * @param variables      The variables for the mutation.
+     * @param idempotencyKey Identifies the upstream record the mutation writes.
+     * @param bookingId      The booking the mutation belongs to.
+     * @throws IllegalArgumentException if the relay cannot deliver the operation.
+     * @throws IllegalStateException    if the key holds another booking's
+     *                                  undelivered attachment.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(GraphqlOperation operation, Map<String, Object> variables, String idempotencyKey,
+            Long bookingId) {
+        if (OPERATIONS.get(operation.getName()) != operation) {
+            throw new IllegalArgumentException("Operation " + operation.getName() + " cannot be relayed.");
+        }
+        Instant now = Instant.now();
+        OutboxMessage message = outboxMessageRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+        if (message == null) {
+            message = new OutboxMessage();
+            message.setIdempotencyKey(idempotencyKey);
+            message.setCreatedAt(now);
+            message.setNextAttemptAt(now);
+        } else if (!bookingId.equals(message.getBookingId()) && isAttachment(message)) {
+            throw new IllegalStateException("Outbox message " + idempotencyKey + " attaches booking "
+                    + message.getBookingId() + " and is not yet delivered.");
+        } else if (message.getStatus() == OutboxMessage.Status.DEAD || message.getNextAttemptAt().isBefore(now)) {
+            message.setNextAttemptAt(now);
+        }
+        message.setBookingId(bookingId);
+        message.setOperation(operation.getName());
+        message.setVariables(write(variables));
+        message.setStatus(OutboxMessage.Status.PENDING);
+        message.setAttempts(0);
+        message.setLastError(null);
+        outboxMessageRepository.save(message);
+        if (GraphqlQuery.UPDATE_ROOM_AVAILABILITY == operation
+                && variables.get("availabilityId") instanceof Number availabilityId) {
+            Attachment attachment = new Attachment(availabilityId.intValue(),
+                    isAttachment(variables) ? bookingId.intValue() : 0);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(attachment);
+                }
+            });
+        }
+    }
+
+    /**
+     * Forgets the attachment of a room availability once its message has been
+     * delivered and deleted.
+     *
+     * @param message The delivered message.
+     */
+    void delivered(OutboxMessage message) {
+        if (GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName().equals(message.getOperation())
+                && read(message.getVariables()).get("availabilityId") instanceof Number availabilityId) {
+            record(new Attachment(availabilityId.intValue(), 0));
+        }
+    }
+
+    /**
+     * Tells which booking a room availability is attached to in the outbox but
+     * not yet upstream. Dead letters count, as their bookings hold the room all
+     * the same.
+     *
+     * @param idempotencyKey The key of the availability's updates.
+     * @return The booking ID, or null if no attachment is waiting under the key.
+     */
+    public Long attachedBookingId(String idempotencyKey) {
+        return outboxMessageRepository.findByIdempotencyKey(idempotencyKey)
+                .filter(this::isAttachment)
+                .map(OutboxMessage::getBookingId)
+                .orElse(null);
+    }
+
+    /**
+     * Returns the availabilities whose update to a booking is recorded but not
+     * yet delivered.
+     *
+     * @param bookingId The booking ID.
+     * @return The availability IDs.
+     */
+    public List<Long> undeliveredAvailabilityIds(Long bookingId) {
+        List<Long> availabilityIds = new ArrayList<>();
+        for (OutboxMessage message : outboxMessageRepository.findByBookingIdAndOperation(bookingId,
+                GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName())) {
+            Object availabilityId = read(message.getVariables()).get("availabilityId");
+            if (availabilityId instanceof Number number) {
+                availabilityIds.add(number.longValue());
+            }
+        }
+        return availabilityIds;
+    }
+
+    /**
+     * Returns the availabilities attached to a booking in the outbox but not yet
+     * upstream, where they still show as free. Dead letters are included, as
+     * their bookings hold the rooms all the same. The returned predicate tests
+     * the attachments as they are now and does not change afterwards.
+     *
+     * @return Tells whether an availability ID is such an attachment.
+     */
+    public IntPredicate undeliveredAttachments() {
+        return attachments::containsKey;
+    }
+
+    /**
+     * Reloads the undelivered attachments from the database, including those
+     * recorded by other instances. Attachments recorded or delivered here while
+     * the reload runs are applied on top, since the rows read may predate them.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.outbox.attachments_refresh_interval:PT1M}")
+    public void reloadAttachments() {
+        synchronized (attachmentsLock) {
+            attachmentsDuringReload = new ArrayList<>();
+        }
+        IntIntHashMap loaded = new IntIntHashMap();
+        try {
+            for (OutboxMessage message : outboxMessageRepository.findByOperation(
+                    GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName())) {
+                Map<String, Object> variables = read(message.getVariables());
+                if (isAttachment(variables) && variables.get("availabilityId") instanceof Number availabilityId) {
+                    loaded.put(availabilityId.intValue(), message.getBookingId().intValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (attachmentsLock) {
+                attachmentsDuringReload = null;
+            }
+            throw e;
+        }
+        synchronized (attachmentsLock) {
+            for (Attachment attachment : attachmentsDuringReload) {
+                loaded = attachment.applyTo(loaded);
+            }
+            attachmentsDuringReload = null;
+            attachments = loaded;
+        }
+        log.debug("Loaded {} undelivered room availability attachments", loaded.size());
+    }
+
+    /**
+     * Applies an attachment recorded or delivered by this instance to the
+     * attachments in memory. The map is copied rather than changed, so that
+     * searches can read it without locking.
+     */
+    private void record(Attachment attachment) {
+        synchronized (attachmentsLock) {
+            attachments = attachment.applyTo(attachments);
+            if (attachmentsDuringReload != null) {
+                attachmentsDuringReload.add(attachment);
+            }
+        }
+    }
+
+    private boolean isAttachment(OutboxMessage message) {
+        return GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName().equals(message.getOperation())
+                && isAttachment(read(message.getVariables()));
+    }
+
+    private static boolean isAttachment(Map<String, Object> variables) {
+        return variables.get("bookingId") instanceof Number number && number.longValue() != 0;
+    }
+
+    private String write(Map<String, Object> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox variables cannot be serialized.", e);
+        }
+    }
+
+    private Map<String, Object> read(String variables) {
+        try {
+            return objectMapper.readValue(variables, VARIABLES);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse outbox variables {}: {}", variables, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * The booking a room availability is attached to, or 0 once it is released
+     * or delivered.
+     */
+    private static final class Attachment {
+        private final int availabilityId;
+        private final int bookingId;
+
+        private Attachment(int availabilityId, int bookingId) {
+            this.availabilityId = availabilityId;
+            this.bookingId = bookingId;
+        }
+
+        private IntIntHashMap applyTo(IntIntHashMap attachments) {
+            IntIntHashMap updated = new IntIntHashMap(attachments.size() + 1);
+            attachments.forEach((id, attachedBookingId) -> {
+                if (id != availabilityId) {
+                    updated.put(id, attachedBookingId);
+                }
+            });
+            if (bookingId != 0) {
+                updated.put(availabilityId, bookingId);
+            }
+            return updated;
+        }
+    }
+}
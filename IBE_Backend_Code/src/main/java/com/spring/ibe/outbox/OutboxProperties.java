@@ -0,0 +1,41 @@
+package com.spring.ibe.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the outbox relay delivering upstream mutations.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /**
+     * Maximum number of messages delivered in one aliased request.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Time a relay may take to deliver the messages it claimed before another
+     * relay may claim them again.
+     */
+    private Duration lease = Duration.ofSeconds(30);
+
+    /**
+     * Wait before the first retry of a failed message. Each further retry waits
+     * twice as long, up to {@link #maxBackoff}.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Longest wait between retries of a failed message.
+     */
+    private Duration maxBackoff = Duration.ofMinutes(10);
+
+    /**
+     * Number of failed attempts after which a message is dead-lettered.
+     */
+    private int maxAttempts = 10;
+}
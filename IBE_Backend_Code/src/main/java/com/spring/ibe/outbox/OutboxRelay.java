@@ -0,0 +1,194 @@
+package com.spring.ibe.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ibe.entity.OutboxMessage;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.GraphqlBatch;
+import com.spring.ibe.graphql.GraphqlClient;
+import com.spring.ibe.graphql.GraphqlOperation;
+import com.spring.ibe.graphql.GraphqlResponses;
+import com.spring.ibe.repository.OutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers the mutations recorded in the {@link Outbox}. Due messages are
+ * claimed for a lease, so that several instances can relay side by side, and
+ * the messages of each operation are sent as one aliased request. Delivered
+ * messages are deleted; failed ones are retried with exponential backoff and
+ * dead-lettered after the configured number of attempts.
+ * <p>
+ * Every relayed mutation sets a field to a value, so delivering a message again
+ * after a lost response or an expired lease is harmless. A message replaced
+ * while it was being delivered is not deleted, so its newer mutation is still
+ * delivered.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final Outbox outbox;
+    private final GraphqlClient graphqlClient;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Constructor for OutboxRelay.
+     *
+     * @param outboxMessageRepository The outbox message repository.
+     * @param outbox                  The outbox of the delivered messages.
+     * @param graphqlClient           The GraphQL client.
+     * @param transactionTemplate     The transaction template.
+     * @param properties              The outbox settings.
+     */
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository, Outbox outbox, GraphqlClient graphqlClient,
+            TransactionTemplate transactionTemplate, OutboxProperties properties) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outbox = outbox;
+        this.graphqlClient = graphqlClient;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Delivers the due messages, a batch at a time, until none are left.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll_interval:PT1S}")
+    public void relay() {
+        List<OutboxMessage> claimed;
+        do {
+            claimed = claim();
+            Map<String, List<OutboxMessage>> byOperation = new LinkedHashMap<>();
+            for (OutboxMessage message : claimed) {
+                byOperation.computeIfAbsent(message.getOperation(), operation -> new ArrayList<>()).add(message);
+            }
+            byOperation.forEach(this::deliver);
+        } while (claimed.size() == properties.getBatchSize());
+    }
+
+    private List<OutboxMessage> claim() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxMessage> due = outboxMessageRepository.lockDue(now, properties.getBatchSize());
+            for (OutboxMessage message : due) {
+                message.setNextAttemptAt(now.plus(properties.getLease()));
+            }
+            return outboxMessageRepository.saveAllAndFlush(due);
+        });
+    }
+
+    private void deliver(String operationName, List<OutboxMessage> messages) {
+        GraphqlOperation operation = Outbox.OPERATIONS.get(operationName);
+        if (operation == null) {
+            for (OutboxMessage message : messages) {
+                bury(message, "Unknown operation " + operationName);
+            }
+            return;
+        }
+        GraphqlBatch batch = new GraphqlBatch();
+        List<OutboxMessage> sent = new ArrayList<>();
+        List<GraphqlBatch.Part<JsonNode>> parts = new ArrayList<>();
+        for (OutboxMessage message : messages) {
+            try {
+                parts.add(batch.add(operation, objectMapper.readValue(message.getVariables(), Outbox.VARIABLES),
+                        GraphqlResponses::readTree));
+                sent.add(message);
+            } catch (JsonProcessingException e) {
+                bury(message, "Unreadable variables: " + e.getMessage());
+            }
+        }
+        if (sent.isEmpty()) {
+            return;
+        }
+        String error = null;
+        try {
+            ResponseEntity<byte[]> responseEntity = graphqlClient.execute(batch);
+            if (responseEntity.getStatusCode() == HttpStatus.OK) {
+                batch.decodePartial(responseEntity.getBody());
+            } else {
+                error = "Unexpected status code " + responseEntity.getStatusCode();
+            }
+        } catch (IOException | FetchFailedException e) {
+            error = e.getMessage();
+        }
+        int delivered = 0;
+        for (int i = 0; i < sent.size(); i++) {
+            JsonNode result = parts.get(i).get();
+            if (result != null && result.has("booking_id")) {
+                acknowledge(sent.get(i));
+                delivered++;
+            } else {
+                retry(sent.get(i), error != null ? error : "Mutation was not applied");
+            }
+        }
+        log.info("Relayed {} of {} {} messages", delivered, sent.size(), operationName);
+    }
+
+    private void acknowledge(OutboxMessage message) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.delete(message));
+            outbox.delivered(message);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.debug("Outbox message {} was replaced while it was delivered", message.getIdempotencyKey());
+        }
+    }
+
+    private void retry(OutboxMessage message, String error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        if (attempts >= properties.getMaxAttempts()) {
+            bury(message, error);
+            return;
+        }
+        message.setLastError(error);
+        message.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+        save(message);
+        log.warn("Failed to relay outbox message {} (attempt {}): {}", message.getIdempotencyKey(), attempts, error);
+    }
+
+    private void bury(OutboxMessage message, String error) {
+        message.setStatus(OutboxMessage.Status.DEAD);
+        message.setLastError(error);
+        save(message);
+        log.error("Dead-lettered outbox message {} after {} attempts: {}", message.getIdempotencyKey(),
+                message.getAttempts(), error);
+    }
+
+    private void save(OutboxMessage message) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.save(message));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.debug("Outbox message {} was replaced while it was delivered", message.getIdempotencyKey());
+        }
+    }
+
+    /**
+     * Returns the wait before the next attempt: the initial backoff doubled for
+     * each earlier failure, capped, and jittered down by up to half so that
+     * messages failing together are not retried together.
+     */
+    private Duration backoff(int attempts) {
+        long initialMillis = properties.getInitialBackoff().toMillis();
+        long maxMillis = properties.getMaxBackoff().toMillis();
+        long millis = Math.min(maxMillis, initialMillis << Math.min(attempts - 1, 20));
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+}
@@ -0,0 +1,209 @@
+package com.spring.ibe.rate;
+
+import com.spring.ibe.graphql.RoomRateColumns;
+import com.spring.ibe.search.RoomTypeDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable rate snapshot of one property, with room types addressed by their
+ * {@link RoomTypeDictionary} ordinal. For every room type it holds prefix
+ * sums of the nightly rates, of the number of rates and of the number of days
+ * with a rate over the covered days, so the total and average for a stay are
+ * two subtractions, and a sparse table of daily minimums, so the lowest rate of
+ * a stay is two lookups.
+ */
+final class PropertyRates {
+
+    static final int NO_RATE = Integer.MAX_VALUE;
+
+    private final int firstDay;
+    private final int days;
+    private final long[][] rateSums;
+    private final int[][] rateCounts;
+    private final int[][] ratedDays;
+    private final int[][][] minimums;
+
+    private PropertyRates(int firstDay, int days, long[][] rateSums, int[][] rateCounts, int[][] ratedDays,
+            int[][][] minimums) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.rateSums = rateSums;
+        this.rateCounts = rateCounts;
+        this.ratedDays = ratedDays;
+        this.minimums = minimums;
+    }
+
+    /**
+     * Checks whether the snapshot covers a stay.
+     *
+     * @param fromDay The epoch day of the first night.
+     * @param toDay   The epoch day after the last night.
+     * @return true if every night of the stay is covered.
+     */
+    boolean covers(int fromDay, int toDay) {
+        return fromDay >= firstDay && toDay <= firstDay + days && fromDay < toDay;
+    }
+
+    /**
+     * Checks whether the property has no rates in the snapshot.
+     *
+     * @return true if no rate was loaded.
+     */
+    boolean isEmpty() {
+        for (int[] counts : rateCounts) {
+            if (counts[days] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Averages the nightly rates of each room type over a stay.
+     *
+     * @param fromDay The epoch day of the first night.
+     * @param toDay   The epoch day after the last night.
+     * @return The average rate per room type ordinal, NaN for room types without
+     *         rates.
+     */
+    double[] averageRates(int fromDay, int toDay) {
+        int from = fromDay - firstDay;
+        int to = toDay - firstDay;
+        double[] averages = new double[rateSums.length];
+        for (int type = 0; type < averages.length; type++) {
+            int count = rateCounts[type][to] - rateCounts[type][from];
+            averages[type] = count > 0 ? (double) (rateSums[type][to] - rateSums[type][from]) / count : Double.NaN;
+        }
+        return averages;
+    }
+
+    /**
+     * Averages the nightly rates of each room type over every stay of a fixed
+     * length whose check-in falls in a range. Each stay is a window over the
+     * prefix sums, so the cost does not depend on its length.
+     *
+     * @param firstCheckIn The epoch day of the first check-in.
+     * @param checkIns     The number of consecutive check-in days.
+     * @param nights       The length of each stay.
+     * @return The average rate per room type ordinal and check-in offset, NaN
+     *         where a night of the stay has no rate.
+     */
+    double[][] averageRatesByCheckIn(int firstCheckIn, int checkIns, int nights) {
+        int from = firstCheckIn - firstDay;
+        double[][] averages = new double[rateSums.length][checkIns];
+        for (int type = 0; type < averages.length; type++) {
+            for (int checkIn = 0; checkIn < checkIns; checkIn++) {
+                int first = from + checkIn;
+                int last = first + nights;
+                averages[type][checkIn] = ratedDays[type][last] - ratedDays[type][first] == nights
+                        ? (double) (rateSums[type][last] - rateSums[type][first])
+                                / (rateCounts[type][last] - rateCounts[type][first])
+                        : Double.NaN;
+            }
+        }
+        return averages;
+    }
+
+    /**
+     * Finds the lowest nightly rate of each room type over a stay.
+     *
+     * @param fromDay The epoch day of the first night.
+     * @param toDay   The epoch day after the last night.
+     * @return The lowest rate per room type ordinal, {@link #NO_RATE} for room
+     *         types without rates.
+     */
+    int[] minimumRates(int fromDay, int toDay) {
+        int from = fromDay - firstDay;
+        int to = toDay - firstDay;
+        int[] lowest = new int[minimums.length];
+        for (int type = 0; type < lowest.length; type++) {
+            lowest[type] = minimum(type, from, to);
+        }
+        return lowest;
+    }
+
+    private int minimum(int type, int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        int[] table = minimums[type][level];
+        return Math.min(table[from], table[to - (1 << level)]);
+    }
+
+    /**
+     * Collects the rate rows of a property into a snapshot. Rows outside the
+     * covered days are skipped; a room type with several rates on one day counts
+     * each of them in the average.
+     */
+    static final class Builder {
+        private final int firstDay;
+        private final int days;
+        private final RoomTypeDictionary roomTypes;
+        private final List<long[]> dailySums = new ArrayList<>();
+        private final List<int[]> dailyCounts = new ArrayList<>();
+        private final List<int[]> dailyMinimums = new ArrayList<>();
+
+        Builder(int firstDay, int days, RoomTypeDictionary roomTypes) {
+            this.firstDay = firstDay;
+            this.days = days;
+            this.roomTypes = roomTypes;
+        }
+
+        /**
+         * Adds a page of room rates.
+         *
+         * @param page The page.
+         */
+        void add(RoomRateColumns page) {
+            int[] rates = page.getRate();
+            int[] epochDays = page.getEpochDay();
+            int[] roomTypeIds = page.getRoomTypeId();
+            for (int i = 0; i < page.getSize(); i++) {
+                int day = epochDays[i] - firstDay;
+                if (day < 0 || day >= days) {
+                    continue;
+                }
+                int type = roomTypes.ordinalOf(roomTypeIds[i]);
+                while (dailySums.size() <= type) {
+                    dailySums.add(new long[days]);
+                    dailyCounts.add(new int[days]);
+                    int[] minimums = new int[days];
+                    Arrays.fill(minimums, NO_RATE);
+                    dailyMinimums.add(minimums);
+                }
+                dailySums.get(type)[day] += rates[i];
+                dailyCounts.get(type)[day]++;
+                dailyMinimums.get(type)[day] = Math.min(dailyMinimums.get(type)[day], rates[i]);
+            }
+        }
+
+        PropertyRates build() {
+            int types = dailySums.size();
+            long[][] rateSums = new long[types][days + 1];
+            int[][] rateCounts = new int[types][days + 1];
+            int[][] ratedDays = new int[types][days + 1];
+            int[][][] minimums = new int[types][][];
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(days, 1));
+            for (int type = 0; type < types; type++) {
+                for (int day = 0; day < days; day++) {
+                    rateSums[type][day + 1] = rateSums[type][day] + dailySums.get(type)[day];
+                    rateCounts[type][day + 1] = rateCounts[type][day] + dailyCounts.get(type)[day];
+                    ratedDays[type][day + 1] = ratedDays[type][day] + (dailyCounts.get(type)[day] > 0 ? 1 : 0);
+                }
+                minimums[type] = new int[levels][];
+                minimums[type][0] = dailyMinimums.get(type);
+                for (int level = 1; level < levels; level++) {
+                    int[] previous = minimums[type][level - 1];
+                    int half = 1 << (level - 1);
+                    int[] table = new int[days - (1 << level) + 1];
+                    for (int day = 0; day < table.length; day++) {
+                        table[day] = Math.min(previous[day], previous[day + half]);
+                    }
+                    minimums[type][level] = table;
+                }
+            }
+            return new PropertyRates(firstDay, days, rateSums, rateCounts, ratedDays, minimums);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.spring.ibe.rate;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.graphql.GraphqlPager;
+import com.spring.ibe.graphql.RoomRateColumns;
+import com.spring.ibe.search.RoomTypeOrdinals;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locally held nightly rates per property and room type, so that room search
+ * does not fetch and fold every rate row of a stay. Each property is loaded in
+ * full for the configured horizon and reloaded periodically. Properties other
+ * than the configured ones are only loaded while the index holds fewer than
+ * the configured maximum, and are dropped when they turn out to have no rates,
+ * so that queries for unknown properties do not grow the index.
+ * <p>
+ * Every query returns null when the index cannot answer it, i.e. when it is
+ * disabled, the property has not been loaded yet or the stay reaches beyond
+ * the horizon; callers then fall back to the GraphQL endpoint.
+ */
+@Component
+@Slf4j
+public class RateIndex {
+
+    private final GraphqlPager graphqlPager;
+    private final FanOutExecutor fanOutExecutor;
+    private final RateIndexProperties properties;
+    private final RoomTypeOrdinals roomTypeOrdinals;
+    private final Map<Integer, PropertyRates> snapshots = new ConcurrentHashMap<>();
+    private final Set<Integer> loading = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> emptyPropertyIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for RateIndex.
+     *
+     * @param graphqlPager     The pager for paginated list operations.
+     * @param fanOutExecutor   The shared executor that runs background loads.
+     * @param properties       The index settings.
+     * @param roomTypeOrdinals The room type ordinals the rates are indexed by.
+     */
+    public RateIndex(GraphqlPager graphqlPager, FanOutExecutor fanOutExecutor, RateIndexProperties properties,
+            RoomTypeOrdinals roomTypeOrdinals) {
+        this.graphqlPager = graphqlPager;
+        this.fanOutExecutor = fanOutExecutor;
+        this.properties = properties;
+        this.roomTypeOrdinals = roomTypeOrdinals;
+    }
+
+    /**
+     * Checks whether the index can answer queries about a stay.
+     *
+     * @param propertyId The property ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return true if the property is loaded and covers the stay.
+     */
+    public boolean covers(Integer propertyId, String startDate, String endDate) {
+        return snapshot(propertyId, epochDay(startDate), epochDay(endDate)) != null;
+    }
+
+    /**
+     * Averages the nightly rates of each room type over a stay.
+     *
+     * @param propertyId The property ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return The average rate per room type ordinal, NaN for room types without
+     *         rates, or null if the index cannot answer. Room types first seen
+     *         after the property was loaded lie beyond the end of the array.
+     */
+    public double[] averageRates(Integer propertyId, String startDate, String endDate) {
+        int fromDay = epochDay(startDate);
+        int toDay = epochDay(endDate);
+        PropertyRates snapshot = snapshot(propertyId, fromDay, toDay);
+        return snapshot != null ? snapshot.averageRates(fromDay, toDay) : null;
+    }
+
+    /**
+     * Finds the lowest nightly rate of each room type over a stay.
+     *
+     * @param propertyId The property ID.
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @return The lowest rate per room type ordinal, {@code Integer.MAX_VALUE}
+     *         for room types without rates, or null if the index cannot answer.
+     */
+    public int[] minimumRates(Integer propertyId, String startDate, String endDate) {
+        int fromDay = epochDay(startDate);
+        int toDay = epochDay(endDate);
+        PropertyRates snapshot = snapshot(propertyId, fromDay, toDay);
+        return snapshot != null ? snapshot.minimumRates(fromDay, toDay) : null;
+    }
+
+    /**
+     * Averages the nightly rates of each room type over every stay of a fixed
+     * length whose check-in falls in a range. Unlike the other queries this
+     * always answers: when the loaded property does not cover the days, their
+     * rates are fetched from the GraphQL endpoint for this call.
+     *
+     * @param propertyId   The property ID.
+     * @param firstCheckIn The first check-in date.
+     * @param checkIns     The number of consecutive check-in days.
+     * @param nights       The length of each stay.
+     * @return The average rate per room type ordinal and check-in offset, NaN
+     *         where a night of the stay has no rate.
+     * @throws FetchFailedException if the rates cannot be fetched.
+     */
+    public double[][] averageRatesByCheckIn(Integer propertyId, String firstCheckIn, int checkIns, int nights) {
+        int fromDay = epochDay(firstCheckIn);
+        int toDay = fromDay + checkIns - 1 + nights;
+        PropertyRates snapshot = snapshot(propertyId, fromDay, toDay);
+        if (snapshot == null) {
+            snapshot = fetch(propertyId, fromDay, toDay - fromDay);
+        }
+        return snapshot.averageRatesByCheckIn(fromDay, checkIns, nights);
+    }
+
+    /**
+     * Reloads every indexed property, and the configured ones at startup, to
+     * pick up rate changes. Properties found without rates may be loaded again
+     * once queried.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.rate_index.refresh_interval:PT15M}")
+    public void refresh() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        emptyPropertyIds.clear();
+        Set<Integer> propertyIds = new HashSet<>(properties.getPropertyIds());
+        propertyIds.addAll(snapshots.keySet());
+        for (Integer propertyId : propertyIds) {
+            if (loading.add(propertyId)) {
+                try {
+                    load(propertyId);
+                } catch (RuntimeException e) {
+                    log.error("Failed to refresh rate index for property {}: {}", propertyId, e.getMessage());
+                } finally {
+                    loading.remove(propertyId);
+                }
+            }
+        }
+    }
+
+    private PropertyRates snapshot(int propertyId, int fromDay, int toDay) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        PropertyRates snapshot = snapshots.get(propertyId);
+        if (snapshot == null) {
+            if (mayLoad(propertyId)) {
+                loadInBackground(propertyId);
+            }
+            return null;
+        }
+        return snapshot.covers(fromDay, toDay) ? snapshot : null;
+    }
+
+    /**
+     * Checks whether a property that is not indexed may be loaded: configured
+     * properties always, others if they were not found empty since the last
+     * refresh and the index has room for them.
+     *
+     * @param propertyId The property ID.
+     * @return true if the property may be loaded.
+     */
+    private boolean mayLoad(int propertyId) {
+        if (properties.getPropertyIds().contains(propertyId)) {
+            return true;
+        }
+        return !emptyPropertyIds.contains(propertyId)
+                && snapshots.size() + loading.size() < properties.getMaxProperties();
+    }
+
+    private void loadInBackground(int propertyId) {
+        if (!loading.add(propertyId)) {
+            return;
+        }
+        fanOutExecutor.runAsync(() -> {
+            try {
+                load(propertyId);
+            } catch (RuntimeException e) {
+                log.error("Failed to load rate index for property {}: {}", propertyId, e.getMessage());
+            }
+        }).whenComplete((done, e) -> loading.remove(propertyId));
+    }
+
+    /**
+     * Loads the rates of a property in full and installs them. A property that
+     * is not configured and has no rates is dropped instead, so that it is not
+     * refreshed.
+     *
+     * @param propertyId The property ID.
+     */
+    private void load(int propertyId) {
+        long startedNanos = System.nanoTime();
+        int today = (int) LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        PropertyRates snapshot = fetch(propertyId, today, properties.getHorizonDays());
+        if (snapshot.isEmpty() && !properties.getPropertyIds().contains(propertyId)) {
+            snapshots.remove(propertyId);
+            if (emptyPropertyIds.size() < properties.getMaxProperties()) {
+                emptyPropertyIds.add(propertyId);
+            }
+            log.info("Dropped property {} from the rate index as it has no rates", propertyId);
+            return;
+        }
+        snapshots.put(propertyId, snapshot);
+        log.info("Loaded rate index for property {} in {} ms", propertyId,
+                (System.nanoTime() - startedNanos) / 1_000_000);
+    }
+
+    /**
+     * Fetches the rates of a property over a range of days into a snapshot.
+     *
+     * @param propertyId The property ID.
+     * @param firstDay   The epoch day of the first day.
+     * @param days       The number of days.
+     * @return The snapshot.
+     */
+    private PropertyRates fetch(int propertyId, int firstDay, int days) {
+        Map<String, Object> variables = graphqlPager.firstOffsetPage(Map.of(
+                "startDate", LocalDate.ofEpochDay(firstDay) + GraphqlQuery.START_OF_DAY,
+                "endDate", LocalDate.ofEpochDay(firstDay + days) + GraphqlQuery.START_OF_DAY,
+                "propertyId", propertyId));
+        PropertyRates.Builder builder = new PropertyRates.Builder(firstDay, days, roomTypeOrdinals.of(propertyId));
+        graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_RATES, variables, RoomRateColumns::read, null, builder::add);
+        return builder.build();
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
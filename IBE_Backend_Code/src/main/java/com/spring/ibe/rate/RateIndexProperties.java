@@ -0,0 +1,41 @@
+package com.spring.ibe.rate;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings of the local room rate index.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.rate-index")
+public class RateIndexProperties {
+
+    /**
+     * Answer rate queries from the index. When disabled every query goes
+     * to the GraphQL endpoint.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of days from today that the index covers. Queries reaching beyond
+     * go to the GraphQL endpoint.
+     */
+    private int horizonDays = 365;
+
+    /**
+     * Properties loaded at startup. Other properties are loaded the first time
+     * they are queried, as long as the index holds fewer than
+     * {@link #maxProperties}, and dropped once they have no rates.
+     */
+    private Set<Integer> propertyIds = new HashSet<>();
+
+    /**
+     * Maximum number of properties the index holds or is loading. Queries for
+     * further properties, other than the configured ones, go to the GraphQL
+     * endpoint.
+     */
+    private int maxProperties = 50;
+}
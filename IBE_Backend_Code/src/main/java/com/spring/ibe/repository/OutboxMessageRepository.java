@@ -0,0 +1,26 @@
+package com.spring.ibe.repository;
+
+import com.spring.ibe.entity.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    Optional<OutboxMessage> findByIdempotencyKey(String idempotencyKey);
+
+    List<OutboxMessage> findByBookingIdAndOperation(Long bookingId, String operation);
+
+    List<OutboxMessage> findByOperation(String operation);
+
+    /**
+     * Locks the oldest pending messages that are due, skipping those another
+     * relay has locked. Must be called in a transaction.
+     */
+    @Query(value = "SELECT * FROM outbox_message WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+}
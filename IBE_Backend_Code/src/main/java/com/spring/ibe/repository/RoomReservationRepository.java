@@ -0,0 +1,86 @@
+package com.spring.ibe.repository;
+
+import com.spring.ibe.entity.RoomReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomReservationRepository extends JpaRepository<RoomReservation, Long> {
+
+    /**
+     * Deletes the lapsed reservations of some rooms for a range of nights. Must be
+     * called in a transaction.
+     */
+    @Modifying
+    @Query("DELETE FROM RoomReservation r WHERE r.propertyId = :propertyId AND r.roomId IN :roomIds "
+            + "AND r.night >= :from AND r.night < :to AND r.expiresAt <= :now")
+    int deleteExpired(@Param("propertyId") Long propertyId, @Param("roomIds") Collection<Integer> roomIds,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, @Param("now") Instant now);
+
+    /**
+     * Deletes every lapsed reservation. Must be called in a transaction.
+     */
+    @Modifying
+    @Query("DELETE FROM RoomReservation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    /**
+     * Deletes the reservations of a hold that did not lead to a booking. Must be
+     * called in a transaction.
+     */
+    @Modifying
+    @Query("DELETE FROM RoomReservation r WHERE r.holdId = :holdId AND r.bookingId IS NULL")
+    int deleteHeld(@Param("holdId") String holdId);
+
+    /**
+     * Extends the reservations of a hold that have not lapsed. Must be called in
+     * a transaction.
+     */
+    @Modifying
+    @Query("UPDATE RoomReservation r SET r.expiresAt = :expiresAt WHERE r.holdId = :holdId "
+            + "AND r.bookingId IS NULL AND r.expiresAt > :now")
+    int renew(@Param("holdId") String holdId, @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Turns the reservations of a hold into those of a booking, which do not
+     * lapse. Must be called in a transaction.
+     */
+    @Modifying
+    @Query("UPDATE RoomReservation r SET r.bookingId = :bookingId, r.expiresAt = NULL WHERE r.holdId = :holdId "
+            + "AND r.bookingId IS NULL")
+    int book(@Param("holdId") String holdId, @Param("bookingId") Long bookingId);
+
+    /**
+     * Deletes the reservations of a booking. Must be called in a transaction.
+     */
+    @Modifying
+    @Query("DELETE FROM RoomReservation r WHERE r.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") Long bookingId);
+
+    /**
+     * Deletes the reservations of bookings that have no outbox message of an
+     * operation left, i.e. whose availabilities are all attached upstream. Must
+     * be called in a transaction.
+     */
+    @Modifying
+    @Query("DELETE FROM RoomReservation r WHERE r.bookingId IS NOT NULL AND NOT EXISTS "
+            + "(SELECT m.id FROM OutboxMessage m WHERE m.bookingId = r.bookingId AND m.operation = :operation)")
+    int deleteDelivered(@Param("operation") String operation);
+
+    /**
+     * Finds which of some rooms have a reservation in force for a night in a
+     * range.
+     */
+    @Query("SELECT DISTINCT r.roomId FROM RoomReservation r WHERE r.propertyId = :propertyId "
+            + "AND r.roomId IN :roomIds AND r.night >= :from AND r.night < :to "
+            + "AND (r.expiresAt IS NULL OR r.expiresAt > :now)")
+    List<Integer> findReservedRoomIds(@Param("propertyId") Long propertyId,
+            @Param("roomIds") Collection<Integer> roomIds, @Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("now") Instant now);
+}
@@ -0,0 +1,43 @@
+package com.spring.ibe.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of room search across several properties and across dates, and of
+ * streamed room search.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.room-search")
+public class RoomSearchProperties {
+
+    /**
+     * Maximum number of properties one search may cover.
+     */
+    private int maxProperties = 20;
+
+    /**
+     * Time the properties of a search are given to answer. Properties that have
+     * not answered by then are left out of the results and reported as
+     * incomplete.
+     */
+    private Duration propertyDeadline = Duration.ofSeconds(5);
+
+    /**
+     * Maximum number of days between the first check-in and the last check-out
+     * of a flexible-date search.
+     */
+    private int flexibleDatesMaxSpanDays = 366;
+
+    /**
+     * Maximum number of stays a flexible-date search may return.
+     */
+    private int flexibleDatesMaxResults = 50;
+
+    /**
+     * Time a streamed room search may take before the stream is closed.
+     */
+    private Duration streamTimeout = Duration.ofSeconds(30);
+}
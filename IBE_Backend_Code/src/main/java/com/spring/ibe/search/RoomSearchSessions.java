@@ -0,0 +1,178 @@
+package com.spring.ibe.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.spring.ibe.availability.AvailabilityChangedEvent;
+import com.spring.ibe.dto.request.RoomRequestDTO;
+import com.spring.ibe.dto.response.RoomResponseDTO;
+import com.spring.ibe.exception.custom.CustomException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorted room search results kept between page requests, so that later pages
+ * of a search are sliced from the stored list instead of repeating the
+ * upstream calls, filtering and sorting. A session is keyed by a hash of the
+ * search filters and lives in the {@value #CACHE} cache until it expires or
+ * the availability of its property changes.
+ * <p>
+ * Pages are addressed by opaque cursors that carry the session key and the
+ * offset of the next page.
+ */
+@Component
+@Slf4j
+public class RoomSearchSessions {
+
+    /**
+     * The cache holding the sessions.
+     */
+    public static final String CACHE = "roomSearchSessions";
+
+    private static final ObjectWriter KEY_WRITER = new ObjectMapper().writer();
+    private static final int KEY_BYTES = 16;
+    private static final String CURSOR_SEPARATOR = ":";
+
+    private final Cache sessions;
+    private final Map<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for RoomSearchSessions.
+     *
+     * @param cacheManager The cache manager.
+     */
+    public RoomSearchSessions(CacheManager cacheManager) {
+        this.sessions = cacheManager.getCache(CACHE);
+    }
+
+    /**
+     * Derives the session key of a search from its filters.
+     *
+     * @param roomRequestDTO The search filters.
+     * @return The session key.
+     */
+    public String sessionKey(RoomRequestDTO roomRequestDTO) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(KEY_WRITER.writeValueAsBytes(roomRequestDTO));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, KEY_BYTES));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot derive the room search session key", e);
+        }
+    }
+
+    /**
+     * Returns the availability version of a property, to be passed to
+     * {@link #store} for results computed afterwards.
+     *
+     * @param propertyId The property ID.
+     * @return The current version.
+     */
+    public long version(Integer propertyId) {
+        return versions.computeIfAbsent(propertyId, id -> new AtomicLong()).get();
+    }
+
+    /**
+     * Looks up the results of a search.
+     *
+     * @param sessionKey The session key.
+     * @param propertyId The property searched.
+     * @return The sorted rooms, or null if the session expired or the
+     *         availability of the property changed since it was stored.
+     */
+    public List<RoomResponseDTO.Room> find(String sessionKey, Integer propertyId) {
+        Session session = sessions.get(sessionKey, Session.class);
+        if (session == null) {
+            return null;
+        }
+        if (session.getVersion() != version(propertyId)) {
+            sessions.evict(sessionKey);
+            return null;
+        }
+        return session.getRooms();
+    }
+
+    /**
+     * Stores the results of a search.
+     *
+     * @param sessionKey The session key.
+     * @param version    The availability version read before the search ran.
+     * @param rooms      The sorted rooms.
+     */
+    public void store(String sessionKey, long version, List<RoomResponseDTO.Room> rooms) {
+        sessions.put(sessionKey, new Session(version, List.copyOf(rooms)));
+    }
+
+    /**
+     * Builds the cursor of the page starting at an offset.
+     *
+     * @param sessionKey The session key.
+     * @param offset     The offset of the first room of the page.
+     * @return The cursor.
+     */
+    public String cursor(String sessionKey, int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sessionKey + CURSOR_SEPARATOR + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the offset from a cursor issued for a search.
+     *
+     * @param cursor     The cursor.
+     * @param sessionKey The session key of the search it is used with.
+     * @return The offset of the first room of the page.
+     * @throws CustomException if the cursor is malformed or was issued for
+     *                         another search.
+     */
+    public int offset(String cursor, String sessionKey) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+            int offset = Integer.parseInt(decoded.substring(separator + 1));
+            if (separator > 0 && decoded.substring(0, separator).equals(sessionKey) && offset >= 0) {
+                return offset;
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Malformed room search cursor: {}", e.getMessage());
+        }
+        throw new CustomException("Invalid cursor for this search.");
+    }
+
+    /**
+     * Invalidates the sessions of a property whose availability changed.
+     *
+     * @param event The change.
+     */
+    @EventListener
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        versions.computeIfAbsent(event.getPropertyId(), id -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * The sorted rooms of a search and the availability version they were
+     * computed at.
+     */
+    @Getter
+    private static final class Session {
+        private final long version;
+        private final List<RoomResponseDTO.Room> rooms;
+
+        private Session(long version, List<RoomResponseDTO.Room> rooms) {
+            this.version = version;
+            this.rooms = rooms;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.spring.ibe.search;
+
+import com.spring.ibe.dto.response.ErrorDTO;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A room search streamed to the client as server-sent events. The room type
+ * cards are sent as soon as they arrive, followed by price and availability
+ * patches as the aggregations finish, and the filtered, sorted results last.
+ * Events are sent one at a time from whichever thread completes a call, and
+ * calls still running when the stream ends, times out or fails are cancelled.
+ */
+@Slf4j
+public class RoomSearchStream {
+
+    /**
+     * The event carrying the room type cards, without price or availability.
+     */
+    public static final String ROOMS = "rooms";
+
+    /**
+     * The event carrying the average rate of every room type card.
+     */
+    public static final String RATES = "rates";
+
+    /**
+     * The event carrying the number of available rooms of every room type card.
+     */
+    public static final String AVAILABILITY = "availability";
+
+    /**
+     * The event carrying the first page of the filtered, sorted results.
+     */
+    public static final String COMPLETE = "complete";
+
+    /**
+     * The event carrying the error that ended the search.
+     */
+    public static final String ERROR = "error";
+
+    private final SseEmitter emitter;
+    private final List<CompletableFuture<?>> calls = new CopyOnWriteArrayList<>();
+    private boolean closed;
+
+    /**
+     * Constructor for RoomSearchStream.
+     *
+     * @param timeout The time the whole search may take.
+     */
+    public RoomSearchStream(Duration timeout) {
+        this.emitter = new SseEmitter(timeout.toMillis());
+        emitter.onTimeout(this::timeOut);
+        emitter.onError(e -> close());
+        emitter.onCompletion(this::close);
+    }
+
+    /**
+     * Returns the emitter to hand to Spring MVC.
+     *
+     * @return The emitter.
+     */
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Ties an upstream call to the stream, so that the stream fails as soon as
+     * the call does and the call is cancelled when the stream ends.
+     *
+     * @param call The call.
+     * @param <F>  The future type.
+     * @return The call.
+     */
+    public <F extends CompletableFuture<?>> F track(F call) {
+        calls.add(call);
+        call.whenComplete((value, e) -> {
+            if (e != null) {
+                fail(e);
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Sends an event unless the stream has ended.
+     *
+     * @param event The event name.
+     * @param data  The event data, written as JSON.
+     */
+    public synchronized void send(String event, Object data) {
+        if (closed) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            log.warn("Room search client went away: {}", e.getMessage());
+            closed = true;
+            cancelCalls();
+        }
+    }
+
+    /**
+     * Sends the last event and ends the stream.
+     *
+     * @param data The results.
+     */
+    public synchronized void complete(Object data) {
+        send(COMPLETE, data);
+        end();
+    }
+
+    /**
+     * Sends the error that ended the search and ends the stream. Cancellations
+     * caused by the stream ending are ignored.
+     *
+     * @param failure The failure.
+     */
+    public synchronized void fail(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (closed || cause instanceof CancellationException) {
+            return;
+        }
+        log.error("Streamed room search failed: {}", cause.getMessage());
+        HttpStatus status = cause instanceof FetchFailedException ? HttpStatus.BAD_GATEWAY : HttpStatus.BAD_REQUEST;
+        send(ERROR, new ErrorDTO(cause.getMessage(), status));
+        end();
+    }
+
+    private synchronized void timeOut() {
+        if (!closed) {
+            log.warn("Streamed room search timed out");
+        }
+        end();
+    }
+
+    private synchronized void end() {
+        if (!closed) {
+            closed = true;
+            emitter.complete();
+        }
+        cancelCalls();
+    }
+
+    private synchronized void close() {
+        closed = true;
+        cancelCalls();
+    }
+
+    private void cancelCalls() {
+        for (CompletableFuture<?> call : calls) {
+            call.cancel(true);
+        }
+    }
+}
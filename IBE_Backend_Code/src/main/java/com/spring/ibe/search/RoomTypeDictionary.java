@@ -0,0 +1,75 @@
+package com.spring.ibe.search;
+
+import com.spring.ibe.util.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Dense ordinals for the room type IDs of one property. An ordinal, once
+ * assigned, never changes, so arrays indexed by ordinal that were built from
+ * different sources can be joined by position. Lookups read an immutable map
+ * and take no lock; assigning a new ordinal replaces the map.
+ */
+public final class RoomTypeDictionary {
+
+    private volatile IntIntHashMap ordinals = new IntIntHashMap();
+    private volatile int[] roomTypeIds = new int[0];
+
+    /**
+     * Returns the ordinal of a room type ID, assigning the next one if the ID is
+     * new.
+     *
+     * @param roomTypeId The room type ID.
+     * @return The ordinal.
+     */
+    public int ordinalOf(int roomTypeId) {
+        int ordinal = ordinals.get(roomTypeId, -1);
+        return ordinal >= 0 ? ordinal : assign(roomTypeId);
+    }
+
+    /**
+     * Returns the ordinal of a room type ID without assigning one.
+     *
+     * @param roomTypeId The room type ID.
+     * @return The ordinal, or -1 if the ID has none.
+     */
+    public int find(int roomTypeId) {
+        return ordinals.get(roomTypeId, -1);
+    }
+
+    /**
+     * Returns the room type ID of an ordinal.
+     *
+     * @param ordinal The ordinal.
+     * @return The room type ID.
+     */
+    public int roomTypeId(int ordinal) {
+        return roomTypeIds[ordinal];
+    }
+
+    /**
+     * Returns the number of ordinals assigned, which bounds every ordinal.
+     *
+     * @return The number of room types seen.
+     */
+    public int size() {
+        return roomTypeIds.length;
+    }
+
+    private synchronized int assign(int roomTypeId) {
+        int ordinal = ordinals.get(roomTypeId, -1);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        ordinal = roomTypeIds.length;
+        int[] updatedIds = Arrays.copyOf(roomTypeIds, ordinal + 1);
+        updatedIds[ordinal] = roomTypeId;
+        IntIntHashMap updated = new IntIntHashMap(updatedIds.length);
+        for (int i = 0; i < updatedIds.length; i++) {
+            updated.put(updatedIds[i], i);
+        }
+        roomTypeIds = updatedIds;
+        ordinals = updated;
+        return ordinal;
+    }
+}
@@ -0,0 +1,28 @@
+package com.spring.ibe.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link RoomTypeDictionary} of every property. Room search aggregates
+ * rates and free rooms into arrays indexed by these ordinals, so joining them
+ * with the room types of a property is an array lookup rather than a hash of
+ * the room type name, and room types sharing a display name stay apart.
+ */
+@Component
+public class RoomTypeOrdinals {
+
+    private final Map<Integer, RoomTypeDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the dictionary of a property.
+     *
+     * @param propertyId The property ID.
+     * @return The dictionary, created empty on first use.
+     */
+    public RoomTypeDictionary of(int propertyId) {
+        return dictionaries.computeIfAbsent(propertyId, id -> new RoomTypeDictionary());
+    }
+}
@@ -2,33 +2,48 @@ package com.spring.ibe.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.constants.Constants;
+import com.spring.ibe.availability.AvailabilityIndex;
+import com.spring.ibe.booking.BookingStatus;
+import com.spring.ibe.booking.BookingTickets;
+import com.spring.ibe.booking.BookingWorker;
 import com.spring.ibe.constants.GraphqlQuery;
 import com.spring.ibe.dto.request.BookingRequestDTO;
 import com.spring.ibe.dto.request.RoomIdRequestDTO;
 import com.spring.ibe.dto.response.BookingResponseDTO;
+import com.spring.ibe.dto.response.BookingTicketDTO;
 import com.spring.ibe.dto.response.MyBookingsResponseDTO;
 import com.spring.ibe.dto.response.ReviewBookingResponseDTO;
 import com.spring.ibe.dto.response.SuccessFulBookingResponseDTO;
 import com.spring.ibe.entity.*;
 import com.spring.ibe.exception.custom.*;
-import com.spring.ibe.repository.BookingCheckRepository;
+import com.spring.ibe.graphql.GraphqlAsyncClient;
+import com.spring.ibe.graphql.GraphqlClient;
+import com.spring.ibe.graphql.GraphqlOperation;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.hold.RoomHold;
+import com.spring.ibe.hold.RoomHoldEngine;
+import com.spring.ibe.hold.RoomReservations;
+import com.spring.ibe.outbox.Outbox;
 import com.spring.ibe.repository.BookingRepository;
 import com.spring.ibe.repository.TenantRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service class for handling booking-related operations.
@@ -37,166 +52,193 @@ import java.util.Objects;
 @Slf4j
 public class BookingService {
 
-    private final String graphqlUrl;
-    private final String apiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final BookingCheckRepository bookingCheckRepository;
+    private final GraphqlClient graphqlClient;
+    private final GraphqlAsyncClient graphqlAsyncClient;
+    private final RoomHoldEngine roomHoldEngine;
+    private final RoomReservations roomReservations;
     private final BookingRepository bookingRepository;
     private final GuestUserService guestUserService;
     private final RoomService roomService;
     private final PasswordEncoder passwordEncoder;
     private final TenantRepository tenantRepository;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookingTickets bookingTickets;
+    private final BookingWorker bookingWorker;
+    private final Outbox outbox;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public BookingService(BookingCheckRepository bookingCheckRepository, PasswordEncoder passwordEncoder, TenantRepository tenantRepository, BookingRepository bookingRepository,
-            GuestUserService guestUserService, RoomService roomService, @Value("${app.graphql_url}") String graphqlUrl,
-            @Value("${app.graphql_api_key}") String apiKey) {
-        this.bookingCheckRepository = bookingCheckRepository;
+    public BookingService(RoomHoldEngine roomHoldEngine, PasswordEncoder passwordEncoder, TenantRepository tenantRepository, BookingRepository bookingRepository,
+            GuestUserService guestUserService, RoomService roomService, GraphqlClient graphqlClient,
+            GraphqlAsyncClient graphqlAsyncClient, RoomReservations roomReservations,
+            AvailabilityIndex availabilityIndex, BookingTickets bookingTickets, BookingWorker bookingWorker,
+            Outbox outbox, TransactionTemplate transactionTemplate) {
+        this.roomHoldEngine = roomHoldEngine;
         this.tenantRepository = tenantRepository;
         this.passwordEncoder = passwordEncoder;
         this.bookingRepository = bookingRepository;
         this.guestUserService = guestUserService;
         this.roomService = roomService;
-        this.apiKey = apiKey;
-        this.graphqlUrl = graphqlUrl;
+        this.graphqlClient = graphqlClient;
+        this.graphqlAsyncClient = graphqlAsyncClient;
+        this.roomReservations = roomReservations;
+        this.availabilityIndex = availabilityIndex;
+        this.bookingTickets = bookingTickets;
+        this.bookingWorker = bookingWorker;
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
-     * Creates a booking check for the provided booking request.
+     * Creates a booking for the provided booking request. The rooms are held for
+     * the stay while the booking is created, so concurrent requests cannot pick
+     * the same rooms; the hold is released once the rooms are marked as booked.
      *
      * @param bookingRequestDTO The DTO containing the booking request details.
      * @return The booking ID.
      */
     public Long createBookingCheck(BookingRequestDTO bookingRequestDTO) {
-        LocalDate startDate = LocalDate.parse(bookingRequestDTO.getStartDate());
-        LocalDate endDate = LocalDate.parse(bookingRequestDTO.getEndDate());
-        Long roomTypeId = bookingRequestDTO.getRoomTypeId();
-        Long propertyId = bookingRequestDTO.getPropertyId();
-        Long tenantId = bookingRequestDTO.getTenantId();
-        Long roomCount = bookingRequestDTO.getRoomCount();
-        Long bookingId = -1L;
+        return completeBooking(bookingRequestDTO, holdRooms(bookingRequestDTO), status -> {
+        });
+    }
 
-        List<Integer> availableRoomIds = roomService.getRoomIds(new RoomIdRequestDTO(bookingRequestDTO.getStartDate(),
-                bookingRequestDTO.getEndDate(), roomTypeId, propertyId, roomCount)).getListRoomIds();
-        List<Integer> selectedRoomIds = new ArrayList<>();
-        for (Integer availableRoomId : availableRoomIds) {
+    /**
+     * Holds the rooms of a booking request and leaves the rest of the booking to
+     * a background worker. Its progress is reported under the returned ticket.
+     *
+     * @param bookingRequestDTO The DTO containing the booking request details.
+     * @return The ticket of the booking.
+     * @throws FetchFailedException if too many bookings are already waiting for
+     *                              a worker.
+     */
+    public BookingTicketDTO submitBooking(BookingRequestDTO bookingRequestDTO) {
+        RoomHold hold = holdRooms(bookingRequestDTO);
+        BookingTicketDTO ticket = bookingTickets.open();
+        String ticketId = ticket.getTicketId();
+        boolean submitted = bookingWorker.trySubmit(() -> {
             try {
-                bookingCheckRepository.insertBookingCheck(tenantId, propertyId, roomTypeId, availableRoomId.longValue(),
-                        startDate, endDate);
-                selectedRoomIds.add(availableRoomId);
-                log.info("Booking check inserted for room id: {}", availableRoomId);
-            } catch (DataIntegrityViolationException e) {
-                log.error("Transaction failed: Constraint violation - {}", e.getMessage());
-            } catch (Exception e) {
-                log.error("Transaction failed: {}", e.getMessage());
-            }
-            if (selectedRoomIds.size() >= roomCount) {
-                break;
-            }
-        }
-        if (selectedRoomIds.size() < roomCount) {
-            for (Integer roomId : selectedRoomIds) {
-                BookingCheckId bookingCheckId = new BookingCheckId(tenantId, propertyId, roomTypeId, roomId.longValue(),
-                        startDate, endDate);
-                BookingCheck bookingCheck = bookingCheckRepository.findById(bookingCheckId).orElse(null);
-                if (!Objects.isNull(bookingCheck)) {
-                    bookingCheckRepository.delete(bookingCheck);
-                    log.info("Booking check deleted for room id: {}", roomId);
-                }
-            }
-            throw new RuntimeException("Booking failed due to non-availability");
-        }
-
-        List<Long> availabilityIds = new ArrayList<>();
-        if (selectedRoomIds.size() >= roomCount) {
-            Long guestId = checkGuestInfo(bookingRequestDTO.getGuestInfo(), bookingRequestDTO.getToken());
-            if (guestId != -1L) {
-                for (Integer selectedRoomId : selectedRoomIds) {
-                    List<Long> availabilityIdsForSelectedRoom = getAvailabilityIdsForSelectedRoom(selectedRoomId,
-                            propertyId, bookingRequestDTO.getStartDate(), bookingRequestDTO.getEndDate());
-                    availabilityIds.addAll(availabilityIdsForSelectedRoom);
-                }
-                Long availabilityId1 = availabilityIds.get(0);
-                bookingId = createBooking(availabilityId1, bookingRequestDTO, guestId);
+                Long bookingId = completeBooking(bookingRequestDTO, hold,
+                        status -> bookingTickets.update(ticketId, status));
                 if (bookingId != -1L) {
-                    for (int i = 1; i < availabilityIds.size(); i++) {
-                        updateRoomAvailability(availabilityIds.get(i), bookingId);
-                    }
+                    bookingTickets.confirm(ticketId, bookingId);
+                    log.info("Created booking with ID: {} for ticket: {}", bookingId, ticketId);
+                } else {
+                    bookingTickets.fail(ticketId, "Booking could not be created");
                 }
+            } catch (RuntimeException e) {
+                log.error("Failed to complete booking for ticket {}: {}", ticketId, e.getMessage());
+                bookingTickets.fail(ticketId, e.getMessage());
             }
+        });
+        if (!submitted) {
+            roomHoldEngine.release(hold);
+            bookingTickets.fail(ticketId, "Too many bookings in progress");
+            throw new FetchFailedException("Too many bookings in progress. Please try again.");
         }
+        return ticket;
+    }
 
-        for (Integer roomId : selectedRoomIds) {
-            BookingCheckId bookingCheckId = new BookingCheckId(tenantId, propertyId, roomTypeId, roomId.longValue(),
-                    startDate, endDate);
-            BookingCheck bookingCheck = bookingCheckRepository.findById(bookingCheckId).orElse(null);
-            if (!Objects.isNull(bookingCheck)) {
-                bookingCheckRepository.delete(bookingCheck);
-                log.info("Booking check deleted for room id: {}", roomId);
-            }
+    /**
+     * Holds rooms for a booking request among the rooms of its room type that
+     * are free for the stay.
+     *
+     * @param bookingRequestDTO The DTO containing the booking request details.
+     * @return The hold.
+     */
+    private RoomHold holdRooms(BookingRequestDTO bookingRequestDTO) {
+        Long roomTypeId = bookingRequestDTO.getRoomTypeId();
+        Long propertyId = bookingRequestDTO.getPropertyId();
+        Long roomCount = bookingRequestDTO.getRoomCount();
+        List<Integer> availableRoomIds = roomService.getRoomIds(new RoomIdRequestDTO(bookingRequestDTO.getStartDate(),
+                bookingRequestDTO.getEndDate(), roomTypeId, propertyId, roomCount)).getListRoomIds();
+        RoomHold hold = roomHoldEngine.hold(propertyId, roomTypeId, availableRoomIds,
+                LocalDate.parse(bookingRequestDTO.getStartDate()), LocalDate.parse(bookingRequestDTO.getEndDate()),
+                Math.toIntExact(roomCount));
+        if (hold == null) {
+            throw new RuntimeException("Booking failed due to non-availability");
         }
-
-        return bookingId;
+        return hold;
     }
 
     /**
-     * Updates the room availability based on the provided availability ID and
-     * booking ID.
+     * Creates the booking of held rooms and releases the hold, also when the
+     * rooms turn out to be taken upstream.
      *
-     * @param availabilityId The availability ID.
-     * @param bookingId      The booking ID.
+     * @param bookingRequestDTO The DTO containing the booking request details.
+     * @param hold              The rooms held for the booking.
+     * @param progress          Receives each step the booking reaches.
+     * @return The booking ID, or -1 if the guest could not be resolved.
      */
-    public void updateRoomAvailability(Long availabilityId, Long bookingId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(Constants.API_KEY_TITLE, apiKey);
-
-        String UPDATE_ROOM_AVAILABILITY = String.format(GraphqlQuery.UPDATE_ROOM_AVAILABILITY, availabilityId,
-                bookingId, bookingId);
-        String requestBody = "{ \"query\": \"" + UPDATE_ROOM_AVAILABILITY + "\" }";
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-        ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                String.class);
-        if (responseEntity.getStatusCode() == HttpStatus.OK) {
-            log.info("Room availability updated for availability id: {} with booking id: {}", availabilityId,
-                    bookingId);
-        } else {
-            log.error("Failed to update room availability for availability id: {} with booking id: {}", availabilityId,
-                    bookingId);
+    private Long completeBooking(BookingRequestDTO bookingRequestDTO, RoomHold hold,
+            Consumer<BookingStatus> progress) {
+        Long propertyId = bookingRequestDTO.getPropertyId();
+        Long bookingId = -1L;
+        try {
+            progress.accept(BookingStatus.RESOLVING_GUEST);
+            Long guestId = checkGuestInfo(bookingRequestDTO.getGuestInfo(), bookingRequestDTO.getToken());
+            if (guestId != -1L) {
+                progress.accept(BookingStatus.CREATING_BOOKING);
+                List<Long> availabilityIds = getAvailabilityIdsForSelectedRooms(hold.getRoomIds(), propertyId,
+                        bookingRequestDTO.getStartDate(), bookingRequestDTO.getEndDate());
+                bookingId = createBooking(hold, availabilityIds, bookingRequestDTO, guestId);
+                availabilityIndex.markBooked(propertyId, availabilityIds);
+            }
+        } finally {
+            roomHoldEngine.release(hold);
         }
+        return bookingId;
     }
 
     /**
-     * Creates a booking with the provided availability ID and booking request.
+     * Creates a booking upstream, connected to the first of the provided
+     * availabilities, and saves it locally. The other availabilities are
+     * attached to the booking through the outbox, recorded in the same
+     * transaction as the local booking. That transaction also hands the
+     * database reservations of the hold over to the booking, so the rooms stay
+     * taken until the outbox has attached them upstream. The reservations are
+     * renewed and the outbox checked before the booking is created upstream;
+     * should the transaction still fail, the upstream booking is cancelled and
+     * its first night released through the outbox.
      *
-     * @param availabilityId    The availability ID.
+     * @param hold              The rooms held for the booking.
+     * @param availabilityIds   The availability IDs of the booked rooms.
      * @param bookingRequestDTO The DTO containing the booking request details.
      * @param guestId           The guest ID.
      * @return The booking ID.
+     * @throws CustomException if the reservations of the hold lapsed or an
+     *                         availability is attached to another booking.
      */
-    public Long createBooking(Long availabilityId, BookingRequestDTO bookingRequestDTO, Long guestId) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(Constants.API_KEY_TITLE, apiKey);
-
-        String CREATE_BOOKING = bookingRequestDTO.getPromotionInfo().getPromotionId() == 0
-                ? String.format(GraphqlQuery.CREATE_BOOKING_WITHOUT_PROMOTION, bookingRequestDTO.getStartDate(),
-                        bookingRequestDTO.getEndDate(), bookingRequestDTO.getAdultCount(),
-                        bookingRequestDTO.getKidCount(), bookingRequestDTO.getCostInfo().getTotalCost().intValue(),
-                        bookingRequestDTO.getCostInfo().getAmountDueAtResort().intValue(), 1,
-                        guestId, bookingRequestDTO.getPropertyId(), availabilityId)
-                : String.format(GraphqlQuery.CREATE_BOOKING, bookingRequestDTO.getStartDate(),
-                        bookingRequestDTO.getEndDate(), bookingRequestDTO.getAdultCount(),
-                        bookingRequestDTO.getKidCount(), bookingRequestDTO.getCostInfo().getTotalCost().intValue(),
-                        bookingRequestDTO.getCostInfo().getAmountDueAtResort().intValue(), 1,
-                        guestId, bookingRequestDTO.getPromotionInfo().getPromotionId(),
-                        bookingRequestDTO.getPropertyId(), availabilityId);
-        String requestBody = "{ \"query\": \"" + CREATE_BOOKING + "\" }";
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-        ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                String.class);
+    public Long createBooking(RoomHold hold, List<Long> availabilityIds, BookingRequestDTO bookingRequestDTO,
+            Long guestId) {
+        if (!roomReservations.renew(hold)) {
+            log.warn("Reservations of hold {} lapsed before the booking was created", hold.getId());
+            throw new CustomException("Booking failed due to non-availability");
+        }
+        for (Long availabilityId : availabilityIds) {
+            Long attachedBookingId = outbox.attachedBookingId(roomAvailabilityKey(availabilityId));
+            if (attachedBookingId != null) {
+                log.warn("Availability {} is attached to booking {} in the outbox", availabilityId,
+                        attachedBookingId);
+                throw new CustomException("Booking failed due to non-availability");
+            }
+        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("checkInDate", bookingRequestDTO.getStartDate() + GraphqlQuery.START_OF_DAY);
+        variables.put("checkOutDate", bookingRequestDTO.getEndDate() + GraphqlQuery.START_OF_DAY);
+        variables.put("adultCount", bookingRequestDTO.getAdultCount());
+        variables.put("childCount", bookingRequestDTO.getKidCount());
+        variables.put("totalCost", bookingRequestDTO.getCostInfo().getTotalCost().intValue());
+        variables.put("amountDueAtResort", bookingRequestDTO.getCostInfo().getAmountDueAtResort().intValue());
+        variables.put("statusId", 1);
+        variables.put("guestId", guestId);
+        variables.put("propertyId", bookingRequestDTO.getPropertyId());
+        variables.put("availabilityId", availabilityIds.get(0));
+        GraphqlOperation operation = GraphqlQuery.CREATE_BOOKING_WITHOUT_PROMOTION;
+        if (bookingRequestDTO.getPromotionInfo().getPromotionId() != 0) {
+            variables.put("promotionId", bookingRequestDTO.getPromotionInfo().getPromotionId());
+            operation = GraphqlQuery.CREATE_BOOKING;
+        }
+        ResponseEntity<String> responseEntity = graphqlClient.execute(operation, variables);
 
         Long bookingId;
         if (responseEntity.getStatusCode() == HttpStatus.OK) {
@@ -215,10 +257,47 @@ public class BookingService {
             log.error("Failed to create booking: {}", responseEntity.getStatusCode());
             throw new FetchFailedException("Failed to parse listRoomAvailabilities response.");
         }
-        createBooking(bookingId, bookingRequestDTO);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                createBooking(bookingId, bookingRequestDTO);
+                roomReservations.book(hold, bookingId);
+                for (Long availabilityId : availabilityIds.subList(1, availabilityIds.size())) {
+                    enqueueRoomAvailabilityUpdate(availabilityId, bookingId, false);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to record booking {}, cancelling it upstream: {}", bookingId, e.getMessage());
+            cancelUnrecordedBooking(bookingId, availabilityIds.get(0));
+            throw e;
+        }
         return bookingId;
     }
 
+    /**
+     * Records the cancellation of a booking created upstream but not saved
+     * locally, and the release of the availability it was created with. The
+     * availability is left alone if another booking's attachment of it is
+     * waiting in the outbox, as that attachment replaces this one upstream.
+     *
+     * @param bookingId      The booking ID.
+     * @param availabilityId The availability the booking was created with.
+     */
+    private void cancelUnrecordedBooking(Long bookingId, Long availabilityId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outbox.enqueue(GraphqlQuery.UPDATE_BOOKING, Map.of("bookingId", bookingId), "booking:" + bookingId,
+                        bookingId);
+                Long attachedBookingId = outbox.attachedBookingId(roomAvailabilityKey(availabilityId));
+                if (attachedBookingId == null || attachedBookingId.equals(bookingId)) {
+                    enqueueRoomAvailabilityUpdate(availabilityId, bookingId, true);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to record the cancellation of booking {} with availability {}: {}", bookingId,
+                    availabilityId, e.getMessage());
+        }
+    }
+
     /**
      * Creates a booking entity in the database.
      *
@@ -256,80 +335,87 @@ public class BookingService {
     }
 
     /**
-     * Retrieves the availability IDs for the selected room.
+     * Records an update of a room availability to be delivered by the outbox
+     * relay, replacing an update of the same availability not yet delivered.
+     * The outbox refuses to replace another booking's attachment, which rolls
+     * the transaction back. Must be called in a transaction.
+     *
+     * @param availabilityId The availability ID.
+     * @param bookingId      The booking the availability is attached to or
+     *                       released from.
+     * @param release        Whether to release the availability.
+     */
+    private void enqueueRoomAvailabilityUpdate(Long availabilityId, Long bookingId, boolean release) {
+        outbox.enqueue(GraphqlQuery.UPDATE_ROOM_AVAILABILITY,
+                Map.of("availabilityId", availabilityId, "bookingId", release ? 0L : bookingId),
+                roomAvailabilityKey(availabilityId), bookingId);
+    }
+
+    private static String roomAvailabilityKey(Long availabilityId) {
+        return "room-availability:" + availabilityId;
+    }
+
+    /**
+     * Retrieves the availability IDs of the selected rooms for every night of a
+     * stay. They are read from the GraphQL endpoint rather than the local
+     * availability index, whose snapshot may be stale, and only unbooked
+     * availabilities are selected, so a room booked elsewhere in the meantime
+     * shows up as a missing night.
      *
-     * @param roomId     The room ID.
+     * @param roomIds    The room IDs.
      * @param propertyId The property ID.
      * @param startDate  The start date.
      * @param endDate    The end date.
-     * @return The list of availability IDs.
+     * @return The availability IDs, one per room and night.
+     * @throws FetchFailedException if they cannot be fetched.
+     * @throws CustomException      if a night of one of the rooms is no longer
+     *                              free.
      */
-    public List<Long> getAvailabilityIdsForSelectedRoom(Integer roomId, Long propertyId, String startDate,
+    public List<Long> getAvailabilityIdsForSelectedRooms(List<Integer> roomIds, Long propertyId, String startDate,
             String endDate) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(Constants.API_KEY_TITLE, apiKey);
-
-        String GET_SELECTED_ROOM_AVAILABILITIES = String.format(GraphqlQuery.GET_SELECTED_ROOM_AVAILABILITIES,
-                startDate, endDate, propertyId, roomId);
-        String requestBody = "{ \"query\": \"" + GET_SELECTED_ROOM_AVAILABILITIES + "\" }";
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-        ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                String.class);
-        List<Long> roomAvailabilities = new ArrayList<>();
-        if (responseEntity.getStatusCode() == HttpStatus.OK) {
-            String jsonResponse = responseEntity.getBody();
-            try {
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode root = objectMapper.readTree(jsonResponse);
-                JsonNode roomAvailabilitiesData = root.path("data").path("listRoomAvailabilities");
-
-                for (JsonNode availability : roomAvailabilitiesData) {
-                    long availabilityId = availability.path("availability_id").asLong();
-                    roomAvailabilities.add(availabilityId);
-                }
-                log.info("Room availabilities retrieved successfully for room ID: {}, property ID: {}", roomId,
-                        propertyId);
-            } catch (IOException e) {
-                log.error("Failed to parse listRoomAvailabilities response: {}", e.getMessage());
-                throw new FetchFailedException("Failed to parse listRoomAvailabilities response.");
+        long nights = LocalDate.parse(startDate).until(LocalDate.parse(endDate), ChronoUnit.DAYS);
+        if (nights < 1 || roomIds.isEmpty()) {
+            throw new CustomException("A booking needs at least one room and one night.");
+        }
+        RoomAvailabilityColumns availabilities = GraphqlAsyncClient.await(graphqlAsyncClient.executeAsync(
+                GraphqlQuery.GET_SELECTED_ROOMS_AVAILABILITIES,
+                Map.of("startDate", startDate + GraphqlQuery.START_OF_DAY, "endDate",
+                        endDate + GraphqlQuery.START_OF_DAY, "propertyId", propertyId, "roomIds", roomIds),
+                RoomAvailabilityColumns::read));
+        List<Long> availabilityIds = new ArrayList<>();
+        Map<Integer, Integer> nightsPerRoom = new HashMap<>();
+        if (availabilities != null) {
+            int[] fetchedAvailabilityIds = availabilities.getAvailabilityId();
+            int[] fetchedRoomIds = availabilities.getRoomId();
+            for (int i = 0; i < availabilities.getSize(); i++) {
+                availabilityIds.add((long) fetchedAvailabilityIds[i]);
+                nightsPerRoom.merge(fetchedRoomIds[i], 1, Integer::sum);
             }
-        } else {
-            log.error("Failed to fetch room availabilities for room ID: {}, property ID: {}", roomId, propertyId);
-            throw new FetchFailedException("Failed to parse listRoomAvailabilities response.");
         }
-        return roomAvailabilities;
+        for (Integer roomId : roomIds) {
+            if (nightsPerRoom.getOrDefault(roomId, 0) != nights) {
+                log.warn("Room {} of property {} is free for {} of {} nights from {}", roomId, propertyId,
+                        nightsPerRoom.getOrDefault(roomId, 0), nights, startDate);
+                throw new CustomException("Booking failed due to non-availability");
+            }
+        }
+        log.info("Room availabilities retrieved successfully for room IDs: {}, property ID: {}", roomIds, propertyId);
+        return availabilityIds;
     }
 
     /**
      * Checks if the guest information exists, and creates a new guest if not.
+     * The guest is looked up by email, and its token and subscription are saved
+     * only if they changed.
      *
      * @param guestDTO The DTO containing the guest information.
      * @return The guest ID.
      */
     public Long checkGuestInfo(BookingRequestDTO.GuestDTO guestDTO, String token) {
-        List<GuestUser> guestUsers = guestUserService.getAllUsers();
-        Long guestId = -1L;
-        boolean guestExists = false;
-        for (GuestUser guestUser : guestUsers) {
-            if (guestUser.getEmailId().equals(guestDTO.getEmailId())) {
-                guestExists = true;
-                guestId = guestUser.getUserId();
-                break;
-            }
-        }
-        if (!guestExists) {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-
-            String CREATE_GUEST = String.format(GraphqlQuery.CREATE_GUEST, guestDTO.getFirstName());
-            String requestBody = "{ \"query\": \"" + CREATE_GUEST + "\" }";
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
+        Long guestId = guestUserService.findGuestId(guestDTO.getEmailId());
+        if (guestId == null) {
+            ResponseEntity<String> responseEntity = graphqlClient.execute(GraphqlQuery.CREATE_GUEST,
+                    Map.of("guestName", guestDTO.getFirstName()));
             if (responseEntity.getStatusCode() == HttpStatus.OK) {
                 String jsonResponse = responseEntity.getBody();
                 try {
@@ -348,8 +434,8 @@ public class BookingService {
             }
 
         }
-        guestUserService.createUser(new GuestUser(guestId, guestDTO.getEmailId(), token, guestDTO.isHasSubscribed()));
-        return guestId;
+        return guestUserService.upsertUser(
+                new GuestUser(guestId, guestDTO.getEmailId(), token, guestDTO.isHasSubscribed()));
     }
 
     /**
@@ -358,16 +444,10 @@ public class BookingService {
      * @param bookingId The booking ID.
      */
     public void cancelBooking(Long bookingId) {
-        updateBooking(bookingId);
         try {
             Booking booking = bookingRepository.findById(bookingId)
                     .orElseThrow(() -> new DataNotFoundException("Booking with given bookingId does not exist"));
-            booking.setActive(false);
-            bookingRepository.save(booking);
-            List<Long> availabilityIdsForBookingId = getAvailabilityIdsForBookingId(bookingId);
-            for (Long availabilityId : availabilityIdsForBookingId) {
-                updateRoomAvailability(availabilityId, 0L);
-            }
+            deactivateBooking(booking);
             log.info("Booking with ID {} cancelled successfully", bookingId);
         } catch (DataNotFoundException e) {
             log.error("Error occurred while cancelling booking: {}", e.getMessage());
@@ -383,13 +463,7 @@ public class BookingService {
             Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> new DataNotFoundException("Booking with given bookingId does not exist"));
             GuestUser user = guestUserService.getUser(booking.getGuestInfo().getEmailId());
             if(user.getToken().equals(token)) {
-                updateBooking(bookingId);
-                booking.setActive(false);
-                bookingRepository.save(booking);
-                List<Long> availabilityIdsForBookingId = getAvailabilityIdsForBookingId(bookingId);
-                for (Long availabilityId : availabilityIdsForBookingId) {
-                    updateRoomAvailability(availabilityId, 0L);
-                }
+                deactivateBooking(booking);
                 log.info("Booking with ID {} cancelled successfully", bookingId);
             }
             else{
@@ -407,6 +481,32 @@ public class BookingService {
         }
     }
 
+    /**
+     * Marks a booking inactive and records the upstream cancellation and the
+     * release of its room availabilities in the outbox, in one transaction. The
+     * availabilities are released whether they are attached upstream or still
+     * waiting in the outbox, and are recorded as free in the local availability
+     * index. The database reservations of the booking are released with it.
+     *
+     * @param booking The booking.
+     */
+    private void deactivateBooking(Booking booking) {
+        Long bookingId = booking.getBookingId();
+        Set<Long> availabilityIds = new LinkedHashSet<>(getAvailabilityIdsForBookingId(bookingId));
+        availabilityIds.addAll(outbox.undeliveredAvailabilityIds(bookingId));
+        transactionTemplate.executeWithoutResult(status -> {
+            booking.setActive(false);
+            bookingRepository.save(booking);
+            roomReservations.releaseBooking(bookingId);
+            outbox.enqueue(GraphqlQuery.UPDATE_BOOKING, Map.of("bookingId", bookingId), "booking:" + bookingId,
+                    bookingId);
+            for (Long availabilityId : availabilityIds) {
+                enqueueRoomAvailabilityUpdate(availabilityId, bookingId, true);
+            }
+        });
+        availabilityIndex.markFree(booking.getPropertyId(), new ArrayList<>(availabilityIds));
+    }
+
     /**
      * Retrieves the availability IDs for the provided booking ID.
      *
@@ -416,17 +516,8 @@ public class BookingService {
     private List<Long> getAvailabilityIdsForBookingId(Long bookingId) {
         try {
             log.info("Retrieving availability IDs for booking ID {}", bookingId);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-
-            String GET_AVAILABILITIES_BY_BOOKING_ID = String.format(GraphqlQuery.GET_AVAILABILITIES_BY_BOOKING_ID,
-                    bookingId);
-            String requestBody = "{ \"query\": \"" + GET_AVAILABILITIES_BY_BOOKING_ID + "\" }";
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
+            ResponseEntity<String> responseEntity = graphqlClient.execute(
+                    GraphqlQuery.GET_AVAILABILITIES_BY_BOOKING_ID, Map.of("bookingId", bookingId));
             List<Long> roomAvailabilities = new ArrayList<>();
             if (responseEntity.getStatusCode() == HttpStatus.OK) {
                 String jsonResponse = responseEntity.getBody();
@@ -458,36 +549,6 @@ public class BookingService {
         }
     }
 
-    /**
-     * Updates the booking status based on the provided booking ID.
-     *
-     * @param bookingId The booking ID.
-     */
-    private void updateBooking(Long bookingId) {
-        try {
-            log.info("Updating booking with ID {}", bookingId);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-
-            String UPDATE_BOOKING = String.format(GraphqlQuery.UPDATE_BOOKING, bookingId);
-            String requestBody = "{ \"query\": \"" + UPDATE_BOOKING + "\" }";
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
-            if (responseEntity.getStatusCode() != HttpStatus.OK) {
-                log.error("Failed to update booking with ID {}: Unexpected status code {}", bookingId,
-                        responseEntity.getStatusCodeValue());
-                throw new RuntimeException("Failed to update booking.");
-            }
-            log.info("Booking with ID {} updated successfully", bookingId);
-        } catch (Exception e) {
-            log.error("Failed to update booking with ID {}: {}", bookingId, e.getMessage());
-            throw new RuntimeException("Failed to update booking.");
-        }
-    }
-
     /**
      * Retrieves the booking details for the provided booking ID.
      *
@@ -608,11 +669,7 @@ public class BookingService {
             if(passwordEncoder.matches(secretKey, tenant.getSecretKey())){
                 List<Booking> bookings = bookingRepository.findAll();
                 for (Booking booking : bookings) {
-                    updateBooking(booking.getBookingId());
-                    List<Long> availabilityIdsForBookingId = getAvailabilityIdsForBookingId(booking.getBookingId());
-                    for (Long availabilityId : availabilityIdsForBookingId) {
-                        updateRoomAvailability(availabilityId, 0L);
-                    }
+                    deactivateBooking(booking);
                 }
                 bookingRepository.deleteAll();
                 log.info("All bookings deleted successfully");
@@ -7,6 +7,7 @@ import com.spring.ibe.exception.custom.UnprocessableEntityException;
 import com.spring.ibe.repository.ConfigRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
@@ -56,7 +57,7 @@ public class ConfigService {
      * @throws DataNotFoundException Thrown if no configuration settings are found
      *                               for the given ID.
      */
-    @Cacheable("config")
+    @Cacheable(cacheNames = "config", key = "#tenantId")
     public ConfigRequestDTO getConfig(long tenantId) throws DataNotFoundException {
         try {
             Config config = configRepository.findById(tenantId).orElseThrow(() -> {
@@ -79,6 +80,7 @@ public class ConfigService {
      * @throws UnprocessableEntityException Thrown if there is an issue updating the
      *                                      configuration.
      */
+    @CacheEvict(cacheNames = "config", key = "#tenantId")
     public void updateConfig(long tenantId, ConfigRequestDTO configRequestDTO) throws UnprocessableEntityException {
         try {
             Config config = createConfig(configRequestDTO);
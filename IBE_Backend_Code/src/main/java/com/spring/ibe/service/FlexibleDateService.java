@@ -0,0 +1,171 @@
+package com.spring.ibe.service;
+
+import com.spring.ibe.availability.AvailabilityIndex;
+import com.spring.ibe.dto.request.FlexibleDateRequestDTO;
+import com.spring.ibe.dto.response.FlexibleDateResponseDTO;
+import com.spring.ibe.exception.custom.CustomException;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.rate.RateIndex;
+import com.spring.ibe.search.RoomSearchProperties;
+import com.spring.ibe.search.RoomTypeDictionary;
+import com.spring.ibe.search.RoomTypeOrdinals;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service class for flexible-date searches, which find the cheapest stays of a
+ * given length within a span of dates in one call. Average nightly rates per
+ * check-in day come from sliding windows over the rate prefix sums, free rooms
+ * per check-in day from the availability bitsets, and the cheapest stays that
+ * have enough free rooms are kept in a bounded heap.
+ */
+@Service
+@Slf4j
+public class FlexibleDateService {
+
+    private static final Comparator<Candidate> CHEAPEST_FIRST = Comparator
+            .comparingDouble((Candidate candidate) -> candidate.averageRate)
+            .thenComparingInt(candidate -> candidate.checkIn)
+            .thenComparingInt(candidate -> candidate.roomType);
+
+    private final RateIndex rateIndex;
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomTypeOrdinals roomTypeOrdinals;
+    private final FanOutExecutor fanOutExecutor;
+    private final RoomSearchProperties roomSearchProperties;
+
+    /**
+     * Constructor for FlexibleDateService.
+     *
+     * @param rateIndex            The local rate index.
+     * @param availabilityIndex    The local room availability index.
+     * @param roomTypeOrdinals     The room type ordinals rates and free rooms
+     *                             are keyed by.
+     * @param fanOutExecutor       The shared executor fetching rates and free
+     *                             rooms concurrently.
+     * @param roomSearchProperties The flexible-date search limits.
+     */
+    public FlexibleDateService(RateIndex rateIndex, AvailabilityIndex availabilityIndex,
+            RoomTypeOrdinals roomTypeOrdinals, FanOutExecutor fanOutExecutor,
+            RoomSearchProperties roomSearchProperties) {
+        this.rateIndex = rateIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.roomTypeOrdinals = roomTypeOrdinals;
+        this.fanOutExecutor = fanOutExecutor;
+        this.roomSearchProperties = roomSearchProperties;
+    }
+
+    /**
+     * Finds the cheapest stays of the requested length that start and end
+     * within the requested dates and have the requested number of rooms free
+     * for every night, optionally in one room type only.
+     *
+     * @param flexibleDateRequestDTO The DTO containing the stay length, the span
+     *                               of dates and the filters.
+     * @return The DTO containing the cheapest stays, cheapest first.
+     * @throws CustomException      if the dates are invalid or the span is too
+     *                              long or too short for the stay.
+     * @throws FetchFailedException if rates or availabilities cannot be fetched.
+     */
+    public FlexibleDateResponseDTO findCheapestStays(FlexibleDateRequestDTO flexibleDateRequestDTO) {
+        int nights = flexibleDateRequestDTO.getNights();
+        int spanDays = spanDays(flexibleDateRequestDTO.getStartDate(), flexibleDateRequestDTO.getEndDate());
+        if (spanDays > roomSearchProperties.getFlexibleDatesMaxSpanDays()) {
+            throw new CustomException("The dates may span at most "
+                    + roomSearchProperties.getFlexibleDatesMaxSpanDays() + " days.");
+        }
+        int checkIns = spanDays - nights + 1;
+        if (checkIns < 1) {
+            throw new CustomException("The dates are too close together for a stay of " + nights + " nights.");
+        }
+        int limit = Math.min(flexibleDateRequestDTO.getLimit(), roomSearchProperties.getFlexibleDatesMaxResults());
+        int roomCount = flexibleDateRequestDTO.getRoomCount();
+
+        Integer propertyId = flexibleDateRequestDTO.getPropertyId();
+        String startDate = flexibleDateRequestDTO.getStartDate();
+        CompletableFuture<double[][]> ratesFuture = fanOutExecutor.supplyAsync(
+                () -> rateIndex.averageRatesByCheckIn(propertyId, startDate, checkIns, nights));
+        CompletableFuture<int[][]> freeRoomsFuture = fanOutExecutor.supplyAsync(
+                () -> availabilityIndex.countFreeRoomsByCheckIn(propertyId, startDate, checkIns, nights));
+        fanOutExecutor.awaitAll(List.of(ratesFuture, freeRoomsFuture));
+        double[][] averageRates = ratesFuture.join();
+        int[][] freeRooms = freeRoomsFuture.join();
+
+        RoomTypeDictionary roomTypes = roomTypeOrdinals.of(propertyId);
+        int onlyRoomType = -1;
+        if (flexibleDateRequestDTO.getRoomTypeId() != null) {
+            onlyRoomType = roomTypes.find(flexibleDateRequestDTO.getRoomTypeId());
+            if (onlyRoomType < 0) {
+                log.info("Room type {} has neither rates nor rooms.", flexibleDateRequestDTO.getRoomTypeId());
+                return new FlexibleDateResponseDTO(new ArrayList<>());
+            }
+        }
+
+        PriorityQueue<Candidate> cheapest = new PriorityQueue<>(limit + 1, CHEAPEST_FIRST.reversed());
+        int roomTypeCount = Math.min(averageRates.length, freeRooms.length);
+        for (int roomType = 0; roomType < roomTypeCount; roomType++) {
+            if (onlyRoomType >= 0 && roomType != onlyRoomType) {
+                continue;
+            }
+            for (int checkIn = 0; checkIn < checkIns; checkIn++) {
+                double averageRate = averageRates[roomType][checkIn];
+                if (Double.isNaN(averageRate) || freeRooms[roomType][checkIn] < roomCount) {
+                    continue;
+                }
+                Candidate candidate = new Candidate(roomType, checkIn, averageRate);
+                if (cheapest.size() < limit) {
+                    cheapest.add(candidate);
+                } else if (CHEAPEST_FIRST.compare(candidate, cheapest.peek()) < 0) {
+                    cheapest.poll();
+                    cheapest.add(candidate);
+                }
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>(cheapest);
+        candidates.sort(CHEAPEST_FIRST);
+        LocalDate firstCheckIn = LocalDate.parse(startDate);
+        List<FlexibleDateResponseDTO.Stay> stays = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            LocalDate checkIn = firstCheckIn.plusDays(candidate.checkIn);
+            stays.add(new FlexibleDateResponseDTO.Stay(checkIn.toString(), checkIn.plusDays(nights).toString(),
+                    roomTypes.roomTypeId(candidate.roomType), candidate.averageRate,
+                    candidate.averageRate * nights, freeRooms[candidate.roomType][candidate.checkIn]));
+        }
+        log.info("Found {} cheapest stays of {} nights among {} check-in days.", stays.size(), nights, checkIns);
+        return new FlexibleDateResponseDTO(stays);
+    }
+
+    private static int spanDays(String startDate, String endDate) {
+        try {
+            return (int) ChronoUnit.DAYS.between(LocalDate.parse(startDate), LocalDate.parse(endDate));
+        } catch (DateTimeParseException e) {
+            throw new CustomException("Dates must be given as yyyy-MM-dd.");
+        }
+    }
+
+    /**
+     * A stay in one room type starting on one check-in day of the span.
+     */
+    private static final class Candidate {
+        private final int roomType;
+        private final int checkIn;
+        private final double averageRate;
+
+        private Candidate(int roomType, int checkIn, double averageRate) {
+            this.roomType = roomType;
+            this.checkIn = checkIn;
+            this.averageRate = averageRate;
+        }
+    }
+}
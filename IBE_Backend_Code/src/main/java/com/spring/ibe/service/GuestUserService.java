@@ -6,6 +6,8 @@ import com.spring.ibe.exception.custom.DataNotFoundException;
 import com.spring.ibe.repository.GuestUserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -40,13 +42,44 @@ public class GuestUserService {
     }
 
     /**
-     * Creates a new guest user.
+     * Retrieves the ID of the guest user with an email. Found IDs are cached,
+     * since the ID of a guest user never changes.
      *
-     * @param guestUser The GuestUser object to be created.
+     * @param emailId The email of the guest user.
+     * @return The guest user ID, or null if no guest user has the email.
      */
-    public void createUser(GuestUser guestUser) {
-        guestUserRepository.save(guestUser);
-        log.info("Guest user created: {}", guestUser);
+    @Cacheable(cacheNames = "guestIds", key = "#emailId", unless = "#result == null")
+    public Long findGuestId(String emailId) {
+        GuestUser guestUser = guestUserRepository.findByEmailId(emailId);
+        return guestUser == null ? null : guestUser.getUserId();
+    }
+
+    /**
+     * Creates a guest user, or updates it if it changed. If another guest user
+     * was created with the same email in the meantime, that one is kept and the
+     * given guest, already created upstream, is left unused.
+     *
+     * @param guestUser The GuestUser object to be saved.
+     * @return The ID of the guest user stored for the email.
+     */
+    public Long upsertUser(GuestUser guestUser) {
+        if (guestUser.equals(guestUserRepository.findById(guestUser.getUserId()).orElse(null))) {
+            log.debug("Guest user unchanged: {}", guestUser.getUserId());
+            return guestUser.getUserId();
+        }
+        try {
+            guestUserRepository.save(guestUser);
+            log.info("Guest user saved: {}", guestUser);
+            return guestUser.getUserId();
+        } catch (DataIntegrityViolationException e) {
+            GuestUser existing = guestUserRepository.findByEmailId(guestUser.getEmailId());
+            if (existing == null) {
+                throw e;
+            }
+            log.warn("Guest user with email {} already exists with ID: {}; upstream guest {} is left unused",
+                    guestUser.getEmailId(), existing.getUserId(), guestUser.getUserId());
+            return existing.getUserId();
+        }
     }
 
     public void updateUser(GuestUserRequestDTO guestUserRequestDTO) {
@@ -2,16 +2,15 @@ package com.spring.ibe.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.constants.Constants;
 import com.spring.ibe.constants.GraphqlQuery;
 import com.spring.ibe.dto.response.MinimumRateResponseDTO;
 import com.spring.ibe.exception.custom.CustomException;
+import com.spring.ibe.graphql.GraphqlClient;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
 import java.util.TreeMap;
@@ -23,22 +22,17 @@ import java.util.TreeMap;
 @Slf4j
 public class MinimumRateService {
 
-    private final String graphqlUrl;
-    private final String apiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final GraphqlClient graphqlClient;
 
-    private static final String GET_NIGHTLY_RATES = GraphqlQuery.GET_NIGHTLY_RATES;
+    private static final int DEFAULT_PROPERTY_ID = 11;
 
     /**
      * Constructor for MinimumRateService.
      * 
-     * @param graphqlUrl The GraphQL URL.
-     * @param apiKey     The API key for authorization.
+     * @param graphqlClient The gateway for the GraphQL endpoint.
      */
-    public MinimumRateService(@Value("${app.graphql_url}") String graphqlUrl,
-            @Value("${app.graphql_api_key}") String apiKey) {
-        this.graphqlUrl = graphqlUrl;
-        this.apiKey = apiKey;
+    public MinimumRateService(GraphqlClient graphqlClient) {
+        this.graphqlClient = graphqlClient;
     }
 
     /**
@@ -48,18 +42,11 @@ public class MinimumRateService {
      * @param endDate   The end date.
      * @return The DTO containing the minimum nightly rates.
      */
-    @Cacheable("minimumRates")
+    @Cacheable(cacheNames = "minimumRates", key = "{#startDate, #endDate}")
     public MinimumRateResponseDTO getMinimumRates(String startDate, String endDate) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(Constants.API_KEY_TITLE, apiKey);
-
-        String requestBody = "{ \"query\": \"" + GET_NIGHTLY_RATES + "\" }";
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-
         try {
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
+            ResponseEntity<String> responseEntity = graphqlClient.execute(GraphqlQuery.GET_NIGHTLY_RATES,
+                    Map.of("propertyId", DEFAULT_PROPERTY_ID));
             MinimumRateResponseDTO minimumRateResponseDTO;
             if (responseEntity.getStatusCode() == HttpStatus.OK) {
                 String jsonResponse = responseEntity.getBody();
@@ -85,7 +72,6 @@ public class MinimumRateService {
      * @param endDate      The end date.
      * @return The filtered room rates as a string.
      */
-    @Cacheable("roomRates")
     private static String filterRoomRates(String jsonResponse, String startDate, String endDate) {
         try {
             ObjectMapper objectMapper = new ObjectMapper();
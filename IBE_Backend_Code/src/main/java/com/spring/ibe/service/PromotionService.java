@@ -2,7 +2,6 @@ package com.spring.ibe.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.constants.Constants;
 import com.spring.ibe.constants.GraphqlQuery;
 import com.spring.ibe.dto.request.AddPromotionRequestDTO;
 import com.spring.ibe.dto.request.PromotionRequestDTO;
@@ -10,14 +9,14 @@ import com.spring.ibe.dto.response.PromotionResponseDTO;
 import com.spring.ibe.entity.Promotion;
 import com.spring.ibe.exception.custom.FetchFailedException;
 import com.spring.ibe.exception.custom.UnprocessableEntityException;
+import com.spring.ibe.graphql.GraphqlClient;
 import com.spring.ibe.repository.PromotionRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.time.DayOfWeek;
@@ -25,6 +24,7 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for handling promotions.
@@ -34,44 +34,32 @@ import java.util.List;
 public class PromotionService {
 
     private final PromotionRepository promotionRepository;
-    private static String graphqlUrl;
-    private static String apiKey;
-    private static final RestTemplate restTemplate = new RestTemplate();
-
-    private static final String GET_PROMOTIONS = GraphqlQuery.GET_PROMOTIONS;
+    private final GraphqlClient graphqlClient;
 
     /**
      * Constructor for PromotionService.
      *
-     * @param graphqlUrl The URL for the GraphQL endpoint.
-     * @param apiKey     The API key for accessing the GraphQL endpoint.
+     * @param graphqlClient       The gateway for the GraphQL endpoint.
+     * @param promotionRepository The repository for promotions.
      */
     @Autowired
-    public PromotionService(@Value("${app.graphql_url}") String graphqlUrl,
-            @Value("${app.graphql_api_key}") String apiKey, PromotionRepository promotionRepository) {
-        this.graphqlUrl = graphqlUrl;
-        this.apiKey = apiKey;
+    public PromotionService(GraphqlClient graphqlClient, PromotionRepository promotionRepository) {
+        this.graphqlClient = graphqlClient;
         this.promotionRepository = promotionRepository;
     }
 
     /**
-     * Retrieve promotions from the GraphQL endpoint.
+     * Retrieve promotions from the GraphQL endpoint. The result is cached per
+     * stay and guest category.
      *
      * @param promotionRequestDTO The DTO containing promotion request details.
      * @return A DTO containing the promotions retrieved.
      */
-    @Cacheable("promotions")
-    public static PromotionResponseDTO getPromotions(PromotionRequestDTO promotionRequestDTO) {
+    @Cacheable(cacheNames = "promotions", key = "{#promotionRequestDTO.startDate, #promotionRequestDTO.endDate, "
+            + "#promotionRequestDTO.seniorCitizen, #promotionRequestDTO.military, #promotionRequestDTO.kduMembership}")
+    public PromotionResponseDTO getPromotions(PromotionRequestDTO promotionRequestDTO) {
         log.info("Retrieving promotions...");
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set(Constants.API_KEY_TITLE, apiKey);
-
-        String requestBody = "{ \"query\": \"" + GET_PROMOTIONS + "\" }";
-
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                String.class);
+        ResponseEntity<String> responseEntity = graphqlClient.execute(GraphqlQuery.GET_PROMOTIONS, Map.of());
         if (responseEntity.getStatusCode() == HttpStatus.OK) {
             String jsonResponse = responseEntity.getBody();
             try {
@@ -132,7 +120,6 @@ public class PromotionService {
      * @param endDate   The end date of the date range.
      * @return True if the date range covers a weekend, false otherwise.
      */
-    @Cacheable("coversWeekend")
     private static boolean coversWeekend(String startDate, String endDate) {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
@@ -157,7 +144,6 @@ public class PromotionService {
      * Checks if the date range covers a long weekend (3 or more days including a
      * weekend).
      */
-    @Cacheable("coversLongWeekend")
     private static boolean coversLongWeekend(String startDate, String endDate) {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
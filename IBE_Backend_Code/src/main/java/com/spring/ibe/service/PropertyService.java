@@ -1,14 +1,14 @@
 package com.spring.ibe.service;
 
-import com.spring.ibe.constants.Constants;
 import com.spring.ibe.constants.GraphqlQuery;
 import com.spring.ibe.dto.response.PropertyResponseDTO;
+import com.spring.ibe.graphql.GraphqlClient;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.http.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
 
 /**
  * Service class for interacting with property-related operations.
@@ -17,22 +17,15 @@ import org.springframework.web.client.RestTemplate;
 @Service
 public class PropertyService {
 
-    private final String graphqlUrl;
-    private final String apiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    private static final String GET_PROPERTIES = GraphqlQuery.GET_PROPERTIES;
+    private final GraphqlClient graphqlClient;
 
     /**
      * Constructor for initializing the PropertyService.
      *
-     * @param graphqlUrl The GraphQL endpoint URL.
-     * @param apiKey     The API key for authentication.
+     * @param graphqlClient The gateway for the GraphQL endpoint.
      */
-    public PropertyService(@Value("${app.graphql_url}") String graphqlUrl,
-            @Value("${app.graphql_api_key}") String apiKey) {
-        this.graphqlUrl = graphqlUrl;
-        this.apiKey = apiKey;
+    public PropertyService(GraphqlClient graphqlClient) {
+        this.graphqlClient = graphqlClient;
     }
 
     /**
@@ -43,14 +36,7 @@ public class PropertyService {
     @Cacheable("properties")
     public PropertyResponseDTO getProperties() {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-            String requestBody = "{ \"query\": \"" + GET_PROPERTIES + "\" }";
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
+            ResponseEntity<String> responseEntity = graphqlClient.execute(GraphqlQuery.GET_PROPERTIES, Map.of());
 
             log.info("Successfully retrieved properties from GraphQL endpoint.");
 
@@ -31,11 +31,14 @@ import static com.spring.ibe.util.RoomDataConverter.*;
 public class RoomDataService {
     private final RoomDataRepository roomDataRepository;
     private final PromotionRepository promotionRepository;
+    private final PromotionService promotionService;
 
     @Autowired
-    public RoomDataService(RoomDataRepository roomDataRepository, PromotionRepository promotionRepository) {
+    public RoomDataService(RoomDataRepository roomDataRepository, PromotionRepository promotionRepository,
+            PromotionService promotionService) {
         this.roomDataRepository = roomDataRepository;
         this.promotionRepository = promotionRepository;
+        this.promotionService = promotionService;
     }
 
     /**
@@ -69,7 +72,7 @@ public class RoomDataService {
             RoomData roomData = roomDataRepository.findById(roomDataId)
                     .orElseThrow(() -> new DataNotFoundException("No room data exists for the given ID."));
             log.info("Room data found for tenantId: {}, roomTypeId: {}", tenantId, roomTypeId);
-            return createRoomDataResponseDTO(roomData, promotionRequestDTO);
+            return createRoomDataResponseDTO(roomData, promotionService.getPromotions(promotionRequestDTO));
         } catch (DataNotFoundException e) {
             log.error("Room data not found for tenantId: {}, roomTypeId: {}", tenantId, roomTypeId);
             throw e;
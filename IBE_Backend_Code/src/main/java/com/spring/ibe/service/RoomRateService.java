@@ -2,25 +2,31 @@ package com.spring.ibe.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.constants.Constants;
+import com.spring.ibe.availability.AvailabilityIndex;
 import com.spring.ibe.constants.GraphqlQuery;
 import com.spring.ibe.dto.request.RoomRateRequestDTO;
-import com.spring.ibe.dto.response.RoomAvailabilitiesResponseDTO;
-import com.spring.ibe.dto.response.RoomRateResponseDTO;
 import com.spring.ibe.dto.response.RoomRatesResponseDTO;
 import com.spring.ibe.dto.response.RoomTypeRateResponseDTO;
 import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.GraphqlBatch;
+import com.spring.ibe.graphql.GraphqlClient;
+import com.spring.ibe.graphql.GraphqlPager;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.graphql.RoomRateColumns;
+import com.spring.ibe.rate.RateIndex;
+import com.spring.ibe.search.RoomTypeDictionary;
+import com.spring.ibe.search.RoomTypeOrdinals;
+import com.spring.ibe.util.IntIntHashMap;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.function.IntPredicate;
 
 /**
  * Service class for managing room rate operations.
@@ -29,252 +35,236 @@ import java.util.concurrent.*;
 @Slf4j
 public class RoomRateService {
 
-    private static String graphqlUrl = null;
-    private static String apiKey = null;
-    private static final RestTemplate restTemplate = new RestTemplate();
+    private static GraphqlClient graphqlClient = null;
+    private static GraphqlPager graphqlPager = null;
+    private static AvailabilityIndex availabilityIndex = null;
+    private static RateIndex rateIndex = null;
+    private static RoomTypeOrdinals roomTypeOrdinals = null;
+
+    public RoomRateService(GraphqlClient graphqlClient, GraphqlPager graphqlPager,
+            AvailabilityIndex availabilityIndex, RateIndex rateIndex, RoomTypeOrdinals roomTypeOrdinals) {
+        RoomRateService.graphqlClient = graphqlClient;
+        RoomRateService.graphqlPager = graphqlPager;
+        RoomRateService.availabilityIndex = availabilityIndex;
+        RoomRateService.rateIndex = rateIndex;
+        RoomRateService.roomTypeOrdinals = roomTypeOrdinals;
+    }
+
+    /**
+     * Checks whether the average rate per room type for a stay can be answered by
+     * the local rate index, in which case the rates need not be fetched.
+     *
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @param propertyId The ID of the property.
+     * @return true if the index covers the stay.
+     */
+    public static boolean isRateIndexed(String startDate, String endDate, Integer propertyId) {
+        return rateIndex.covers(propertyId, startDate, endDate);
+    }
 
-    public RoomRateService(@Value("${app.graphql_url}") String graphqlUrl,
-            @Value("${app.graphql_api_key}") String apiKey) {
-        this.graphqlUrl = graphqlUrl;
-        this.apiKey = apiKey;
+    /**
+     * Checks whether the number of free rooms per room type for a stay can be
+     * answered by the local availability index, in which case the availabilities
+     * need not be fetched.
+     *
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @param propertyId The ID of the property.
+     * @return true if the index covers the stay.
+     */
+    public static boolean isAvailabilityIndexed(String startDate, String endDate, Integer propertyId) {
+        return availabilityIndex.covers(propertyId, startDate, endDate);
     }
 
     /**
-     * Retrieves room availabilities within the specified date range and property.
-     * 
+     * Adds the first page of room availabilities within the specified date range
+     * and property to a batch.
+     *
+     * @param batch      The batch to add the query to.
      * @param startDate  The start date of the availability search.
      * @param endDate    The end date of the availability search.
      * @param propertyId The ID of the property.
-     * @return The DTO containing room availabilities.
-     * @throws FetchFailedException if the room availabilities cannot be fetched.
+     * @return The batch part holding the first page once decoded.
      */
-    public static RoomAvailabilitiesResponseDTO getRoomAvailabilities(String startDate, String endDate,
-            Integer propertyId) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-            String GET_ROOM_AVAILABILITIES = String.format(GraphqlQuery.GET_ROOM_AVAILABILITIES, startDate, endDate,
-                    propertyId);
-
-            String requestBody = "{ \"query\": \"" + GET_ROOM_AVAILABILITIES + "\" }";
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
-
-            if (responseEntity.getStatusCode() == HttpStatus.OK) {
-                log.info("Room availabilities fetched successfully.");
-                String jsonResponse = responseEntity.getBody();
-                ObjectMapper objectMapper = new ObjectMapper();
-                try {
-                    JsonNode root = objectMapper.readTree(jsonResponse);
-                    JsonNode availabilitiesData = root.path("data").path("listRoomAvailabilities");
-                    Map<Integer, Integer> roomTypeCountMap = new HashMap<>();
-                    List<RoomAvailabilitiesResponseDTO.RoomAvailability> availabilities = new ArrayList<>();
-
-                    for (JsonNode availabilityNode : availabilitiesData) {
-                        RoomAvailabilitiesResponseDTO.RoomAvailability availability = new RoomAvailabilitiesResponseDTO.RoomAvailability();
-                        availability.setDate(availabilityNode.path("date").asText());
-
-                        JsonNode roomNode = availabilityNode.path("room");
-                        RoomAvailabilitiesResponseDTO.Room room = new RoomAvailabilitiesResponseDTO.Room();
-                        int roomId = roomNode.path("room_id").asInt();
-                        room.setRoomId(roomId);
-
-                        roomTypeCountMap.put(roomId, roomTypeCountMap.getOrDefault(roomId, 0) + 1);
-
-                        RoomAvailabilitiesResponseDTO.RoomType roomType = new RoomAvailabilitiesResponseDTO.RoomType();
-                        JsonNode roomTypeNode = roomNode.path("room_type");
-                        roomType.setRoomTypeName(roomTypeNode.path("room_type_name").asText());
-
-                        room.setRoomType(roomType);
-                        availability.setRoom(room);
-                        availabilities.add(availability);
-                    }
-
-                    List<Integer> availableRoomIds = new ArrayList<>();
-                    int totalDates = calculateTotalDates(startDate, endDate);
+    public static GraphqlBatch.Part<RoomAvailabilityColumns> addRoomAvailabilities(GraphqlBatch batch,
+            String startDate, String endDate, Integer propertyId) {
+        return batch.add(GraphqlQuery.GET_ROOM_AVAILABILITIES,
+                graphqlPager.firstKeysetPage(dateRangeVariables(startDate, endDate, propertyId)),
+                RoomAvailabilityColumns::read);
+    }
 
-                    for (Map.Entry<Integer, Integer> entry : roomTypeCountMap.entrySet()) {
-                        if (entry.getValue() == totalDates) {
-                            availableRoomIds.add(entry.getKey());
-                        }
-                    }
+    /**
+     * Adds the first page of room rates within the specified date range and
+     * property to a batch.
+     *
+     * @param batch      The batch to add the query to.
+     * @param startDate  The start date of the rate search.
+     * @param endDate    The end date of the rate search.
+     * @param propertyId The ID of the property.
+     * @return The batch part holding the first page once decoded.
+     */
+    public static GraphqlBatch.Part<RoomRateColumns> addRoomRates(GraphqlBatch batch, String startDate,
+            String endDate, Integer propertyId) {
+        return batch.add(GraphqlQuery.GET_ROOM_RATES,
+                graphqlPager.firstOffsetPage(dateRangeVariables(startDate, endDate, propertyId)),
+                RoomRateColumns::read);
+    }
 
-                    return getAvailableRoomTypes(availabilities, availableRoomIds);
-                } catch (Exception e) {
-                    log.error("Failed to parse room availabilities response.", e);
-                    throw new FetchFailedException("Failed to parse room availabilities response.");
-                }
-            } else {
-                log.error("Failed to fetch room availabilities. Please check the API again. Status code: {}",
-                        responseEntity.getStatusCode());
-                throw new FetchFailedException("Failed to fetch room availabilities. Please check the API again.");
-            }
-        } catch (Exception e) {
-            log.error("Failed to fetch room availabilities.", e);
-            throw e;
-        }
+    /**
+     * Builds the variables shared by the date-range operations.
+     *
+     * @param startDate  The start date of the range.
+     * @param endDate    The end date of the range (exclusive).
+     * @param propertyId The ID of the property.
+     * @return The operation variables.
+     */
+    static Map<String, Object> dateRangeVariables(String startDate, String endDate, Integer propertyId) {
+        return Map.of("startDate", startDate + GraphqlQuery.START_OF_DAY, "endDate",
+                endDate + GraphqlQuery.START_OF_DAY, "propertyId", propertyId);
     }
 
-    @Cacheable("calculateTotalDates")
     private static int calculateTotalDates(String startDate, String endDate) {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         return (int) ChronoUnit.DAYS.between(start, end);
     }
 
-    private static RoomAvailabilitiesResponseDTO getAvailableRoomTypes(
-            List<RoomAvailabilitiesResponseDTO.RoomAvailability> availabilities, List<Integer> availableRoomIds) {
-        try {
-            List<RoomAvailabilitiesResponseDTO.RoomAvailability> availableAvailabilities = new ArrayList<>();
-
-            for (RoomAvailabilitiesResponseDTO.RoomAvailability availability : availabilities) {
-                if (availableRoomIds.contains(availability.getRoom().getRoomId())) {
-                    availableAvailabilities.add(availability);
-                }
-            }
-
-            log.info("Available room types filtered successfully.");
-            return new RoomAvailabilitiesResponseDTO(availableAvailabilities);
-        } catch (Exception e) {
-            log.error("Error filtering available room types.", e);
-            throw e;
-        }
+    /**
+     * Computes the average nightly rate and the number of available rooms per
+     * room type. The first pages usually arrive with a batch; any further pages
+     * are fetched here and folded into running totals, so memory stays bounded by
+     * the number of rooms rather than the number of rows. Rates and room
+     * availability come from the local indexes when they cover the stay. Room
+     * types are keyed by their ordinal in the property's room type dictionary.
+     *
+     * @param roomRates          The first page of room rates, or null to fetch it
+     *                           if the index cannot answer.
+     * @param roomAvailabilities The first page of room availabilities, or null to
+     *                           fetch it if the index cannot answer.
+     * @param startDate          The start date of the range.
+     * @param endDate            The end date of the range.
+     * @param propertyId         The ID of the property.
+     * @return The DTO containing the average rate and the number of available
+     *         rooms per room type ordinal.
+     * @throws FetchFailedException if a further page cannot be fetched.
+     */
+    public static RoomTypeRateResponseDTO getRoomRatesWithAverageMinimumRates(RoomRateColumns roomRates,
+            RoomAvailabilityColumns roomAvailabilities, String startDate, String endDate, Integer propertyId) {
+        double[] roomTypeAverageRates = getAverageRates(roomRates, startDate, endDate, propertyId);
+        int[] roomTypeAvailability = getAvailableRooms(roomAvailabilities, startDate, endDate, propertyId);
+        log.info("Room rates with average minimum rates fetched successfully.");
+        return new RoomTypeRateResponseDTO(roomTypeAverageRates, roomTypeAvailability);
     }
 
     /**
-     * Retrieves room rates within the specified date range and property.
-     * 
-     * @param startDate  The start date of the rate search.
-     * @param endDate    The end date of the rate search.
+     * Computes the average nightly rate per room type ordinal, from the local
+     * rate index when it covers the stay.
+     *
+     * @param roomRates  The first page of room rates, or null to fetch it if the
+     *                   index cannot answer.
+     * @param startDate  The start date of the range.
+     * @param endDate    The end date of the range.
      * @param propertyId The ID of the property.
-     * @return The DTO containing room rates.
-     * @throws FetchFailedException if the room rates cannot be fetched.
+     * @return The average rate per room type ordinal, NaN for room types without
+     *         rates.
+     * @throws FetchFailedException if a page cannot be fetched.
      */
-    @Cacheable("getRoomRates")
-    public static RoomRateResponseDTO getRoomRates(String startDate, String endDate, Integer propertyId) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-            String GET_ROOM_RATES = String.format(GraphqlQuery.GET_ROOM_RATES, startDate, endDate, propertyId);
-
-            String requestBody = "{ \"query\": \"" + GET_ROOM_RATES + "\" }";
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
-
-            if (responseEntity.getStatusCode() == HttpStatus.OK) {
-                String jsonResponse = responseEntity.getBody();
-                ObjectMapper objectMapper = new ObjectMapper();
-                try {
-                    JsonNode root = objectMapper.readTree(jsonResponse);
-                    JsonNode mappingsNode = root.path("data").path("listRoomRateRoomTypeMappings");
-                    List<RoomRateResponseDTO.RoomRateRoomTypeMapping> roomRates = new ArrayList<>();
-                    for (JsonNode mappingNode : mappingsNode) {
-                        JsonNode roomRateNode = mappingNode.path("room_rate");
-                        RoomRateResponseDTO.RoomRate roomRate = new RoomRateResponseDTO.RoomRate();
-                        roomRate.setBasicNightlyRate(roomRateNode.path("basic_nightly_rate").asInt());
-                        roomRate.setDate(roomRateNode.path("date").asText());
-
-                        JsonNode roomTypeNode = mappingNode.path("room_type");
-                        RoomRateResponseDTO.RoomType roomType = new RoomRateResponseDTO.RoomType();
-                        roomType.setRoomTypeName(roomTypeNode.path("room_type_name").asText());
-
-                        RoomRateResponseDTO.RoomRateRoomTypeMapping mapping = new RoomRateResponseDTO.RoomRateRoomTypeMapping();
-                        mapping.setRoomRate(roomRate);
-                        mapping.setRoomType(roomType);
-
-                        roomRates.add(mapping);
-                    }
-                    log.info("Room rates fetched successfully.");
-                    return new RoomRateResponseDTO(roomRates);
-                } catch (Exception e) {
-                    log.error("Failed to parse room rates response.", e);
-                    throw new FetchFailedException("Failed to parse room rates response.");
-                }
-            } else {
-                log.error("Failed to fetch room rates. Please check the API again. Status code: {}",
-                        responseEntity.getStatusCode());
-                throw new FetchFailedException("Failed to fetch room rates. Please check the API again.");
-            }
-        } catch (Exception e) {
-            log.error("Failed to fetch room rates.", e);
-            throw e;
+    public static double[] getAverageRates(RoomRateColumns roomRates, String startDate, String endDate,
+            Integer propertyId) {
+        double[] roomTypeAverageRates = rateIndex.averageRates(propertyId, startDate, endDate);
+        if (roomTypeAverageRates == null) {
+            RoomTypeDictionary roomTypes = roomTypeOrdinals.of(propertyId);
+            RateTotals rateTotals = new RateTotals();
+            graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_RATES,
+                    graphqlPager.firstOffsetPage(dateRangeVariables(startDate, endDate, propertyId)),
+                    RoomRateColumns::read, roomRates, page -> addRates(page, roomTypes, rateTotals));
+            roomTypeAverageRates = calculateAverageRates(rateTotals, roomTypes.size());
         }
+        return roomTypeAverageRates;
     }
 
     /**
-     * Retrieves room rates with average minimum rates within the specified date
-     * range and property.
-     * 
-     * @param startDate  The start date of the rate search.
-     * @param endDate    The end date of the rate search.
-     * @param propertyId The ID of the property.
-     * @return The DTO containing room rates with average minimum rates.
-     * @throws FetchFailedException if the room rates cannot be fetched.
+     * Computes the number of rooms free for the whole stay per room type
+     * ordinal, from the local availability index when it covers the stay.
+     *
+     * @param roomAvailabilities The first page of room availabilities, or null to
+     *                           fetch it if the index cannot answer.
+     * @param startDate          The start date of the range.
+     * @param endDate            The end date of the range.
+     * @param propertyId         The ID of the property.
+     * @return The number of available rooms per room type ordinal.
+     * @throws FetchFailedException if a page cannot be fetched.
      */
-    public static RoomTypeRateResponseDTO getRoomRatesWithAverageMinimumRates(String startDate, String endDate,
-            Integer propertyId) {
-        try {
-            Callable<List<RoomRateResponseDTO.RoomRateRoomTypeMapping>> roomRatesTask = () -> getRoomRates(startDate,
-                    endDate, propertyId).getListRoomRateRoomTypeMappings();
-            Callable<List<RoomAvailabilitiesResponseDTO.RoomAvailability>> roomAvailabilitiesTask = () -> getRoomAvailabilities(
-                    startDate, endDate, propertyId).getListRoomAvailabilities();
-
-            ExecutorService executorService = Executors.newFixedThreadPool(2);
-            Future<List<RoomRateResponseDTO.RoomRateRoomTypeMapping>> roomRatesFuture = executorService
-                    .submit(roomRatesTask);
-            Future<List<RoomAvailabilitiesResponseDTO.RoomAvailability>> roomAvailabilitiesFuture = executorService
-                    .submit(roomAvailabilitiesTask);
-
-            List<RoomRateResponseDTO.RoomRateRoomTypeMapping> roomRates = roomRatesFuture.get();
-            List<RoomAvailabilitiesResponseDTO.RoomAvailability> roomAvailabilities = roomAvailabilitiesFuture.get();
-
-            Callable<Map<String, Double>> averageRatesTask = () -> calculateAverageRates(roomRates);
-            Callable<Map<String, Integer>> availabilityTask = () -> calculateRoomAvailability(roomAvailabilities);
-
-            Future<Map<String, Double>> averageRatesFuture = executorService.submit(averageRatesTask);
-            Future<Map<String, Integer>> availabilityFuture = executorService.submit(availabilityTask);
-
-            Map<String, Double> roomTypeAverageRates = averageRatesFuture.get();
-            Map<String, Integer> roomTypeAvailability = availabilityFuture.get();
+    public static int[] getAvailableRooms(RoomAvailabilityColumns roomAvailabilities, String startDate,
+            String endDate, Integer propertyId) {
+        int[] roomTypeAvailability = availabilityIndex.countFreeRooms(propertyId, startDate, endDate);
+        if (roomTypeAvailability == null) {
+            RoomTypeDictionary roomTypes = roomTypeOrdinals.of(propertyId);
+            IntIntHashMap nightsPerRoom = new IntIntHashMap();
+            IntIntHashMap roomTypePerRoom = new IntIntHashMap();
+            IntPredicate undelivered = availabilityIndex.findUndeliveredBookings();
+            graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_AVAILABILITIES,
+                    graphqlPager.firstKeysetPage(dateRangeVariables(startDate, endDate, propertyId)),
+                    RoomAvailabilityColumns::read, roomAvailabilities,
+                    page -> countNights(page, roomTypes, undelivered, nightsPerRoom, roomTypePerRoom));
+            roomTypeAvailability = calculateRoomAvailability(nightsPerRoom, roomTypePerRoom, roomTypes.size(),
+                    calculateTotalDates(startDate, endDate));
+        }
+        return roomTypeAvailability;
+    }
 
-            executorService.shutdown();
+    private static void addRates(RoomRateColumns page, RoomTypeDictionary roomTypes, RateTotals rateTotals) {
+        int[] roomTypeIds = page.getRoomTypeId();
+        int[] rates = page.getRate();
+        for (int i = 0; i < page.getSize(); i++) {
+            rateTotals.add(roomTypes.ordinalOf(roomTypeIds[i]), rates[i]);
+        }
+    }
 
-            log.info("Room rates with average minimum rates fetched successfully.");
-            return new RoomTypeRateResponseDTO(roomTypeAverageRates, roomTypeAvailability);
-        } catch (ExecutionException | InterruptedException e) {
-            log.error("Failed to fetch room rates and availabilities", e);
-            throw new FetchFailedException("Failed to fetch room rates and availabilities");
+    /**
+     * Counts the nights of each room in a page of availabilities and records the
+     * room type ordinal of each room. Availabilities booked here but not yet
+     * attached upstream are skipped.
+     *
+     * @param page            The page of availabilities.
+     * @param roomTypes       The room type dictionary of the property.
+     * @param undelivered     Tells the availability IDs of undelivered
+     *                        bookings.
+     * @param nightsPerRoom   The number of free nights per room ID.
+     * @param roomTypePerRoom The room type ordinal per room ID.
+     */
+    static void countNights(RoomAvailabilityColumns page, RoomTypeDictionary roomTypes,
+            IntPredicate undelivered, IntIntHashMap nightsPerRoom, IntIntHashMap roomTypePerRoom) {
+        int[] availabilityIds = page.getAvailabilityId();
+        int[] roomIds = page.getRoomId();
+        int[] roomTypeIds = page.getRoomTypeId();
+        for (int i = 0; i < page.getSize(); i++) {
+            if (undelivered.test(availabilityIds[i])) {
+                continue;
+            }
+            if (nightsPerRoom.addTo(roomIds[i], 1) == 1) {
+                roomTypePerRoom.put(roomIds[i], roomTypes.ordinalOf(roomTypeIds[i]));
+            }
         }
     }
 
     /**
      * Retrieves room rates with rates based on the provided room rate request DTO.
+     * The result is cached per property, room type and stay.
      *
      * @param roomRateRequestDTO The DTO containing the room rate request details.
      * @return The response DTO containing the room rates with rates.
      * @throws FetchFailedException If an error occurs while fetching room rates.
      */
-    @Cacheable("roomRatesWithRates")
-    public static RoomRatesResponseDTO getRoomRatesWithRates(RoomRateRequestDTO roomRateRequestDTO) {
+    @Cacheable(cacheNames = "roomRatesWithRates", key = "{#roomRateRequestDTO.propertyId, "
+            + "#roomRateRequestDTO.roomTypeId, #roomRateRequestDTO.startDate, #roomRateRequestDTO.endDate}")
+    public RoomRatesResponseDTO getRoomRatesWithRates(RoomRateRequestDTO roomRateRequestDTO) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-            String GET_RATES_ROOM_TYPE = String.format(GraphqlQuery.GET_RATES_ROOM_TYPE,
-                    roomRateRequestDTO.getStartDate(), roomRateRequestDTO.getEndDate(),
-                    roomRateRequestDTO.getRoomTypeId(), roomRateRequestDTO.getPropertyId());
-
-            String requestBody = "{ \"query\": \"" + GET_RATES_ROOM_TYPE + "\" }";
-
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
+            Map<String, Object> variables = new HashMap<>(dateRangeVariables(roomRateRequestDTO.getStartDate(),
+                    roomRateRequestDTO.getEndDate(), roomRateRequestDTO.getPropertyId()));
+            variables.put("roomTypeId", roomRateRequestDTO.getRoomTypeId());
+            ResponseEntity<String> responseEntity = graphqlClient.execute(GraphqlQuery.GET_RATES_ROOM_TYPE, variables);
 
             if (responseEntity.getStatusCode() == HttpStatus.OK) {
                 String jsonResponse = responseEntity.getBody();
@@ -308,27 +298,12 @@ public class RoomRateService {
         }
     }
 
-    private static Map<String, Double> calculateAverageRates(
-            List<RoomRateResponseDTO.RoomRateRoomTypeMapping> roomRates) {
+    private static double[] calculateAverageRates(RateTotals rateTotals, int roomTypeCount) {
         try {
-            Map<String, List<Integer>> roomTypeToRates = new HashMap<>();
-            for (RoomRateResponseDTO.RoomRateRoomTypeMapping mapping : roomRates) {
-                String roomType = mapping.getRoomType().getRoomTypeName();
-                int rate = mapping.getRoomRate().getBasicNightlyRate();
-                if (roomTypeToRates.containsKey(roomType)) {
-                    roomTypeToRates.get(roomType).add(rate);
-                } else {
-                    List<Integer> rates = new ArrayList<>();
-                    rates.add(rate);
-                    roomTypeToRates.put(roomType, rates);
-                }
-            }
-
-            Map<String, Double> roomTypeAverageRates = new HashMap<>();
-            for (Map.Entry<String, List<Integer>> entry : roomTypeToRates.entrySet()) {
-                List<Integer> rates = entry.getValue();
-                double averageRate = rates.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-                roomTypeAverageRates.put(entry.getKey(), averageRate);
+            double[] roomTypeAverageRates = new double[roomTypeCount];
+            for (int type = 0; type < roomTypeCount; type++) {
+                int count = type < rateTotals.counts.length ? rateTotals.counts[type] : 0;
+                roomTypeAverageRates[type] = count > 0 ? (double) rateTotals.sums[type] / count : Double.NaN;
             }
             log.info("Average rates calculated successfully.");
             return roomTypeAverageRates;
@@ -338,29 +313,38 @@ public class RoomRateService {
         }
     }
 
-    private static Map<String, Integer> calculateRoomAvailability(
-            List<RoomAvailabilitiesResponseDTO.RoomAvailability> roomAvailabilities) {
+    static int[] calculateRoomAvailability(IntIntHashMap nightsPerRoom, IntIntHashMap roomTypePerRoom,
+            int roomTypeCount, int totalDates) {
         try {
-            Map<String, Integer> roomTypeAvailability = new HashMap<>();
-            Set<Integer> processedRoomIds = new HashSet<>();
-
-            for (RoomAvailabilitiesResponseDTO.RoomAvailability availability : roomAvailabilities) {
-                int roomId = availability.getRoom().getRoomId();
-                if (processedRoomIds.contains(roomId)) {
-                    continue;
+            int[] availableRooms = new int[roomTypeCount];
+            nightsPerRoom.forEach((roomId, nights) -> {
+                if (nights == totalDates) {
+                    availableRooms[roomTypePerRoom.get(roomId, 0)]++;
                 }
-
-                String roomType = availability.getRoom().getRoomType().getRoomTypeName();
-                roomTypeAvailability.put(roomType, roomTypeAvailability.getOrDefault(roomType, 0) + 1);
-
-                processedRoomIds.add(roomId);
-            }
+            });
             log.info("Room availability calculated successfully.");
-            return roomTypeAvailability;
+            return availableRooms;
         } catch (Exception e) {
             log.error("Failed to calculate room availability.", e);
             throw e;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Running rate totals per room type ordinal, grown as new ordinals appear.
+     */
+    private static final class RateTotals {
+        private long[] sums = new long[8];
+        private int[] counts = new int[8];
+
+        private void add(int roomType, int rate) {
+            if (roomType >= counts.length) {
+                int length = Math.max(roomType + 1, counts.length * 2);
+                sums = Arrays.copyOf(sums, length);
+                counts = Arrays.copyOf(counts, length);
+            }
+            sums[roomType] += rate;
+            counts[roomType]++;
+        }
+    }
+}
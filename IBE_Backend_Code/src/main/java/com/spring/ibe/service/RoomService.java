@@ -1,31 +1,49 @@
 package com.spring.ibe.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.constants.Constants;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.spring.ibe.availability.AvailabilityIndex;
 import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.dto.request.MultiPropertyRoomRequestDTO;
 import com.spring.ibe.dto.request.RoomIdRequestDTO;
 import com.spring.ibe.dto.request.RoomRequestDTO;
+import com.spring.ibe.dto.response.MultiPropertyRoomResponseDTO;
 import com.spring.ibe.dto.response.RoomIdResponseDTO;
+import com.spring.ibe.dto.response.RoomPatchDTO;
 import com.spring.ibe.dto.response.RoomResponseDTO;
 import com.spring.ibe.dto.response.RoomTypeRateResponseDTO;
+import com.spring.ibe.exception.custom.CustomException;
 import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.graphql.GraphqlAsyncClient;
+import com.spring.ibe.graphql.GraphqlBatch;
+import com.spring.ibe.graphql.GraphqlClient;
+import com.spring.ibe.graphql.GraphqlPager;
+import com.spring.ibe.graphql.GraphqlResponses;
+import com.spring.ibe.graphql.RoomAvailabilityColumns;
+import com.spring.ibe.graphql.RoomRateColumns;
+import com.spring.ibe.search.RoomSearchProperties;
+import com.spring.ibe.search.RoomSearchSessions;
+import com.spring.ibe.search.RoomSearchStream;
+import com.spring.ibe.search.RoomTypeDictionary;
+import com.spring.ibe.search.RoomTypeOrdinals;
+import com.spring.ibe.util.IntIntHashMap;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntPredicate;
 
 /**
  * Service class to handle room-related operations.
@@ -33,134 +51,387 @@ import java.util.concurrent.Future;
 @Service
 @Slf4j
 public class RoomService {
-    private final String graphqlUrl;
-    private final String apiKey;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final Comparator<RoomResponseDTO.Room> PRICE_ASC = Comparator.comparing(
+            RoomResponseDTO.Room::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final GraphqlClient graphqlClient;
+    private final GraphqlAsyncClient graphqlAsyncClient;
+    private final GraphqlPager graphqlPager;
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomSearchSessions roomSearchSessions;
+    private final RoomTypeOrdinals roomTypeOrdinals;
+    private final FanOutExecutor fanOutExecutor;
+    private final RoomSearchProperties roomSearchProperties;
 
     /**
      * Constructor for RoomService.
      *
-     * @param graphqlUrl The URL for the GraphQL endpoint.
-     * @param apiKey     The API key for accessing the GraphQL endpoint.
+     * @param graphqlClient        The gateway for the GraphQL endpoint.
+     * @param graphqlAsyncClient   The non-blocking gateway for streamed searches.
+     * @param graphqlPager         The pager for paginated list operations.
+     * @param availabilityIndex    The local room availability index.
+     * @param roomSearchSessions   The stored results of recent searches.
+     * @param roomTypeOrdinals     The room type ordinals rates and free rooms
+     *                             are keyed by.
+     * @param fanOutExecutor       The shared executor searching properties
+     *                             concurrently.
+     * @param roomSearchProperties The multi-property and streamed search
+     *                             settings.
      */
-    public RoomService(@Value("${app.graphql_url}") String graphqlUrl, @Value("${app.graphql_api_key}") String apiKey) {
-        this.graphqlUrl = graphqlUrl;
-        this.apiKey = apiKey;
+    public RoomService(GraphqlClient graphqlClient, GraphqlAsyncClient graphqlAsyncClient, GraphqlPager graphqlPager,
+            AvailabilityIndex availabilityIndex, RoomSearchSessions roomSearchSessions,
+            RoomTypeOrdinals roomTypeOrdinals, FanOutExecutor fanOutExecutor,
+            RoomSearchProperties roomSearchProperties) {
+        this.graphqlClient = graphqlClient;
+        this.graphqlAsyncClient = graphqlAsyncClient;
+        this.graphqlPager = graphqlPager;
+        this.availabilityIndex = availabilityIndex;
+        this.roomSearchSessions = roomSearchSessions;
+        this.roomTypeOrdinals = roomTypeOrdinals;
+        this.fanOutExecutor = fanOutExecutor;
+        this.roomSearchProperties = roomSearchProperties;
     }
 
     /**
-     * Retrieves rooms from the GraphQL endpoint.
+     * Retrieves a page of rooms. The sorted results of a search are kept in a
+     * search session, so later pages of the same search are served from it until
+     * it expires or the availability of the property changes.
      *
      * @param roomRequestDTO The request DTO containing room search criteria.
-     * @param pageNumber     The page number for pagination.
+     * @param pageNumber     The page number for pagination, used when no cursor
+     *                       is given.
      * @param pageSize       The size of each page for pagination.
-     * @return The DTO containing the retrieved rooms.
+     * @param cursor         The cursor returned with the previous page, or null.
+     * @return The DTO containing the retrieved rooms and the cursor of the next
+     *         page.
+     * @throws FetchFailedException if the rooms cannot be fetched.
+     * @throws CustomException      if the cursor was not issued for this search.
+     */
+    public RoomResponseDTO getRooms(RoomRequestDTO roomRequestDTO, Integer pageNumber, Integer pageSize,
+            String cursor) {
+        String sessionKey = roomSearchSessions.sessionKey(roomRequestDTO);
+        int startIndex = cursor != null ? roomSearchSessions.offset(cursor, sessionKey) : (pageNumber - 1) * pageSize;
+
+        List<RoomResponseDTO.Room> rooms = findOrSearchRooms(sessionKey, roomRequestDTO);
+
+        int endIndex = Math.min(startIndex + pageSize, rooms.size());
+        startIndex = Math.min(startIndex, endIndex);
+        String nextCursor = endIndex < rooms.size() ? roomSearchSessions.cursor(sessionKey, endIndex) : null;
+        return new RoomResponseDTO(new ArrayList<>(rooms.subList(startIndex, endIndex)), rooms.size(), nextCursor);
+    }
+
+    /**
+     * Streams a room search as server-sent events, so the room type cards can be
+     * shown before rates and availability are known. The cards are sent as soon
+     * as the room types arrive, then a price patch and an availability patch for
+     * every card as each aggregation finishes, and last the first page of the
+     * filtered, sorted rooms. The results are stored in a search session, so the
+     * cursor of the last event pages through them with {@code /room}. A search
+     * already held in a session is sent at once.
+     *
+     * @param roomRequestDTO The request DTO containing room search criteria.
+     * @param pageSize       The size of the page sent last.
+     * @return The emitter of the stream.
+     */
+    public SseEmitter streamRooms(RoomRequestDTO roomRequestDTO, Integer pageSize) {
+        RoomSearchStream stream = new RoomSearchStream(roomSearchProperties.getStreamTimeout());
+        String sessionKey = roomSearchSessions.sessionKey(roomRequestDTO);
+        Integer propertyId = roomRequestDTO.getPropertyId();
+
+        List<RoomResponseDTO.Room> stored = roomSearchSessions.find(sessionKey, propertyId);
+        if (stored != null) {
+            log.info("Streaming rooms from search session.");
+            stream.send(RoomSearchStream.ROOMS, stored);
+            stream.complete(firstPage(sessionKey, stored, pageSize));
+            return stream.getEmitter();
+        }
+
+        long version = roomSearchSessions.version(propertyId);
+        String startDate = roomRequestDTO.getStartDate();
+        String endDate = roomRequestDTO.getEndDate();
+        CompletableFuture<List<RoomResponseDTO.Room>> roomsSent = stream.track(graphqlAsyncClient.executeAsync(
+                GraphqlQuery.GET_ROOMS, roomVariables(roomRequestDTO), GraphqlResponses::readTree))
+                .thenApply(roomData -> {
+                    List<RoomResponseDTO.Room> cards = readRooms(roomData, propertyId);
+                    stream.send(RoomSearchStream.ROOMS, cards);
+                    return cards;
+                });
+        CompletableFuture<double[]> ratesFuture = stream.track(fanOutExecutor.supplyAsync(
+                () -> RoomRateService.getAverageRates(null, startDate, endDate, propertyId)));
+        CompletableFuture<int[]> availabilityFuture = stream.track(fanOutExecutor.supplyAsync(
+                () -> RoomRateService.getAvailableRooms(null, startDate, endDate, propertyId)));
+
+        RoomTypeDictionary roomTypes = roomTypeOrdinals.of(propertyId);
+        CompletableFuture<Void> ratesSent = roomsSent.thenAcceptBoth(ratesFuture, (cards, rates) -> {
+            List<RoomPatchDTO> patches = new ArrayList<>(cards.size());
+            for (RoomResponseDTO.Room card : cards) {
+                patches.add(new RoomPatchDTO(card.getRoomTypeId(),
+                        priceOf(roomTypes.find(card.getRoomTypeId()), rates), null));
+            }
+            stream.send(RoomSearchStream.RATES, patches);
+        });
+        CompletableFuture<Void> availabilitySent = roomsSent.thenAcceptBoth(availabilityFuture, (cards, counts) -> {
+            List<RoomPatchDTO> patches = new ArrayList<>(cards.size());
+            for (RoomResponseDTO.Room card : cards) {
+                patches.add(new RoomPatchDTO(card.getRoomTypeId(), null,
+                        availableRoomsOf(roomTypes.find(card.getRoomTypeId()), counts)));
+            }
+            stream.send(RoomSearchStream.AVAILABILITY, patches);
+        });
+
+        CompletableFuture.allOf(ratesSent, availabilitySent).thenRun(() -> {
+            List<RoomResponseDTO.Room> rooms = rankRooms(roomsSent.join(), roomRequestDTO, ratesFuture.join(),
+                    availabilityFuture.join());
+            roomSearchSessions.store(sessionKey, version, rooms);
+            log.info("Rooms streamed successfully.");
+            stream.complete(firstPage(sessionKey, rooms, pageSize));
+        }).exceptionally(e -> {
+            stream.fail(e);
+            return null;
+        });
+        return stream.getEmitter();
+    }
+
+    private RoomResponseDTO firstPage(String sessionKey, List<RoomResponseDTO.Room> rooms, Integer pageSize) {
+        int endIndex = Math.min(pageSize, rooms.size());
+        String nextCursor = endIndex < rooms.size() ? roomSearchSessions.cursor(sessionKey, endIndex) : null;
+        return new RoomResponseDTO(new ArrayList<>(rooms.subList(0, endIndex)), rooms.size(), nextCursor);
+    }
+
+    /**
+     * Searches several properties concurrently and returns one page of their
+     * merged rooms, ranked by the requested sort or by price when none is given.
+     * Each property is searched through its own search session, so later pages
+     * only repeat the searches whose sessions expired. Properties that fail or
+     * do not answer within the configured deadline are reported instead of
+     * failing the whole search.
+     *
+     * @param multiPropertyRoomRequestDTO The properties and the search criteria.
+     * @param pageNumber                  The page number for pagination.
+     * @param pageSize                    The size of each page for pagination.
+     * @return The DTO containing the page of rooms and the properties missing
+     *         from it.
+     * @throws CustomException      if too many properties are requested.
+     * @throws FetchFailedException if no property could be searched.
+     */
+    public MultiPropertyRoomResponseDTO searchProperties(MultiPropertyRoomRequestDTO multiPropertyRoomRequestDTO,
+            Integer pageNumber, Integer pageSize) {
+        List<Integer> propertyIds = new ArrayList<>(new LinkedHashSet<>(multiPropertyRoomRequestDTO.getPropertyIds()));
+        if (propertyIds.size() > roomSearchProperties.getMaxProperties()) {
+            throw new CustomException("At most " + roomSearchProperties.getMaxProperties()
+                    + " properties can be searched at once.");
+        }
+
+        RoomRequestDTO search = multiPropertyRoomRequestDTO.getSearch();
+        List<CompletableFuture<List<RoomResponseDTO.Room>>> searches = new ArrayList<>();
+        for (Integer propertyId : propertyIds) {
+            RoomRequestDTO roomRequestDTO = search.withPropertyId(propertyId);
+            String sessionKey = roomSearchSessions.sessionKey(roomRequestDTO);
+            searches.add(fanOutExecutor.supplyAsync(() -> findOrSearchRooms(sessionKey, roomRequestDTO)));
+        }
+        List<List<RoomResponseDTO.Room>> results = fanOutExecutor.awaitAvailable(searches,
+                roomSearchProperties.getPropertyDeadline());
+
+        List<RoomResponseDTO.Room> rooms = new ArrayList<>();
+        List<Integer> incompletePropertyIds = new ArrayList<>();
+        for (int i = 0; i < propertyIds.size(); i++) {
+            if (results.get(i) != null) {
+                rooms.addAll(results.get(i));
+            } else {
+                incompletePropertyIds.add(propertyIds.get(i));
+            }
+        }
+        if (incompletePropertyIds.size() == propertyIds.size()) {
+            log.error("None of the properties {} could be searched.", propertyIds);
+            throw new FetchFailedException("Failed to fetch rooms for the requested properties.");
+        }
+        if (!incompletePropertyIds.isEmpty()) {
+            log.warn("Returning rooms without properties {}", incompletePropertyIds);
+        }
+
+        Comparator<RoomResponseDTO.Room> order = roomOrder(search.getSort());
+        rooms.sort(order != null ? order : PRICE_ASC);
+        int startIndex = Math.min((pageNumber - 1) * pageSize, rooms.size());
+        int endIndex = Math.min(startIndex + pageSize, rooms.size());
+        log.info("Rooms of {} properties fetched successfully.", propertyIds.size() - incompletePropertyIds.size());
+        return new MultiPropertyRoomResponseDTO(new ArrayList<>(rooms.subList(startIndex, endIndex)), rooms.size(),
+                incompletePropertyIds);
+    }
+
+    /**
+     * Returns the sorted rooms of a search from its search session, or runs the
+     * search and stores them in a new session.
+     *
+     * @param sessionKey     The session key of the search.
+     * @param roomRequestDTO The request DTO containing room search criteria.
+     * @return The sorted rooms.
+     * @throws FetchFailedException if the rooms cannot be fetched.
+     */
+    private List<RoomResponseDTO.Room> findOrSearchRooms(String sessionKey, RoomRequestDTO roomRequestDTO) {
+        List<RoomResponseDTO.Room> rooms = roomSearchSessions.find(sessionKey, roomRequestDTO.getPropertyId());
+        if (rooms == null) {
+            long version = roomSearchSessions.version(roomRequestDTO.getPropertyId());
+            rooms = searchRooms(roomRequestDTO);
+            roomSearchSessions.store(sessionKey, version, rooms);
+        } else {
+            log.info("Serving rooms from search session.");
+        }
+        return rooms;
+    }
+
+    /**
+     * Retrieves, filters and sorts every room matching a search from the GraphQL
+     * endpoint.
+     *
+     * @param roomRequestDTO The request DTO containing room search criteria.
+     * @return The sorted rooms.
      * @throws FetchFailedException if the rooms cannot be fetched.
      */
-    public RoomResponseDTO getRooms(RoomRequestDTO roomRequestDTO, Integer pageNumber, Integer pageSize) {
+    private List<RoomResponseDTO.Room> searchRooms(RoomRequestDTO roomRequestDTO) {
         try {
             String startDate = roomRequestDTO.getStartDate();
             String endDate = roomRequestDTO.getEndDate();
             Integer propertyId = roomRequestDTO.getPropertyId();
-            String roomName = roomRequestDTO.getRoomTypeName();
-            Integer singleBed = roomRequestDTO.getSingleBed();
-            Integer doubleBed = roomRequestDTO.getDoubleBed();
-            Integer area = roomRequestDTO.getArea();
-            Integer minCapacity = roomRequestDTO.getMinCapacity();
-
-            ExecutorService executorService = Executors.newFixedThreadPool(2);
-
-            Future<RoomTypeRateResponseDTO> roomDetailsFuture = executorService
-                    .submit(() -> RoomRateService.getRoomRatesWithAverageMinimumRates(startDate, endDate, propertyId));
-
-            Future<ResponseEntity<String>> responseEntityFuture = executorService.submit(() -> {
-                String GET_ROOMS = String.format(GraphqlQuery.GET_ROOMS, propertyId, roomName, singleBed, area,
-                        doubleBed, minCapacity);
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                headers.set(Constants.API_KEY_TITLE, apiKey);
-                String requestBody = "{ \"query\": \"" + GET_ROOMS + "\" }";
-                HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-                return restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity, String.class);
-            });
-
-            RoomTypeRateResponseDTO roomDetails = roomDetailsFuture.get();
-            ResponseEntity<String> responseEntity = responseEntityFuture.get();
-
-            Map<String, Double> roomTypeRates = roomDetails.getRoomTypeRates();
-            Map<String, Integer> roomTypeCount = roomDetails.getRoomTypeAvailability();
+
+            GraphqlBatch batch = new GraphqlBatch();
+            GraphqlBatch.Part<JsonNode> roomsPart = batch.add(GraphqlQuery.GET_ROOMS, roomVariables(roomRequestDTO),
+                    GraphqlResponses::readTree);
+            GraphqlBatch.Part<RoomRateColumns> roomRatesPart = RoomRateService
+                    .isRateIndexed(startDate, endDate, propertyId) ? null
+                            : RoomRateService.addRoomRates(batch, startDate, endDate, propertyId);
+            GraphqlBatch.Part<RoomAvailabilityColumns> roomAvailabilitiesPart = RoomRateService
+                    .isAvailabilityIndexed(startDate, endDate, propertyId) ? null
+                            : RoomRateService.addRoomAvailabilities(batch, startDate, endDate, propertyId);
+
+            ResponseEntity<byte[]> responseEntity = graphqlClient.execute(batch);
 
             if (responseEntity.getStatusCode() == HttpStatus.OK) {
-                String jsonResponse = responseEntity.getBody();
-                ObjectMapper objectMapper = new ObjectMapper();
                 try {
-                    JsonNode root = objectMapper.readTree(jsonResponse);
-                    JsonNode roomData = root.path("data").path("listRoomTypes");
-                    List<RoomResponseDTO.Room> rooms = new ArrayList<>();
-                    for (JsonNode roomNode : roomData) {
-                        RoomResponseDTO.Room room = new RoomResponseDTO.Room();
-                        room.setAreaInSquareFeet(roomNode.path("area_in_square_feet").asInt());
-                        room.setDoubleBed(roomNode.path("double_bed").asInt());
-                        room.setMaxCapacity(roomNode.path("max_capacity").asInt());
-                        room.setSingleBed(roomNode.path("single_bed").asInt());
-                        room.setRoomTypeName(roomNode.path("room_type_name").asText());
-                        room.setRoomTypeId(roomNode.path("room_type_id").asInt());
-
-                        String roomTypeName = room.getRoomTypeName();
-                        Double price = roomTypeRates.get(roomTypeName);
-                        int roomCount = 0;
-                        if (roomTypeCount.containsKey(roomTypeName)) {
-                            roomCount = roomTypeCount.get(roomTypeName);
-                        }
-                        room.setPrice(price);
-                        room.setAvailableRooms(roomCount);
-                        if (matchFilters(room, roomRequestDTO)) {
-                            rooms.add(room);
-                        }
-                    }
-                    if (roomRequestDTO.getSort().length() > 6) {
-                        switch (roomRequestDTO.getSort()) {
-                            case "Price Asc":
-                                rooms.sort((room1, room2) -> Double.compare(room1.getPrice(), room2.getPrice()));
-                                break;
-                            case "Price Desc":
-                                rooms.sort((room1, room2) -> Double.compare(room2.getPrice(), room1.getPrice()));
-                                break;
-                            case "Name Asc":
-                                rooms.sort(
-                                        (room1, room2) -> room1.getRoomTypeName().compareTo(room2.getRoomTypeName()));
-                                break;
-                            case "Name Desc":
-                                rooms.sort(
-                                        (room1, room2) -> room2.getRoomTypeName().compareTo(room1.getRoomTypeName()));
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                    int startIndex = (pageNumber - 1) * pageSize;
-                    int endIndex = Math.min(startIndex + pageSize, rooms.size());
-                    executorService.shutdown();
-                    log.info("Rooms fetched successfully.");
-                    return new RoomResponseDTO(rooms.subList(startIndex, endIndex), rooms.size());
-                } catch (Exception e) {
+                    batch.decode(responseEntity.getBody());
+                } catch (IOException e) {
                     log.error("Failed to parse rooms response.", e);
                     throw new FetchFailedException("Failed to parse rooms response.");
                 }
+                RoomTypeRateResponseDTO roomDetails = RoomRateService.getRoomRatesWithAverageMinimumRates(
+                        roomRatesPart != null ? roomRatesPart.get() : null,
+                        roomAvailabilitiesPart != null ? roomAvailabilitiesPart.get() : null,
+                        startDate, endDate, propertyId);
+                List<RoomResponseDTO.Room> rooms = rankRooms(readRooms(roomsPart.get(), propertyId),
+                        roomRequestDTO, roomDetails.getRoomTypeRates(), roomDetails.getRoomTypeAvailability());
+                log.info("Rooms fetched successfully.");
+                return rooms;
             } else {
-                executorService.shutdown();
                 log.error("Failed to fetch rooms. Please check the API again. Status code: {}",
                         responseEntity.getStatusCode());
                 throw new FetchFailedException("Failed to fetch rooms. Please check the API again.");
             }
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (Exception e) {
             log.error("Failed to fetch room details.", e);
-            throw new FetchFailedException("Failed to fetch room details.");
+            throw e;
         }
     }
 
     /**
-     * Retrieves room IDs based on the provided room ID request DTO.
+     * Builds the variables of the room type query of a search.
+     *
+     * @param roomRequestDTO The request DTO containing room search criteria.
+     * @return The operation variables.
+     */
+    private static Map<String, Object> roomVariables(RoomRequestDTO roomRequestDTO) {
+        return Map.of("propertyId", roomRequestDTO.getPropertyId(), "roomTypeName", roomRequestDTO.getRoomTypeName(),
+                "singleBed", roomRequestDTO.getSingleBed(), "area", roomRequestDTO.getArea(),
+                "doubleBed", roomRequestDTO.getDoubleBed(), "minCapacity", roomRequestDTO.getMinCapacity());
+    }
+
+    /**
+     * Reads the room types of a property into rooms without price or
+     * availability.
+     *
+     * @param roomData   The {@code listRoomTypes} result, or null.
+     * @param propertyId The ID of the property.
+     * @return The rooms, in the order of the GraphQL endpoint.
+     */
+    private static List<RoomResponseDTO.Room> readRooms(JsonNode roomData, Integer propertyId) {
+        List<RoomResponseDTO.Room> rooms = new ArrayList<>();
+        for (JsonNode roomNode : roomData != null ? roomData : MissingNode.getInstance()) {
+            RoomResponseDTO.Room room = new RoomResponseDTO.Room();
+            room.setAreaInSquareFeet(roomNode.path("area_in_square_feet").asInt());
+            room.setDoubleBed(roomNode.path("double_bed").asInt());
+            room.setMaxCapacity(roomNode.path("max_capacity").asInt());
+            room.setSingleBed(roomNode.path("single_bed").asInt());
+            room.setRoomTypeName(roomNode.path("room_type_name").asText());
+            room.setRoomTypeId(roomNode.path("room_type_id").asInt());
+            room.setPropertyId(propertyId);
+            rooms.add(room);
+        }
+        return rooms;
+    }
+
+    /**
+     * Prices the rooms of a search, drops those that do not match its filters
+     * and sorts the rest. The given rooms are left unchanged.
+     *
+     * @param rooms          The rooms without price or availability.
+     * @param roomRequestDTO The request DTO containing room search criteria.
+     * @param roomTypeRates  The average rate per room type ordinal.
+     * @param roomTypeCount  The number of available rooms per room type ordinal.
+     * @return The matching rooms, sorted.
+     */
+    private List<RoomResponseDTO.Room> rankRooms(List<RoomResponseDTO.Room> rooms, RoomRequestDTO roomRequestDTO,
+            double[] roomTypeRates, int[] roomTypeCount) {
+        RoomTypeDictionary roomTypes = roomTypeOrdinals.of(roomRequestDTO.getPropertyId());
+        List<RoomResponseDTO.Room> ranked = new ArrayList<>();
+        for (RoomResponseDTO.Room card : rooms) {
+            int roomType = roomTypes.find(card.getRoomTypeId());
+            RoomResponseDTO.Room room = new RoomResponseDTO.Room(priceOf(roomType, roomTypeRates),
+                    availableRoomsOf(roomType, roomTypeCount), card.getAreaInSquareFeet(), card.getDoubleBed(),
+                    card.getMaxCapacity(), card.getSingleBed(), card.getRoomTypeName(), card.getRoomTypeId(),
+                    card.getPropertyId());
+            if (matchFilters(room, roomRequestDTO)) {
+                ranked.add(room);
+            }
+        }
+        Comparator<RoomResponseDTO.Room> order = roomOrder(roomRequestDTO.getSort());
+        if (order != null) {
+            ranked.sort(order);
+        }
+        return ranked;
+    }
+
+    private static Double priceOf(int roomType, double[] roomTypeRates) {
+        double price = roomType >= 0 && roomType < roomTypeRates.length ? roomTypeRates[roomType] : Double.NaN;
+        return Double.isNaN(price) ? null : price;
+    }
+
+    private static int availableRoomsOf(int roomType, int[] roomTypeCount) {
+        return roomType >= 0 && roomType < roomTypeCount.length ? roomTypeCount[roomType] : 0;
+    }
+
+    /**
+     * Returns the order of a sort option. Rooms without a price sort last.
+     *
+     * @param sort The sort option of the search.
+     * @return The order, or null to keep the order of the GraphQL endpoint.
+     */
+    private static Comparator<RoomResponseDTO.Room> roomOrder(String sort) {
+        switch (sort) {
+            case "Price Asc":
+                return PRICE_ASC;
+            case "Price Desc":
+                return Comparator.comparing(RoomResponseDTO.Room::getPrice,
+                        Comparator.nullsLast(Comparator.reverseOrder()));
+            case "Name Asc":
+                return Comparator.comparing(RoomResponseDTO.Room::getRoomTypeName);
+            case "Name Desc":
+                return Comparator.comparing(RoomResponseDTO.Room::getRoomTypeName, Comparator.reverseOrder());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Retrieves room IDs based on the provided room ID request DTO, from the local
+     * availability index when it covers the stay.
      *
      * @param roomIdRequestDTO The DTO containing room ID request details.
      * @return The DTO containing the retrieved room IDs.
@@ -174,64 +445,66 @@ public class RoomService {
             Long propertyId = roomIdRequestDTO.getPropertyId();
             Long roomCount = roomIdRequestDTO.getRoomCount();
 
-            String GET_ROOM_IDS = String.format(GraphqlQuery.GET_ROOM_IDS, startDate, endDate, roomTypeId, propertyId);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set(Constants.API_KEY_TITLE, apiKey);
-            String requestBody = "{ \"query\": \"" + GET_ROOM_IDS + "\" }";
-            HttpEntity<String> requestEntity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> responseEntity = restTemplate.exchange(graphqlUrl, HttpMethod.POST, requestEntity,
-                    String.class);
-
-            if (responseEntity.getStatusCode() == HttpStatus.OK) {
-                String jsonResponse = responseEntity.getBody();
-                ObjectMapper objectMapper = new ObjectMapper();
-                try {
-                    JsonNode root = objectMapper.readTree(jsonResponse);
-                    JsonNode roomIdData = root.path("data").path("listRoomAvailabilities");
-
-                    Map<Integer, Integer> roomIdCountMap = new HashMap<>();
-
-                    for (JsonNode roomNode : roomIdData) {
-                        int roomId = roomNode.path("room_id").asInt();
-                        roomIdCountMap.put(roomId, roomIdCountMap.getOrDefault(roomId, 0) + 1);
-                    }
+            List<Integer> roomIds = availabilityIndex.findFreeRoomIds(propertyId, roomTypeId, startDate, endDate);
+            if (roomIds == null) {
+                roomIds = fetchFreeRoomIds(startDate, endDate, roomTypeId, propertyId);
+            }
 
-                    List<Integer> roomIds = new ArrayList<>();
+            if (roomIds.size() < roomCount) {
+                log.info("Insufficient room IDs found for the given criteria. Returning an empty list.");
+                return new RoomIdResponseDTO(new ArrayList<>());
+            }
 
-                    LocalDate start = LocalDate.parse(startDate);
-                    LocalDate end = LocalDate.parse(endDate);
-                    long numberOfDays = ChronoUnit.DAYS.between(start, end);
+            log.info("Successfully fetched room IDs.");
+            return new RoomIdResponseDTO(roomIds);
+        } catch (Exception e) {
+            log.error("Failed to fetch room ids.", e);
+            throw new FetchFailedException("Failed to fetch room ids.");
+        }
+    }
 
-                    for (Map.Entry<Integer, Integer> entry : roomIdCountMap.entrySet()) {
-                        int roomId = entry.getKey();
-                        int count = entry.getValue();
+    /**
+     * Fetches the rooms of a room type that are free for a whole stay from the
+     * GraphQL endpoint. Availabilities booked here but not yet attached upstream
+     * are not counted.
+     *
+     * @param startDate  The check-in date.
+     * @param endDate    The check-out date.
+     * @param roomTypeId The room type ID.
+     * @param propertyId The property ID.
+     * @return The free room IDs.
+     * @throws FetchFailedException if a page cannot be fetched.
+     */
+    private List<Integer> fetchFreeRoomIds(String startDate, String endDate, Long roomTypeId, Long propertyId) {
+        Map<String, Object> variables = graphqlPager.firstKeysetPage(Map.of("startDate",
+                startDate + GraphqlQuery.START_OF_DAY, "endDate", endDate + GraphqlQuery.START_OF_DAY,
+                "roomTypeId", roomTypeId, "propertyId", propertyId));
 
-                        if (count >= numberOfDays) {
-                            roomIds.add(roomId);
+        IntPredicate undelivered = availabilityIndex.findUndeliveredBookings();
+        IntIntHashMap roomIdCountMap = new IntIntHashMap();
+        graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_IDS, variables, RoomAvailabilityColumns::read, null,
+                page -> {
+                    int[] pageAvailabilityIds = page.getAvailabilityId();
+                    int[] pageRoomIds = page.getRoomId();
+                    for (int i = 0; i < page.getSize(); i++) {
+                        if (!undelivered.test(pageAvailabilityIds[i])) {
+                            roomIdCountMap.addTo(pageRoomIds[i], 1);
                         }
                     }
+                });
 
-                    if (roomIds.size() < roomCount) {
-                        log.info("Insufficient room IDs found for the given criteria. Returning an empty list.");
-                        return new RoomIdResponseDTO(new ArrayList<>());
-                    }
+        List<Integer> roomIds = new ArrayList<>();
 
-                    log.info("Successfully fetched room IDs.");
-                    return new RoomIdResponseDTO(roomIds);
-                } catch (Exception e) {
-                    log.error("Failed to parse rooms' ids response.", e);
-                    throw new FetchFailedException("Failed to parse rooms' ids response.");
-                }
-            } else {
-                log.error("Failed to fetch rooms' ids. Please check the API again. Status code: {}",
-                        responseEntity.getStatusCode());
-                throw new FetchFailedException("Failed to fetch rooms' ids. Please check the API again.");
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        long numberOfDays = ChronoUnit.DAYS.between(start, end);
+
+        roomIdCountMap.forEach((roomId, count) -> {
+            if (count >= numberOfDays) {
+                roomIds.add(roomId);
             }
-        } catch (Exception e) {
-            log.error("Failed to fetch room ids.", e);
-            throw new FetchFailedException("Failed to fetch room ids.");
-        }
+        });
+        return roomIds;
     }
 
     /**
@@ -18,10 +18,11 @@ import org.springframework.web.client.RestTemplate;
 @Service
 public class TranslationService {
     private final String translationUrl;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
-    public TranslationService(@Value("${app.translation_url}") String translationUrl) {
+    public TranslationService(@Value("${app.translation_url}") String translationUrl, RestTemplate restTemplate) {
         this.translationUrl = translationUrl;
+        this.restTemplate = restTemplate;
     }
 
     /**
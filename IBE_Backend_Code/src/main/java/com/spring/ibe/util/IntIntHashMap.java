@@ -0,0 +1,167 @@
+package com.spring.ibe.util;
+
+/**
+ * Hash map from int to int with open addressing, for per-row aggregation on hot
+ * paths where a {@code Map<Integer, Integer>} would box every key and count.
+ * Not thread-safe.
+ */
+public final class IntIntHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /**
+     * Creates an empty map.
+     */
+    public IntIntHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates an empty map sized for a number of entries.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1));
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key     The key.
+     * @param missing The value to return if the key is absent.
+     * @return The value, or {@code missing}.
+     */
+    public int get(int key, int missing) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : missing;
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key The key.
+     * @return true if the key is present.
+     */
+    public boolean containsKey(int key) {
+        return used[find(key)];
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(int key, int value) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Adds to the value of a key, treating an absent key as 0.
+     *
+     * @param key   The key.
+     * @param delta The amount to add.
+     * @return The new value.
+     */
+    public int addTo(int key, int delta) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+        return values[slot] += delta;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hands every entry to a consumer, in no particular order.
+     *
+     * @param consumer The consumer.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int insert(int slot, int key) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            slot = find(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(keys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int newSlot = find(oldKeys[slot]);
+                used[newSlot] = true;
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives the entries of an {@link IntIntHashMap}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * Receives an entry.
+         *
+         * @param key   The key.
+         * @param value The value.
+         */
+        void accept(int key, int value);
+    }
+}
@@ -1,7 +1,6 @@
 package com.spring.ibe.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.ibe.dto.request.PromotionRequestDTO;
 import com.spring.ibe.dto.request.RoomDataRequestDTO;
 import com.spring.ibe.dto.response.PromotionResponseDTO;
 import com.spring.ibe.dto.response.RoomDataResponseDTO;
@@ -9,7 +8,6 @@ import com.spring.ibe.dto.response.RoomPromoResponseDTO;
 import com.spring.ibe.entity.Promotion;
 import com.spring.ibe.entity.RoomData;
 import com.spring.ibe.exception.custom.UnprocessableEntityException;
-import com.spring.ibe.service.PromotionService;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
@@ -42,18 +40,17 @@ public class RoomDataConverter implements AttributeConverter<RoomData.InnerRoomD
     }
 
     /**
-     * Creates a response DTO for room data based on the given room data and
-     * promotion request DTO.
+     * Creates a response DTO for room data based on the given room data and the
+     * promotions applicable to the stay.
      * 
-     * @param roomData            The room data entity.
-     * @param promotionRequestDTO The promotion request DTO.
+     * @param roomData             The room data entity.
+     * @param promotionResponseDTO The applicable promotions.
      * @return The response DTO containing room data.
      */
     public static RoomDataResponseDTO createRoomDataResponseDTO(RoomData roomData,
-            PromotionRequestDTO promotionRequestDTO) {
+            PromotionResponseDTO promotionResponseDTO) {
         RoomData.InnerRoomData innerRoomData = roomData.getRoomData();
         RoomDataResponseDTO dto = new RoomDataResponseDTO();
-        PromotionResponseDTO promotionResponseDTO = PromotionService.getPromotions(promotionRequestDTO);
 
         PromotionResponseDTO.Promotion bestPromotion = promotionResponseDTO.getPromotions().stream()
                 .min(java.util.Comparator.comparingDouble(PromotionResponseDTO.Promotion::getPriceFactor))
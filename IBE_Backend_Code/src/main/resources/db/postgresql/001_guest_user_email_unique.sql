@@ -0,0 +1,18 @@
+-- Keeps one guest_user row per email before the unique index on email_id is created.
+-- Each email keeps its most recently created guest, which stays subscribed if any of
+-- its duplicates was. The statements are idempotent and run on every start.
+
+UPDATE guest_user kept
+SET has_subscribed = TRUE
+WHERE NOT kept.has_subscribed
+  AND NOT EXISTS (SELECT 1 FROM guest_user newer
+                  WHERE newer.email_id = kept.email_id AND newer.user_id > kept.user_id)
+  AND EXISTS (SELECT 1 FROM guest_user duplicate
+              WHERE duplicate.email_id = kept.email_id AND duplicate.has_subscribed);
+
+DELETE FROM guest_user duplicate
+USING guest_user newer
+WHERE newer.email_id = duplicate.email_id
+  AND newer.user_id > duplicate.user_id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS guest_user_email_id ON guest_user (email_id);
@@ -0,0 +1,207 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.exception.custom.FetchFailedException;
+import com.spring.ibe.stub.StubGraphqlProperties;
+import com.spring.ibe.stub.StubGraphqlServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@link GraphqlClient} against the stand-in endpoint to check its
+ * circuit breaker, bulkhead, hedged requests and request coalescing.
+ */
+class GraphqlClientTest {
+
+    private static final GraphqlOperation OPERATION = GraphqlQuery.GET_PROPERTIES;
+
+    private StubGraphqlServer server;
+    private GraphqlProperties properties;
+    private FanOutExecutor fanOutExecutor;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = StubGraphqlServer.start(new StubGraphqlProperties());
+        properties = new GraphqlProperties();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdown();
+        }
+        server.close();
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndClosesAfterSuccessfulTrial() throws InterruptedException {
+        GraphqlProperties.Resilience resilience = properties.getResilience();
+        resilience.setSlidingWindowSize(4);
+        resilience.setMinimumCalls(4);
+        resilience.setFailureRateThreshold(50);
+        resilience.setOpenDuration(Duration.ofMillis(200));
+        GraphqlClient client = client();
+
+        server.failNext(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, execute(client).getStatusCode());
+        }
+        assertThrows(FetchFailedException.class, () -> execute(client));
+        assertEquals(4, server.getRequestCount());
+
+        Thread.sleep(250);
+        assertEquals(HttpStatus.OK, execute(client).getStatusCode());
+        assertEquals(HttpStatus.OK, execute(client).getStatusCode());
+        assertEquals(6, server.getRequestCount());
+    }
+
+    @Test
+    void failedTrialReopensCircuit() throws InterruptedException {
+        GraphqlProperties.Resilience resilience = properties.getResilience();
+        resilience.setSlidingWindowSize(2);
+        resilience.setMinimumCalls(2);
+        resilience.setOpenDuration(Duration.ofMillis(200));
+        GraphqlClient client = client();
+
+        server.failNext(3);
+        execute(client);
+        execute(client);
+        Thread.sleep(250);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, execute(client).getStatusCode());
+        assertThrows(FetchFailedException.class, () -> execute(client));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void fullBulkheadRejectsCalls() throws Exception {
+        properties.setCoalesceQueries(false);
+        properties.getResilience().setMaxConcurrentCalls(2);
+        properties.getResilience().setBulkheadWait(Duration.ZERO);
+        GraphqlClient client = client();
+
+        server.holdResponses();
+        CompletableFuture<ResponseEntity<byte[]>> first = CompletableFuture.supplyAsync(() -> execute(client),
+                callers);
+        CompletableFuture<ResponseEntity<byte[]>> second = CompletableFuture.supplyAsync(() -> execute(client),
+                callers);
+        assertTrue(server.awaitRequests(2, Duration.ofSeconds(5)));
+        assertThrows(FetchFailedException.class, () -> execute(client));
+
+        server.releaseResponses();
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.OK, second.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.OK, execute(client).getStatusCode());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    void hedgedRequestAnswersWhenFirstIsSlow() {
+        properties.getResilience().setHedgedOperations(Set.of(OPERATION.getName()));
+        properties.getResilience().setHedgeMinDelay(Duration.ofMillis(100));
+        GraphqlClient client = client();
+        for (int i = 0; i < LatencyTracker.MINIMUM_SAMPLES; i++) {
+            execute(client);
+        }
+
+        server.delayNext(Duration.ofSeconds(5));
+        long startNanos = System.nanoTime();
+        ResponseEntity<byte[]> responseEntity = execute(client);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertTrue(elapsedMillis < 2_000, "The hedged request answered after " + elapsedMillis + " ms");
+        assertEquals(LatencyTracker.MINIMUM_SAMPLES + 2, server.getRequestCount());
+    }
+
+    @Test
+    void identicalQueriesInFlightShareOneRequest() throws Exception {
+        GraphqlClient client = client();
+
+        server.holdResponses();
+        List<CompletableFuture<ResponseEntity<byte[]>>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> execute(client), callers));
+        }
+        assertTrue(server.awaitRequests(1, Duration.ofSeconds(5)));
+        Thread.sleep(200);
+        server.releaseResponses();
+
+        byte[] body = calls.get(0).get(5, TimeUnit.SECONDS).getBody();
+        for (CompletableFuture<ResponseEntity<byte[]>> call : calls) {
+            assertArrayEquals(body, call.get(5, TimeUnit.SECONDS).getBody());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void cancelledLeaderDoesNotFailTheCallersSharingItsQuery() throws Exception {
+        GraphqlClient client = client();
+
+        server.holdResponses();
+        CompletableFuture<ResponseEntity<byte[]>> leader = fanOutExecutor.requestAsync(() -> execute(client));
+        assertTrue(server.awaitRequests(1, Duration.ofSeconds(5)));
+        List<CompletableFuture<ResponseEntity<byte[]>>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> execute(client), callers));
+        }
+        Thread.sleep(200);
+        leader.cancel(true);
+        assertTrue(server.awaitRequests(2, Duration.ofSeconds(5)));
+        server.releaseResponses();
+
+        for (CompletableFuture<ResponseEntity<byte[]>> call : calls) {
+            assertEquals(HttpStatus.OK, call.get(5, TimeUnit.SECONDS).getStatusCode());
+        }
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void queriesWithDifferentVariablesAreNotShared() throws Exception {
+        GraphqlClient client = client();
+        GraphqlOperation operation = GraphqlQuery.GET_NIGHTLY_RATES;
+
+        server.holdResponses();
+        CompletableFuture<ResponseEntity<byte[]>> first = CompletableFuture.supplyAsync(
+                () -> client.executeForBytes(operation, Map.of("propertyId", 11)), callers);
+        CompletableFuture<ResponseEntity<byte[]>> second = CompletableFuture.supplyAsync(
+                () -> client.executeForBytes(operation, Map.of("propertyId", 12)), callers);
+        assertTrue(server.awaitRequests(2, Duration.ofSeconds(5)));
+        server.releaseResponses();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private GraphqlClient client() {
+        fanOutExecutor = new FanOutExecutor(properties, new SimpleMeterRegistry());
+        return server.client(properties, fanOutExecutor);
+    }
+
+    private static ResponseEntity<byte[]> execute(GraphqlClient client) {
+        return client.executeForBytes(OPERATION, Map.of());
+    }
+}
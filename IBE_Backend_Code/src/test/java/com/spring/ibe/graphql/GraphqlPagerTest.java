@@ -0,0 +1,107 @@
+package com.spring.ibe.graphql;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.stub.StubGraphqlProperties;
+import com.spring.ibe.stub.StubGraphqlServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Walks keyset-paginated availabilities of the stand-in endpoint with
+ * {@link GraphqlPager}.
+ */
+class GraphqlPagerTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2026, 1, 1);
+    private static final int PROPERTY_ID = 11;
+
+    private StubGraphqlServer server;
+    private FanOutExecutor fanOutExecutor;
+    private GraphqlPager graphqlPager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StubGraphqlProperties stubProperties = new StubGraphqlProperties();
+        stubProperties.setFirstPropertyId(PROPERTY_ID);
+        stubProperties.setRoomTypesPerProperty(2);
+        stubProperties.setRoomsPerRoomType(3);
+        stubProperties.setDays(5);
+        stubProperties.setStartDate(START_DATE);
+        server = StubGraphqlServer.start(stubProperties);
+
+        GraphqlProperties properties = new GraphqlProperties();
+        properties.setPageSize(7);
+        fanOutExecutor = new FanOutExecutor(properties, new SimpleMeterRegistry());
+        graphqlPager = new GraphqlPager(server.client(properties, fanOutExecutor), fanOutExecutor, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.shutdown();
+        server.close();
+    }
+
+    @Test
+    void pagesContinueAfterTheLastKeyUntilAShortPage() {
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Integer> availabilityIds = new ArrayList<>();
+
+        forEachPage(pageSizes, availabilityIds);
+
+        assertEquals(List.of(7, 7, 7, 7, 2), pageSizes);
+        assertEquals(range(1, 30), availabilityIds);
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    void pagesSkipBookedRowsWithoutRepeatingOrLosingOthers() {
+        book(3);
+        book(10);
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Integer> availabilityIds = new ArrayList<>();
+
+        forEachPage(pageSizes, availabilityIds);
+
+        List<Integer> expected = range(1, 30);
+        expected.remove(Integer.valueOf(3));
+        expected.remove(Integer.valueOf(10));
+        assertEquals(List.of(7, 7, 7, 7, 0), pageSizes);
+        assertEquals(expected, availabilityIds);
+    }
+
+    private void forEachPage(List<Integer> pageSizes, List<Integer> availabilityIds) {
+        Map<String, Object> variables = graphqlPager.firstKeysetPage(Map.of(
+                "startDate", START_DATE + GraphqlQuery.START_OF_DAY,
+                "endDate", START_DATE.plusDays(5) + GraphqlQuery.START_OF_DAY,
+                "propertyId", PROPERTY_ID));
+        graphqlPager.forEachPage(GraphqlQuery.GET_ROOM_AVAILABILITIES, variables, RoomAvailabilityColumns::read,
+                null, page -> {
+                    pageSizes.add(page.getSize());
+                    for (int i = 0; i < page.getSize(); i++) {
+                        availabilityIds.add(page.getAvailabilityId()[i]);
+                    }
+                });
+    }
+
+    private void book(long availabilityId) {
+        server.getDataset().updateRoomAvailability(Map.of("availabilityId", availabilityId, "bookingId", 1L));
+    }
+
+    private static List<Integer> range(int first, int last) {
+        List<Integer> values = new ArrayList<>();
+        for (int value = first; value <= last; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+}
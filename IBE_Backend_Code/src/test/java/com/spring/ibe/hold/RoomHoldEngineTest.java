@@ -0,0 +1,104 @@
+package com.spring.ibe.hold;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which rooms {@link RoomHoldEngine} grants for overlapping and
+ * expiring holds, with the database reservations mocked.
+ */
+class RoomHoldEngineTest {
+
+    private static final long PROPERTY_ID = 11;
+    private static final long ROOM_TYPE_ID = 1;
+    private static final List<Integer> ROOM_IDS = List.of(1, 2);
+    private static final LocalDate CHECK_IN = LocalDate.of(2026, 1, 10);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2026, 1, 13);
+
+    private RoomHoldProperties properties;
+    private RoomReservations roomReservations;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RoomHoldProperties();
+        roomReservations = mock(RoomReservations.class);
+        when(roomReservations.reserve(any())).thenReturn(true);
+    }
+
+    @Test
+    void overlappingHoldsGetDifferentRooms() {
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+        assertEquals(List.of(2), hold(engine, CHECK_IN.plusDays(2), CHECK_OUT.plusDays(2)).getRoomIds());
+        assertNull(hold(engine, CHECK_IN.minusDays(1), CHECK_IN.plusDays(1)));
+    }
+
+    @Test
+    void staysSharingNoNightGetTheSameRoom() {
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+        assertEquals(List.of(1), hold(engine, CHECK_OUT, CHECK_OUT.plusDays(2)).getRoomIds());
+        assertEquals(List.of(1), hold(engine, CHECK_IN.minusDays(2), CHECK_IN).getRoomIds());
+    }
+
+    @Test
+    void releasedHoldFreesItsRooms() {
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+        RoomHold hold = hold(engine, CHECK_IN, CHECK_OUT);
+
+        engine.release(hold);
+
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+        verify(roomReservations).release(hold);
+    }
+
+    @Test
+    void expiredHoldFreesItsRooms() throws InterruptedException {
+        properties.setTtl(Duration.ofMillis(100));
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+        assertEquals(List.of(2), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+
+        Thread.sleep(150);
+
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+    }
+
+    @Test
+    void holdIsRefusedWhenTheDatabaseAlreadyReservedItsNights() {
+        when(roomReservations.reserve(any())).thenReturn(false, true);
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+
+        assertNull(hold(engine, CHECK_IN, CHECK_OUT));
+        assertEquals(List.of(1), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+    }
+
+    @Test
+    void roomsReservedInTheDatabaseAreSkipped() {
+        when(roomReservations.reservedRoomIds(eq(PROPERTY_ID), any(), anyLong(), anyLong())).thenReturn(Set.of(1));
+        RoomHoldEngine engine = new RoomHoldEngine(properties, roomReservations);
+
+        assertEquals(List.of(2), hold(engine, CHECK_IN, CHECK_OUT).getRoomIds());
+        assertNull(hold(engine, CHECK_IN, CHECK_OUT));
+    }
+
+    private static RoomHold hold(RoomHoldEngine engine, LocalDate checkIn, LocalDate checkOut) {
+        return engine.hold(PROPERTY_ID, ROOM_TYPE_ID, ROOM_IDS, checkIn, checkOut, 1);
+    }
+}
@@ -0,0 +1,152 @@
+package com.spring.ibe.outbox;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.entity.OutboxMessage;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.graphql.GraphqlProperties;
+import com.spring.ibe.repository.OutboxMessageRepository;
+import com.spring.ibe.stub.StubGraphqlProperties;
+import com.spring.ibe.stub.StubGraphqlServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relays outbox messages held by a mocked repository to the stand-in
+ * endpoint, checking how they are claimed, acknowledged, retried and
+ * dead-lettered.
+ */
+class OutboxRelayTest {
+
+    private static final long BOOKING_ID = 42;
+
+    private StubGraphqlServer server;
+    private OutboxMessageRepository outboxMessageRepository;
+    private OutboxProperties properties;
+    private Outbox outbox;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = StubGraphqlServer.start(new StubGraphqlProperties());
+        GraphqlProperties graphqlProperties = new GraphqlProperties();
+        FanOutExecutor fanOutExecutor = new FanOutExecutor(graphqlProperties, new SimpleMeterRegistry());
+        outboxMessageRepository = mock(OutboxMessageRepository.class);
+        when(outboxMessageRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        properties = new OutboxProperties();
+        outbox = new Outbox(outboxMessageRepository);
+        outboxRelay = new OutboxRelay(outboxMessageRepository, outbox,
+                server.client(graphqlProperties, fanOutExecutor),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void dueMessagesAreClaimedDeliveredInOneRequestAndDeleted() {
+        OutboxMessage first = message(5, "{\"availabilityId\":5,\"bookingId\":42}", 0);
+        OutboxMessage second = message(6, "{\"availabilityId\":6,\"bookingId\":42}", 0);
+        claim(first, second);
+        when(outboxMessageRepository.findByOperation(GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName()))
+                .thenReturn(List.of(first, second));
+        outbox.reloadAttachments();
+        assertTrue(outbox.undeliveredAttachments().test(5));
+        Instant before = Instant.now();
+
+        outboxRelay.relay();
+
+        assertFalse(outbox.undeliveredAttachments().test(5));
+        assertFalse(outbox.undeliveredAttachments().test(6));
+        assertFalse(first.getNextAttemptAt().isBefore(before.plus(properties.getLease())));
+        verify(outboxMessageRepository).delete(first);
+        verify(outboxMessageRepository).delete(second);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(2, server.getDataset().listAvailabilitiesByBookingId(Map.of("bookingId", BOOKING_ID)).size());
+    }
+
+    @Test
+    void failedMessageIsRetriedWithBackoff() {
+        OutboxMessage message = message(5, "{\"availabilityId\":5,\"bookingId\":42}", 0);
+        claim(message);
+        server.failNext(1);
+        Instant before = Instant.now();
+
+        outboxRelay.relay();
+
+        assertEquals(OutboxMessage.Status.PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertNotNull(message.getLastError());
+        Duration backoff = Duration.between(before, message.getNextAttemptAt());
+        assertTrue(backoff.compareTo(properties.getInitialBackoff().dividedBy(2)) >= 0
+                && backoff.compareTo(properties.getLease()) < 0, "Unexpected backoff " + backoff);
+        verify(outboxMessageRepository).save(message);
+        verify(outboxMessageRepository, never()).delete(message);
+    }
+
+    @Test
+    void messageIsDeadLetteredAfterTheLastAttempt() {
+        OutboxMessage message = message(5, "{\"availabilityId\":5,\"bookingId\":42}",
+                properties.getMaxAttempts() - 1);
+        claim(message);
+        server.failNext(1);
+
+        outboxRelay.relay();
+
+        assertEquals(OutboxMessage.Status.DEAD, message.getStatus());
+        assertEquals(properties.getMaxAttempts(), message.getAttempts());
+        verify(outboxMessageRepository).save(message);
+        verify(outboxMessageRepository, never()).delete(message);
+    }
+
+    @Test
+    void unreadableMessageIsDeadLetteredWithoutBeingSent() {
+        OutboxMessage message = message(5, "{not json", 0);
+        claim(message);
+
+        outboxRelay.relay();
+
+        assertEquals(OutboxMessage.Status.DEAD, message.getStatus());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private void claim(OutboxMessage... messages) {
+        when(outboxMessageRepository.lockDue(any(), anyInt()))
+                .thenReturn(new ArrayList<>(List.of(messages)), new ArrayList<>());
+    }
+
+    private static OutboxMessage message(long availabilityId, String variables, int attempts) {
+        OutboxMessage message = new OutboxMessage();
+        message.setIdempotencyKey("room-availability:" + availabilityId);
+        message.setBookingId(BOOKING_ID);
+        message.setOperation(GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName());
+        message.setVariables(variables);
+        message.setAttempts(attempts);
+        message.setNextAttemptAt(Instant.now());
+        message.setCreatedAt(Instant.now());
+        return message;
+    }
+}
@@ -0,0 +1,439 @@
+package com.spring.ibe.stub;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Generated in-memory data behind the stand-in GraphQL endpoint. Properties,
+ * room types, rooms and one availability per room and day are laid out in ID
+ * order, so an availability's room and date follow from its ID and only the
+ * booking it belongs to is stored. Each resolver takes the variables of one
+ * {@code GraphqlQuery} operation and returns the value of its root field.
+ */
+@Slf4j
+public class StubDataset {
+
+    private static final String[] ROOM_TYPE_NAMES = { "GRAND_DELUXE", "SUPER_DELUXE", "FAMILY_DELUXE",
+            "COUPLE_SUITE", "GARDEN_SUITE", "STANDARD_SUITE" };
+
+    private static final List<Map<String, Object>> PROMOTIONS = List.of(
+            promotion(1, "SENIOR_CITIZEN_DISCOUNT", "Discount for guests aged 60 and above.", 1, 0.75),
+            promotion(2, "KDU_MEMBERSHIP_DISCOUNT", "Discount for KDU members.", 1, 0.9),
+            promotion(3, "LONG_WEEKEND_DISCOUNT", "Discount for stays covering a long weekend.", 3, 0.85),
+            promotion(4, "MILITARY_PERSONNEL_DISCOUNT", "Discount for military personnel.", 1, 0.85),
+            promotion(5, "UPFRONT_PAYMENT_DISCOUNT", "Discount for paying the full amount upfront.", 1, 0.95),
+            promotion(6, "WEEKEND_DISCOUNT", "Discount for stays covering a weekend.", 2, 0.9));
+
+    private final int firstPropertyId;
+    private final int propertyCount;
+    private final int roomTypesPerProperty;
+    private final int roomsPerRoomType;
+    private final int days;
+    private final long firstDay;
+    private final RoomType[] roomTypes;
+    private final AtomicLongArray bookingOfAvailability;
+    private final AtomicLong guestIds = new AtomicLong();
+    private final AtomicLong bookingIds = new AtomicLong();
+
+    /**
+     * Generates the dataset.
+     *
+     * @param properties The dataset settings.
+     * @throws IllegalArgumentException if the dataset would hold more
+     *                                  availabilities than fit in an array.
+     */
+    public StubDataset(StubGraphqlProperties properties) {
+        this.firstPropertyId = properties.getFirstPropertyId();
+        this.propertyCount = properties.getPropertyCount();
+        this.roomTypesPerProperty = properties.getRoomTypesPerProperty();
+        this.roomsPerRoomType = properties.getRoomsPerRoomType();
+        this.days = properties.getDays();
+        LocalDate startDate = properties.getStartDate() != null ? properties.getStartDate()
+                : LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        this.firstDay = startDate.toEpochDay();
+
+        long availabilityCount = (long) propertyCount * roomTypesPerProperty * roomsPerRoomType * days;
+        if (availabilityCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The stub dataset is too large: " + availabilityCount
+                    + " availabilities.");
+        }
+
+        Random random = new Random(properties.getSeed());
+        this.roomTypes = new RoomType[propertyCount * roomTypesPerProperty];
+        for (int i = 0; i < roomTypes.length; i++) {
+            int ordinal = i % roomTypesPerProperty;
+            String name = ROOM_TYPE_NAMES[ordinal % ROOM_TYPE_NAMES.length]
+                    + (ordinal < ROOM_TYPE_NAMES.length ? "" : "_" + (ordinal / ROOM_TYPE_NAMES.length + 1));
+            roomTypes[i] = new RoomType(i + 1, firstPropertyId + i / roomTypesPerProperty, name, days, random);
+        }
+        this.bookingOfAvailability = new AtomicLongArray((int) availabilityCount);
+        log.info("Generated stub dataset: {} properties, {} room types, {} rooms, {} availabilities from {}",
+                propertyCount, roomTypes.length, roomTypes.length * roomsPerRoomType, availabilityCount, startDate);
+    }
+
+    /**
+     * Resolves {@code listProperties}.
+     *
+     * @param variables The operation variables.
+     * @return The properties.
+     */
+    public List<Map<String, Object>> listProperties(Map<String, Object> variables) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int property = 0; property < propertyCount; property++) {
+            rows.add(Map.of("property_name", "Stub Property " + (firstPropertyId + property)));
+        }
+        return rows;
+    }
+
+    /**
+     * Resolves {@code getProperty} with the nightly rates of every room type.
+     *
+     * @param variables The operation variables: propertyId.
+     * @return The property, or null if it does not exist.
+     */
+    public Map<String, Object> getProperty(Map<String, Object> variables) {
+        int property = propertyIndex(intVariable(variables, "propertyId"));
+        if (property < 0) {
+            return null;
+        }
+        List<Map<String, Object>> types = new ArrayList<>();
+        for (int type = property * roomTypesPerProperty; type < (property + 1) * roomTypesPerProperty; type++) {
+            List<Map<String, Object>> rates = new ArrayList<>();
+            for (int day = 0; day < days; day++) {
+                rates.add(Map.of("room_rate", rate(roomTypes[type], day)));
+            }
+            types.add(Map.of("room_rates", rates));
+        }
+        return Map.of("room_type", types);
+    }
+
+    /**
+     * Resolves {@code listRoomTypes} for the room search filters.
+     *
+     * @param variables The operation variables: propertyId, roomTypeName,
+     *                  singleBed, area, doubleBed, minCapacity.
+     * @return The matching room types.
+     */
+    public List<Map<String, Object>> listRoomTypes(Map<String, Object> variables) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int property = propertyIndex(intVariable(variables, "propertyId"));
+        if (property < 0) {
+            return rows;
+        }
+        String roomTypeName = (String) variables.get("roomTypeName");
+        for (int type = property * roomTypesPerProperty; type < (property + 1) * roomTypesPerProperty; type++) {
+            RoomType roomType = roomTypes[type];
+            if (roomType.name.contains(roomTypeName)
+                    && roomType.singleBed >= intVariable(variables, "singleBed")
+                    && roomType.area >= intVariable(variables, "area")
+                    && roomType.doubleBed >= intVariable(variables, "doubleBed")
+                    && roomType.maxCapacity >= intVariable(variables, "minCapacity")) {
+                rows.add(Map.of("area_in_square_feet", roomType.area, "double_bed", roomType.doubleBed,
+                        "max_capacity", roomType.maxCapacity, "single_bed", roomType.singleBed,
+                        "room_type_id", roomType.id, "room_type_name", roomType.name));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Resolves {@code listPromotions}.
+     *
+     * @param variables The operation variables.
+     * @return The promotions.
+     */
+    public List<Map<String, Object>> listPromotions(Map<String, Object> variables) {
+        return PROMOTIONS;
+    }
+
+    /**
+     * Resolves one page of free availabilities of a property.
+     *
+     * @param variables The operation variables: startDate, endDate, propertyId,
+     *                  after, take.
+     * @return The availabilities with their room and room type.
+     */
+    public List<Map<String, Object>> listRoomAvailabilities(Map<String, Object> variables) {
+        return availabilities(variables, true, room -> true, intVariable(variables, "after"),
+                intVariable(variables, "take"), index -> {
+                    int room = roomOf(index);
+                    return Map.of("availability_id", index + 1, "date", date(dayOf(index)),
+                            "room", Map.of("room_id", room + 1, "room_type_id", roomTypes[room / roomsPerRoomType].id));
+                });
+    }
+
+    /**
+     * Resolves one page of all availabilities of a property, booked or not.
+     *
+     * @param variables The operation variables: startDate, endDate, propertyId,
+     *                  after, take.
+     * @return The availabilities with their booking, room and room type.
+     */
+    public List<Map<String, Object>> listPropertyAvailabilities(Map<String, Object> variables) {
+        return availabilities(variables, false, room -> true, intVariable(variables, "after"),
+                intVariable(variables, "take"), index -> {
+                    int room = roomOf(index);
+                    RoomType roomType = roomTypes[room / roomsPerRoomType];
+                    return Map.of("availability_id", index + 1, "date", date(dayOf(index)),
+                            "booking_id", bookingOfAvailability.get(index),
+                            "room", Map.of("room_id", room + 1, "room_type_id", roomType.id));
+                });
+    }
+
+    /**
+     * Resolves one page of free availabilities of a room type.
+     *
+     * @param variables The operation variables: startDate, endDate, roomTypeId,
+     *                  propertyId, after, take.
+     * @return The availabilities with their room.
+     */
+    public List<Map<String, Object>> listRoomIds(Map<String, Object> variables) {
+        int roomTypeId = intVariable(variables, "roomTypeId");
+        return availabilities(variables, true, room -> room / roomsPerRoomType + 1 == roomTypeId,
+                intVariable(variables, "after"), intVariable(variables, "take"),
+                index -> Map.of("availability_id", index + 1, "room_id", roomOf(index) + 1));
+    }
+
+    /**
+     * Resolves the free availabilities of several rooms.
+     *
+     * @param variables The operation variables: startDate, endDate, propertyId,
+     *                  roomIds.
+     * @return The availabilities with their room.
+     */
+    public List<Map<String, Object>> listSelectedRoomsAvailabilities(Map<String, Object> variables) {
+        Set<Integer> roomIds = new HashSet<>();
+        for (Object roomId : (List<?>) variables.get("roomIds")) {
+            roomIds.add(((Number) roomId).intValue());
+        }
+        return availabilities(variables, true, room -> roomIds.contains(room + 1), 0, Integer.MAX_VALUE,
+                index -> Map.of("availability_id", index + 1, "room_id", roomOf(index) + 1));
+    }
+
+    /**
+     * Resolves the availabilities held by a booking.
+     *
+     * @param variables The operation variables: bookingId.
+     * @return The availabilities.
+     */
+    public List<Map<String, Object>> listAvailabilitiesByBookingId(Map<String, Object> variables) {
+        long bookingId = longVariable(variables, "bookingId");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int index = 0; index < bookingOfAvailability.length(); index++) {
+            if (bookingOfAvailability.get(index) == bookingId) {
+                rows.add(Map.of("availability_id", index + 1));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Resolves one page of the room rates of a property, ordered by room type and
+     * date.
+     *
+     * @param variables The operation variables: startDate, endDate, propertyId,
+     *                  skip, take.
+     * @return The rates with their room type.
+     */
+    public List<Map<String, Object>> listRoomRates(Map<String, Object> variables) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int property = propertyIndex(intVariable(variables, "propertyId"));
+        if (property < 0) {
+            return rows;
+        }
+        int skip = intVariable(variables, "skip");
+        int take = intVariable(variables, "take");
+        int firstDayIndex = dayIndex(dayVariable(variables, "startDate"));
+        int endDayIndex = dayIndex(dayVariable(variables, "endDate"));
+        int matched = 0;
+        for (int type = property * roomTypesPerProperty; type < (property + 1) * roomTypesPerProperty; type++) {
+            for (int day = firstDayIndex; day < endDayIndex && rows.size() < take; day++) {
+                if (matched++ >= skip) {
+                    rows.add(Map.of("room_rate", rate(roomTypes[type], day),
+                            "room_type_id", roomTypes[type].id));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Resolves the room rates of a single room type, ordered by date.
+     *
+     * @param variables The operation variables: startDate, endDate, roomTypeId,
+     *                  propertyId.
+     * @return The rates.
+     */
+    public List<Map<String, Object>> listRatesForRoomType(Map<String, Object> variables) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int type = intVariable(variables, "roomTypeId") - 1;
+        if (type < 0 || type >= roomTypes.length
+                || roomTypes[type].propertyId != intVariable(variables, "propertyId")) {
+            return rows;
+        }
+        int endDayIndex = dayIndex(dayVariable(variables, "endDate"));
+        for (int day = dayIndex(dayVariable(variables, "startDate")); day < endDayIndex; day++) {
+            rows.add(Map.of("room_rate", rate(roomTypes[type], day)));
+        }
+        return rows;
+    }
+
+    /**
+     * Resolves {@code createGuest}.
+     *
+     * @param variables The operation variables: guestName.
+     * @return The created guest.
+     */
+    public Map<String, Object> createGuest(Map<String, Object> variables) {
+        return Map.of("guest_id", guestIds.incrementAndGet());
+    }
+
+    /**
+     * Resolves {@code createBooking}, which also books the connected
+     * availability.
+     *
+     * @param variables The operation variables; only availabilityId is used.
+     * @return The created booking.
+     */
+    public Map<String, Object> createBooking(Map<String, Object> variables) {
+        long bookingId = bookingIds.incrementAndGet();
+        book(longVariable(variables, "availabilityId"), bookingId);
+        return Map.of("booking_id", bookingId);
+    }
+
+    /**
+     * Resolves {@code updateRoomAvailability}. A booking ID of 0 releases the
+     * availability.
+     *
+     * @param variables The operation variables: availabilityId, bookingId.
+     * @return The updated availability.
+     */
+    public Map<String, Object> updateRoomAvailability(Map<String, Object> variables) {
+        long bookingId = longVariable(variables, "bookingId");
+        book(longVariable(variables, "availabilityId"), bookingId);
+        return Map.of("booking_id", bookingId);
+    }
+
+    /**
+     * Resolves {@code updateBooking}. Booking statuses are not tracked.
+     *
+     * @param variables The operation variables: bookingId.
+     * @return The updated booking.
+     */
+    public Map<String, Object> updateBooking(Map<String, Object> variables) {
+        return Map.of("booking_id", longVariable(variables, "bookingId"));
+    }
+
+    private List<Map<String, Object>> availabilities(Map<String, Object> variables, boolean freeOnly,
+            IntPredicate roomFilter, long after, int take, IntFunction<Map<String, Object>> row) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int property = propertyIndex(intVariable(variables, "propertyId"));
+        if (property < 0) {
+            return rows;
+        }
+        int firstDayIndex = dayIndex(dayVariable(variables, "startDate"));
+        int endDayIndex = dayIndex(dayVariable(variables, "endDate"));
+        int roomsPerProperty = roomTypesPerProperty * roomsPerRoomType;
+        int end = (property + 1) * roomsPerProperty * days;
+        for (int index = (int) Math.max(after, (long) property * roomsPerProperty * days);
+                index < end && rows.size() < take; index++) {
+            int day = index % days;
+            if (day >= firstDayIndex && day < endDayIndex && (!freeOnly || bookingOfAvailability.get(index) == 0)
+                    && roomFilter.test(roomOf(index))) {
+                rows.add(row.apply(index));
+            }
+        }
+        return rows;
+    }
+
+    private void book(long availabilityId, long bookingId) {
+        if (availabilityId > 0 && availabilityId <= bookingOfAvailability.length()) {
+            bookingOfAvailability.set((int) availabilityId - 1, bookingId);
+        }
+    }
+
+    private int propertyIndex(int propertyId) {
+        int property = propertyId - firstPropertyId;
+        return property >= 0 && property < propertyCount ? property : -1;
+    }
+
+    private int roomOf(int availabilityIndex) {
+        return availabilityIndex / days;
+    }
+
+    private long dayOf(int availabilityIndex) {
+        return firstDay + availabilityIndex % days;
+    }
+
+    private int dayIndex(long epochDay) {
+        return (int) Math.max(0, Math.min(days, epochDay - firstDay));
+    }
+
+    private Map<String, Object> rate(RoomType roomType, int day) {
+        return Map.of("basic_nightly_rate", roomType.rates[day], "date", date(firstDay + day));
+    }
+
+    private static String date(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay) + GraphqlQuery.START_OF_DAY;
+    }
+
+    private static int intVariable(Map<String, Object> variables, String name) {
+        return ((Number) variables.get(name)).intValue();
+    }
+
+    private static long longVariable(Map<String, Object> variables, String name) {
+        return ((Number) variables.get(name)).longValue();
+    }
+
+    private static long dayVariable(Map<String, Object> variables, String name) {
+        return LocalDate.parse(((String) variables.get(name)).substring(0, 10)).toEpochDay();
+    }
+
+    private static Map<String, Object> promotion(int id, String title, String description, int minimumDaysOfStay,
+            double priceFactor) {
+        return Map.of("promotion_id", id, "promotion_title", title, "promotion_description", description,
+                "minimum_days_of_stay", minimumDaysOfStay, "price_factor", priceFactor, "is_deactivated", false);
+    }
+
+    /**
+     * A generated room type with one nightly rate per day.
+     */
+    private static final class RoomType {
+        private final int id;
+        private final int propertyId;
+        private final String name;
+        private final int area;
+        private final int singleBed;
+        private final int doubleBed;
+        private final int maxCapacity;
+        private final int[] rates;
+
+        private RoomType(int id, int propertyId, String name, int days, Random random) {
+            this.id = id;
+            this.propertyId = propertyId;
+            this.name = name;
+            this.area = 250 + 50 * random.nextInt(12);
+            this.singleBed = random.nextInt(3);
+            this.doubleBed = singleBed == 0 ? 1 + random.nextInt(2) : random.nextInt(3);
+            this.maxCapacity = singleBed + 2 * doubleBed;
+            int baseRate = 80 + 10 * random.nextInt(25);
+            this.rates = new int[days];
+            for (int day = 0; day < days; day++) {
+                rates[day] = baseRate + random.nextInt(baseRate / 4 + 1);
+            }
+        }
+    }
+}
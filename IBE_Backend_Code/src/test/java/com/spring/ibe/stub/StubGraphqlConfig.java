@@ -0,0 +1,27 @@
+package com.spring.ibe.stub;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration of the stand-in GraphQL endpoint, active under the
+ * {@code stub} profile only.
+ */
+@Configuration
+@Profile("stub")
+@EnableConfigurationProperties(StubGraphqlProperties.class)
+public class StubGraphqlConfig {
+
+    /**
+     * Generates the dataset served by the stand-in endpoint.
+     *
+     * @param properties The dataset settings.
+     * @return The dataset.
+     */
+    @Bean
+    public StubDataset stubDataset(StubGraphqlProperties properties) {
+        return new StubDataset(properties);
+    }
+}
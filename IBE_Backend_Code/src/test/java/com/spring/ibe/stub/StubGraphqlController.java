@@ -0,0 +1,207 @@
+package com.spring.ibe.stub;
+
+import com.spring.ibe.constants.GraphqlQuery;
+import com.spring.ibe.graphql.GraphqlOperation;
+import com.spring.ibe.graphql.GraphqlRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the upstream GraphQL endpoint, answering every operation in
+ * {@link GraphqlQuery} from a generated {@link StubDataset}. It recognises
+ * operations by their selection rather than by parsing GraphQL, which also
+ * covers batches merged by {@code GraphqlBatch} and persisted-query hashes
+ * registered by the client. Only active under the {@code stub} profile.
+ */
+@RestController
+@Profile("stub")
+@RequestMapping("/stub/graphql")
+@Slf4j
+public class StubGraphqlController {
+
+    private static final Pattern ALIAS = Pattern.compile("(?:^|\\s)(q\\d+): ");
+    private static final Pattern ALIASED_VARIABLE = Pattern.compile("\\$q\\d+_");
+
+    private final StubGraphqlProperties properties;
+    private final Map<String, Function<Map<String, Object>, Object>> resolvers = new HashMap<>();
+    private final Map<String, GraphqlOperation> operationsBySelection = new HashMap<>();
+    private final Map<String, String> persistedDocuments = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for StubGraphqlController.
+     *
+     * @param dataset    The dataset to answer from.
+     * @param properties The stub settings.
+     * @throws IllegalStateException if an operation in {@link GraphqlQuery} has
+     *                               no resolver.
+     */
+    public StubGraphqlController(StubDataset dataset, StubGraphqlProperties properties) {
+        this.properties = properties;
+        resolvers.put(GraphqlQuery.GET_PROPERTIES.getName(), dataset::listProperties);
+        resolvers.put(GraphqlQuery.GET_NIGHTLY_RATES.getName(), dataset::getProperty);
+        resolvers.put(GraphqlQuery.GET_ROOMS.getName(), dataset::listRoomTypes);
+        resolvers.put(GraphqlQuery.GET_PROMOTIONS.getName(), dataset::listPromotions);
+        resolvers.put(GraphqlQuery.GET_ROOM_AVAILABILITIES.getName(), dataset::listRoomAvailabilities);
+        resolvers.put(GraphqlQuery.GET_PROPERTY_AVAILABILITIES.getName(), dataset::listPropertyAvailabilities);
+        resolvers.put(GraphqlQuery.GET_ROOM_RATES.getName(), dataset::listRoomRates);
+        resolvers.put(GraphqlQuery.GET_RATES_ROOM_TYPE.getName(), dataset::listRatesForRoomType);
+        resolvers.put(GraphqlQuery.GET_ROOM_IDS.getName(), dataset::listRoomIds);
+        resolvers.put(GraphqlQuery.CREATE_GUEST.getName(), dataset::createGuest);
+        resolvers.put(GraphqlQuery.GET_SELECTED_ROOMS_AVAILABILITIES.getName(),
+                dataset::listSelectedRoomsAvailabilities);
+        resolvers.put(GraphqlQuery.CREATE_BOOKING.getName(), dataset::createBooking);
+        resolvers.put(GraphqlQuery.CREATE_BOOKING_WITHOUT_PROMOTION.getName(), dataset::createBooking);
+        resolvers.put(GraphqlQuery.UPDATE_ROOM_AVAILABILITY.getName(), dataset::updateRoomAvailability);
+        resolvers.put(GraphqlQuery.UPDATE_BOOKING.getName(), dataset::updateBooking);
+        resolvers.put(GraphqlQuery.GET_AVAILABILITIES_BY_BOOKING_ID.getName(),
+                dataset::listAvailabilitiesByBookingId);
+
+        for (GraphqlOperation operation : operations()) {
+            if (!resolvers.containsKey(operation.getName())) {
+                throw new IllegalStateException("No stub resolver for GraphQL operation " + operation.getName());
+            }
+            operationsBySelection.put(selection(operation.getDocument()), operation);
+        }
+    }
+
+    /**
+     * Executes a GraphQL request against the dataset.
+     *
+     * @param request The request body.
+     * @return The response document.
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> execute(@RequestBody GraphqlRequest request) {
+        delay();
+        String document = document(request);
+        if (document == null) {
+            return ResponseEntity.ok(errors("PersistedQueryNotFound"));
+        }
+        Map<String, Object> variables = request.getVariables() != null ? request.getVariables() : Map.of();
+        String selection = selection(document);
+        Map<String, Object> data = new LinkedHashMap<>();
+
+        Matcher alias = ALIAS.matcher(selection);
+        List<String> aliases = new ArrayList<>();
+        List<Integer> aliasStarts = new ArrayList<>();
+        List<Integer> partStarts = new ArrayList<>();
+        while (alias.find()) {
+            aliases.add(alias.group(1));
+            aliasStarts.add(alias.start(1));
+            partStarts.add(alias.end());
+        }
+        if (aliases.isEmpty()) {
+            GraphqlOperation operation = operationsBySelection.get(selection);
+            if (operation == null) {
+                return unknownOperation(selection);
+            }
+            data.put(operation.getRootField(), resolvers.get(operation.getName()).apply(variables));
+        } else {
+            for (int i = 0; i < aliases.size(); i++) {
+                int end = i + 1 < aliases.size() ? aliasStarts.get(i + 1) : selection.length();
+                String partSelection = ALIASED_VARIABLE.matcher(selection.substring(partStarts.get(i), end).trim())
+                        .replaceAll("\\$");
+                GraphqlOperation operation = operationsBySelection.get(partSelection);
+                if (operation == null) {
+                    return unknownOperation(partSelection);
+                }
+                data.put(aliases.get(i), resolvers.get(operation.getName())
+                        .apply(partVariables(variables, aliases.get(i))));
+            }
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Resolves the document of a request, registering or looking up its
+     * persisted-query hash when it carries one.
+     *
+     * @param request The request.
+     * @return The document, or null if only an unknown hash was sent.
+     */
+    private String document(GraphqlRequest request) {
+        Object persistedQuery = request.getExtensions() != null ? request.getExtensions().get("persistedQuery") : null;
+        if (!(persistedQuery instanceof Map<?, ?> persisted)) {
+            return request.getQuery();
+        }
+        String hash = String.valueOf(persisted.get("sha256Hash"));
+        if (request.getQuery() != null) {
+            persistedDocuments.put(hash, request.getQuery());
+            return request.getQuery();
+        }
+        return persistedDocuments.get(hash);
+    }
+
+    private void delay() {
+        long millis = properties.getLatency().toMillis();
+        long jitter = properties.getLatencyJitter().toMillis();
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> unknownOperation(String selection) {
+        log.warn("Stub GraphQL endpoint received an unknown operation: {}", selection);
+        return ResponseEntity.badRequest().body(errors("Unknown operation"));
+    }
+
+    private static Map<String, Object> errors(String message) {
+        return Map.of("errors", List.of(Map.of("message", message)));
+    }
+
+    private static Map<String, Object> partVariables(Map<String, Object> variables, String alias) {
+        String prefix = alias + "_";
+        Map<String, Object> partVariables = new HashMap<>();
+        variables.forEach((name, value) -> {
+            if (name.startsWith(prefix)) {
+                partVariables.put(name.substring(prefix.length()), value);
+            }
+        });
+        return partVariables;
+    }
+
+    private static String selection(String document) {
+        return document.substring(document.indexOf('{') + 1, document.lastIndexOf('}')).trim();
+    }
+
+    private static List<GraphqlOperation> operations() {
+        List<GraphqlOperation> operations = new ArrayList<>();
+        for (Field field : GraphqlQuery.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == GraphqlOperation.class) {
+                try {
+                    operations.add((GraphqlOperation) field.get(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read GraphQL operation " + field.getName(), e);
+                }
+            }
+        }
+        return operations;
+    }
+}
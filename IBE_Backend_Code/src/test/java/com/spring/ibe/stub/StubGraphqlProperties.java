@@ -0,0 +1,63 @@
+package com.spring.ibe.stub;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Size and behaviour of the stand-in GraphQL endpoint served under the
+ * {@code stub} profile.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.stub")
+public class StubGraphqlProperties {
+
+    /**
+     * ID of the first generated property. The default matches the property the
+     * application shows by default.
+     */
+    private int firstPropertyId = 11;
+
+    /**
+     * Number of generated properties.
+     */
+    private int propertyCount = 1;
+
+    /**
+     * Number of room types per property.
+     */
+    private int roomTypesPerProperty = 6;
+
+    /**
+     * Number of rooms per room type.
+     */
+    private int roomsPerRoomType = 10;
+
+    /**
+     * Number of days with availabilities and rates.
+     */
+    private int days = 90;
+
+    /**
+     * First day with availabilities and rates; defaults to the first day of the
+     * current month.
+     */
+    private LocalDate startDate;
+
+    /**
+     * Seed for the generated room types and rates, so that runs are repeatable.
+     */
+    private long seed = 42;
+
+    /**
+     * Fixed delay added to every response.
+     */
+    private Duration latency = Duration.ZERO;
+
+    /**
+     * Upper bound of a random delay added on top of the fixed one.
+     */
+    private Duration latencyJitter = Duration.ZERO;
+}
@@ -0,0 +1,248 @@
+package com.spring.ibe.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.ibe.config.HttpClientConfig;
+import com.spring.ibe.graphql.FanOutExecutor;
+import com.spring.ibe.graphql.GraphqlClient;
+import com.spring.ibe.graphql.GraphqlMetrics;
+import com.spring.ibe.graphql.GraphqlProperties;
+import com.spring.ibe.graphql.GraphqlRequest;
+import com.spring.ibe.graphql.GraphqlResilience;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the {@link StubGraphqlController} over plain HTTP on a free local
+ * port, so tests can drive the real GraphQL gateway without starting the
+ * application. Faults are injected per request: the next requests can be
+ * failed with a server error, delayed, or held until released.
+ */
+public class StubGraphqlServer implements AutoCloseable {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StubDataset dataset;
+    private final StubGraphqlController controller;
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool(
+            new CustomizableThreadFactory("stub-graphql-"));
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Duration> delays = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<CountDownLatch> gate = new AtomicReference<>();
+    private final List<CloseableHttpClient> httpClients = new CopyOnWriteArrayList<>();
+
+    private StubGraphqlServer(StubGraphqlProperties properties) throws IOException {
+        this.dataset = new StubDataset(properties);
+        this.controller = new StubGraphqlController(dataset, properties);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/stub/graphql", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Generates a dataset and starts serving it.
+     *
+     * @param properties The dataset settings.
+     * @return The running server.
+     * @throws IOException if the server cannot bind a port.
+     */
+    public static StubGraphqlServer start(StubGraphqlProperties properties) throws IOException {
+        StubGraphqlServer stubServer = new StubGraphqlServer(properties);
+        stubServer.server.start();
+        return stubServer;
+    }
+
+    /**
+     * Returns the URL of the GraphQL endpoint.
+     *
+     * @return The URL.
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/stub/graphql";
+    }
+
+    /**
+     * Creates a GraphQL gateway pointed at this server, with its own pooled HTTP
+     * client, resilience state and meters. The HTTP client is closed with the
+     * server.
+     *
+     * @param properties     The GraphQL settings.
+     * @param fanOutExecutor The executor for hedged requests.
+     * @return The gateway.
+     */
+    public GraphqlClient client(GraphqlProperties properties, FanOutExecutor fanOutExecutor) {
+        CloseableHttpClient httpClient = new HttpClientConfig().pooledHttpClient(properties);
+        httpClients.add(httpClient);
+        return new GraphqlClient(getUrl(), "stub", httpClient, properties, new GraphqlResilience(properties),
+                new GraphqlMetrics(new SimpleMeterRegistry()), fanOutExecutor);
+    }
+
+    /**
+     * Returns the dataset behind the endpoint.
+     *
+     * @return The dataset.
+     */
+    public StubDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Returns the number of requests received so far, including failed ones.
+     *
+     * @return The request count.
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of threads serving requests, so that callers measuring
+     * their own threads can leave them out.
+     *
+     * @return The thread count.
+     */
+    public int getThreadCount() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * Answers the next requests with {@code 503 Service Unavailable}.
+     *
+     * @param count The number of requests to fail.
+     */
+    public void failNext(int count) {
+        failures.addAndGet(count);
+    }
+
+    /**
+     * Delays the next requests, one delay per request in order of arrival.
+     *
+     * @param delaysInOrder The delays.
+     */
+    public void delayNext(Duration... delaysInOrder) {
+        for (Duration delay : delaysInOrder) {
+            delays.add(delay);
+        }
+    }
+
+    /**
+     * Holds every response until {@link #releaseResponses()} is called.
+     */
+    public void holdResponses() {
+        gate.set(new CountDownLatch(1));
+    }
+
+    /**
+     * Lets held responses go.
+     */
+    public void releaseResponses() {
+        CountDownLatch latch = gate.getAndSet(null);
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Waits until a number of requests have been received.
+     *
+     * @param count   The request count to wait for.
+     * @param timeout The longest time to wait.
+     * @return true if the count was reached in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitRequests(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (requests.get() < count) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        releaseResponses();
+        for (CloseableHttpClient httpClient : httpClients) {
+            httpClient.close(CloseMode.IMMEDIATE);
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            GraphqlRequest request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = OBJECT_MAPPER.readValue(body, GraphqlRequest.class);
+            }
+            requests.incrementAndGet();
+            if (!pause()) {
+                return;
+            }
+            if (failures.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+                respond(exchange, 503, Map.of("errors", "Service Unavailable"));
+                return;
+            }
+            ResponseEntity<Map<String, Object>> response = controller.execute(request);
+            respond(exchange, response.getStatusCode().value(), response.getBody());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Applies the next delay and waits at a closed gate.
+     *
+     * @return false if interrupted, i.e. the server is closing.
+     */
+    private boolean pause() {
+        try {
+            Duration delay = delays.poll();
+            if (delay != null) {
+                Thread.sleep(delay.toMillis());
+            }
+            CountDownLatch latch = gate.get();
+            if (latch != null) {
+                latch.await(30, TimeUnit.SECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}